@@ -1,18 +1,18 @@
 package AI;
 
+import Http.HttpGateway;
 import Pantry.PantryItem;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -27,9 +27,6 @@ public class AiRecipeService {
     private final String baseUrl = System.getenv().getOrDefault("OLLAMA_BASE_URL", "http://localhost:11434");
     private final String model   = System.getenv().getOrDefault("OLLAMA_MODEL", "phi3:mini");
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
     private final ObjectMapper mapper = new ObjectMapper();
 
     public List<RecipeDTO> generateRecipes(List<PantryItem> pantry, String userPrompt, int count) throws Exception {
@@ -78,21 +75,20 @@ public class AiRecipeService {
         messages.add(mapper.createObjectNode().put("role","user").put("content", user));
         payload.set("messages", messages);
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/api/chat"))
+        HttpRequest req = HttpGateway.request(baseUrl + "/api/chat")
                 .timeout(Duration.ofSeconds(120))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload), StandardCharsets.UTF_8))
                 .build();
 
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-        if (res.statusCode() / 100 != 2) {
-            throw new IllegalStateException("Ollama error " + res.statusCode() + ": " + res.body());
-        }
-
-        // Ollama: { message: { content: "..." }, ... }
-        String raw = mapper.readTree(res.body())
-                .path("message").path("content").asText("").trim();
+        // Ollama: { message: { content: "..." }, ... } — parsed straight from the response stream
+        JsonNode reply = await(HttpGateway.send(req, (status, body) -> {
+            if (status / 100 != 2) {
+                throw new IllegalStateException("Ollama error " + status + ": " + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return mapper.readTree(body);
+        }));
+        String raw = reply.path("message").path("content").asText("").trim();
 
         // Sanitize before parsing JSON
         String jsonText = sanitizeToJson(raw);
@@ -122,16 +118,13 @@ public class AiRecipeService {
     // Checks if Ollama is reachable and the target model is available.
     public boolean isModelAvailable() {
         try {
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/api/tags"))
+            HttpRequest req = HttpGateway.request(baseUrl + "/api/tags")
                     .timeout(Duration.ofSeconds(5))
                     .GET()
                     .build();
 
-            HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            if (res.statusCode() / 100 != 2) return false;
-
-            JsonNode root = mapper.readTree(res.body());
+            JsonNode root = await(HttpGateway.send(req, (status, body) -> status / 100 == 2 ? mapper.readTree(body) : null));
+            if (root == null) return false;
             String want = model.toLowerCase();
             for (JsonNode m : root.path("models")) {
                 String name = m.path("name").asText("").toLowerCase();
@@ -147,6 +140,14 @@ public class AiRecipeService {
     }
 
 
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
     /** Remove fences/comments, trim to outer braces, drop trailing commas. */
     private String sanitizeToJson(String s) {
         if (s == null) return "{}";
@@ -1,19 +1,30 @@
 package Controllers;
 
-import Firebase.FirebaseService;
+import Firebase.AsyncFirebaseService;
 import Pantry.PantryItem;
+import Repository.Repositories;
 import Pantry.OpenFoodFactsService;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.paint.Color;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import Pantry.CameraBarcodeScanner;
+import Pantry.CategoryClassifier;
+import Pantry.Quantity;
 
+import com.example.demo1.ThemeManager;
 import com.example.demo1.UserSession;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 public class AddItemController {
 
@@ -25,7 +36,6 @@ public class AddItemController {
     @FXML private DatePicker expiryDatePicker;
     @FXML private Label statusLabel;
 
-    private FirebaseService firebaseService;
     private OpenFoodFactsService foodFactsService;
     private CameraBarcodeScanner cameraScanner;
     private String currentUserId;
@@ -34,10 +44,9 @@ public class AddItemController {
 
     @FXML
     public void initialize() {
-        firebaseService = new FirebaseService();
         foodFactsService = new OpenFoodFactsService();
 
-        unitComboBox.getItems().addAll("pcs", "kg", "L", "oz", "box", "bottles", "cans");
+        unitComboBox.getItems().addAll("pcs", "g", "kg", "ml", "L", "oz", "lb", "fl oz", "box", "bottles", "cans");
         locationComboBox.getItems().addAll("Pantry", "Fridge", "Freezer");
         categoryComboBox.getItems().addAll("Dairy", "Vegetables", "Fruits", "Meat",
                 "Grains", "Beverages", "Snacks", "Other");
@@ -62,7 +71,8 @@ public class AddItemController {
 
         // Pre-fill form with existing data
         itemNameField.setText(item.getName());
-        quantityField.setText(String.valueOf(item.getQuantityNumeric()));
+        Quantity amount = item.getExactAmount();
+        quantityField.setText(amount != null ? formatAmount(amount) : String.valueOf(item.getQuantityNumeric()));
         unitComboBox.setValue(item.getUnit());
         categoryComboBox.setValue(item.getCategory());
 
@@ -142,6 +152,35 @@ public class AddItemController {
         });
     }
 
+    /**
+     * Open a scan session for many items at once; this dialog closes once they are saved.
+     */
+    @FXML
+    private void handleScanSession() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/XMLFiles/scanSession.fxml"));
+            Scene scene = new Scene(loader.load(), 640, 720);
+
+            ScanSessionController controller = loader.getController();
+            controller.setCurrentUserId(currentUserId);
+            controller.setOnCommitted(this::closeWindow);
+
+            Stage stage = new Stage();
+            stage.setTitle("Scan Session");
+            stage.setScene(scene);
+            stage.initOwner(itemNameField.getScene().getWindow());
+            stage.initModality(Modality.WINDOW_MODAL);
+
+            ThemeManager themeManager = ThemeManager.getInstance();
+            themeManager.registerScene(scene);
+            stage.setOnHidden(e -> themeManager.unregisterScene(scene));
+            stage.show();
+        } catch (IOException e) {
+            showError("Could not open scan session: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Populate form fields with data from product databases
      */
@@ -151,18 +190,18 @@ public class AddItemController {
             itemNameField.setText(product.getName());
         }
 
-        // Parse and set quantity
-        if (product.getQuantity() != null && !product.getQuantity().isEmpty()) {
-            OpenFoodFactsService.ParsedQuantity parsedQty =
-                    new OpenFoodFactsService.ParsedQuantity(product.getQuantity());
-
-            quantityField.setText(String.valueOf(parsedQty.numeric));
-
-            // Set unit if it matches one of our options
-            if (unitComboBox.getItems().contains(parsedQty.unit)) {
-                unitComboBox.setValue(parsedQty.unit);
+        // Parse and set quantity ("2 x 330 ml" becomes 660 ml)
+        Quantity amount = Quantity.parse(product.getQuantity());
+        if (amount != null && !amount.isZero()) {
+            String unit = amount.getUnit().getSymbol();
+            if (unitComboBox.getItems().contains(unit)) {
+                quantityField.setText(formatAmount(amount));
+                unitComboBox.setValue(unit);
             } else {
-                unitComboBox.setValue("pcs"); // default
+                // e.g. a gallon: show it in the nearest unit the form offers
+                Quantity metric = amount.toSystem(Quantity.UnitSystem.METRIC);
+                quantityField.setText(formatAmount(metric));
+                unitComboBox.setValue(metric.getUnit().getSymbol());
             }
         } else {
             quantityField.setText("1");
@@ -233,10 +272,10 @@ public class AddItemController {
                 return;
             }
 
-            int quantity;
+            double quantity;
             try {
-                quantity = Integer.parseInt(quantityText);
-                if (quantity <= 0) {
+                quantity = Double.parseDouble(quantityText.trim().replace(',', '.'));
+                if (!(quantity > 0)) {
                     showError("Quantity must be greater than 0.");
                     return;
                 }
@@ -249,6 +288,10 @@ public class AddItemController {
                 showError("Please select a unit.");
                 return;
             }
+            if (isCountUnit(unit) && quantity != Math.rint(quantity)) {
+                showError("Please enter a whole number of " + unit + ".");
+                return;
+            }
             if (expiryDate == null) {
                 showError("Please select an expiration date.");
                 return;
@@ -256,44 +299,51 @@ public class AddItemController {
 
             Date expirationDate = Date.from(expiryDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
 
+            CompletableFuture<String> save;
             if (isEditMode && itemToEdit != null) {
                 itemToEdit.setUserId(currentUserId);
                 itemToEdit.setName(name);
-                itemToEdit.setQuantityNumeric(quantity);
-                itemToEdit.setQuantityLabel(quantity + " " + unit);
-                itemToEdit.setUnit(unit);
-                itemToEdit.setCategory(category != null ? category : "Other");
+                applyQuantity(itemToEdit, quantity, unit);
+                itemToEdit.setCategory(category != null ? category : CategoryClassifier.getDefault().classify(name));
                 itemToEdit.setExpirationDate(expirationDate);
 
-                firebaseService.updatePantryItem(itemToEdit.getId(), itemToEdit);
-
-                statusLabel.setText("✓ Item updated successfully!");
-                statusLabel.setTextFill(Color.GREEN);
+                PantryItem edited = itemToEdit;
+                save = AsyncFirebaseService.supply(() -> {
+                    Repositories.pantry().update(edited.getId(), edited);
+                    return "✓ Item updated successfully!";
+                });
             } else {
                 PantryItem newItem = new PantryItem();
                 newItem.setName(name);
-                newItem.setQuantityNumeric(quantity);
-                newItem.setQuantityLabel(quantity + " " + unit);
-                newItem.setUnit(unit);
-                newItem.setCategory(category != null ? category : "Other");
+                applyQuantity(newItem, quantity, unit);
+                newItem.setCategory(category != null ? category : CategoryClassifier.getDefault().classify(name));
                 newItem.setExpirationDate(expirationDate);
                 newItem.setUserId(currentUserId);
                 newItem.setDateAdded(new Date());
 
-                String itemId = firebaseService.addPantryItem(newItem, currentUserId);
-
-                statusLabel.setText("✓ Item saved successfully! ID: " + itemId);
-                statusLabel.setTextFill(Color.GREEN);
+                String uid = currentUserId;
+                save = AsyncFirebaseService.supply(() ->
+                        "✓ Item saved successfully! ID: " + Repositories.pantry().add(newItem, uid));
             }
 
-            new Thread(() -> {
-                try {
-                    Thread.sleep(1000);
-                    Platform.runLater(this::closeWindow);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            statusLabel.setText("Saving...");
+            statusLabel.setTextFill(Color.BLUE);
+
+            // Completes on the FX thread
+            save.whenComplete((message, error) -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    showError("Failed to save item: " + cause.getMessage());
+                    cause.printStackTrace();
+                    return;
                 }
-            }).start();
+                statusLabel.setText(message);
+                statusLabel.setTextFill(Color.GREEN);
+
+                PauseTransition pause = new PauseTransition(Duration.seconds(1));
+                pause.setOnFinished(e -> closeWindow());
+                pause.play();
+            });
 
         } catch (Exception e) {
             showError("Failed to save item: " + e.getMessage());
@@ -301,6 +351,29 @@ public class AddItemController {
         }
     }
 
+    private static boolean isCountUnit(String unit) {
+        Quantity.Unit u = Quantity.unitOf(unit);
+        return u == null || u.getDimension() == Quantity.Dimension.COUNT;
+    }
+
+    /** Weights and volumes keep their exact amount (1.5 lb); counts stay whole numbers. */
+    private static void applyQuantity(PantryItem item, double quantity, String unit) {
+        if (isCountUnit(unit)) {
+            item.setAmount(null);
+            item.setQuantityNumeric((int) quantity);
+            item.setQuantityLabel((int) quantity + " " + unit);
+            item.setUnit(unit);
+        } else {
+            item.setAmount(Quantity.of(quantity, unit));
+        }
+    }
+
+    /** @return The amount in its own unit without the unit, e.g. "1.5" */
+    private static String formatAmount(Quantity amount) {
+        String text = amount.toString();
+        return text.substring(0, text.indexOf(' '));
+    }
+
     private void showError(String message) {
         statusLabel.setText("✗ " + message);
         statusLabel.setTextFill(Color.RED);
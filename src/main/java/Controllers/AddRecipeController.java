@@ -1,10 +1,10 @@
 package Controllers;
 
-import Firebase.FirebaseConfiguration;
+import Firebase.AsyncFirebaseService;
+import Repository.Repositories;
 import com.example.demo1.UserSession;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.FieldValue;
-import com.google.cloud.firestore.Firestore;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.paint.Color;
@@ -32,46 +32,48 @@ public class AddRecipeController extends BaseController {
 
         if (name.isBlank()) { showInlineError("Recipe Name is required."); return; }
 
-        try {
-            Firestore db = FirebaseConfiguration.getDatabase();
-
-            // Unified fields
-            Map<String, Object> data = new HashMap<>();
-            data.put("title", name);
-            data.put("ingredients", splitCSV(available));
-            data.put("missingIngredients", splitCSV(missing));
-            data.put("steps", List.of(aiTip.isBlank() ? "No tip provided." : aiTip));
-            data.put("createdBy", "manual");
-            data.put("favorite", false);
-            data.put("createdAt", Timestamp.now());
-            data.put("updatedAt", FieldValue.serverTimestamp());
-
-            // Legacy fields so Discover (legacy) lists it too
-            data.put("name", name);
-            data.put("available", available);
-            data.put("missing", missing);
-            data.put("aiTip", aiTip);
-
-            // Use slug (stable id) so "Saved" tab lines up with legacy edits
-            String docId = name.toLowerCase(Locale.ROOT)
-                    .replaceAll("[^a-z0-9]+","-")
-                    .replaceAll("(^-|-$)","");
-
-            db.collection("users").document(uid).collection("recipes")
-                    .document(docId)          // stable id
-                    .set(data)                // upsert
-                    .get();
-
-            statusLabel.setTextFill(Color.GREEN);
-            statusLabel.setText("✓ Recipe saved successfully!");
-
-            // close
-            Stage stage = (Stage) recipeNameField.getScene().getWindow();
-            stage.close();
-
-        } catch (Exception e) {
-            showInlineError("Error saving recipe: " + e.getMessage());
-        }
+        // Unified fields
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", name);
+        data.put("ingredients", splitCSV(available));
+        data.put("missingIngredients", splitCSV(missing));
+        data.put("steps", List.of(aiTip.isBlank() ? "No tip provided." : aiTip));
+        data.put("createdBy", "manual");
+        data.put("favorite", false);
+        data.put("createdAt", Timestamp.now());
+        data.put("updatedAt", FieldValue.serverTimestamp());
+
+        // Legacy fields so Discover (legacy) lists it too
+        data.put("name", name);
+        data.put("available", available);
+        data.put("missing", missing);
+        data.put("aiTip", aiTip);
+
+        // Use slug (stable id) so "Saved" tab lines up with legacy edits
+        String docId = name.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+","-")
+                .replaceAll("(^-|-$)","");
+
+        statusLabel.setTextFill(Color.BLUE);
+        statusLabel.setText("Saving...");
+
+        // upsert with stable id, off the FX thread; completes back on it
+        AsyncFirebaseService.supply(() -> {
+                    Repositories.recipes().save(docId, data, uid);
+                    return null;
+                })
+                .whenComplete((v, error) -> {
+                    if (error != null) {
+                        showInlineError("Error saving recipe: " + error.getMessage());
+                        return;
+                    }
+                    statusLabel.setTextFill(Color.GREEN);
+                    statusLabel.setText("✓ Recipe saved successfully!");
+
+                    // close
+                    Stage stage = (Stage) recipeNameField.getScene().getWindow();
+                    stage.close();
+                });
     }
 
     @FXML
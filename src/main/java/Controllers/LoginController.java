@@ -1,6 +1,7 @@
 package Controllers;
 
 import Firebase.FireBaseKeys;
+import Http.HttpGateway;
 import Firebase.OAuthKeys;
 import com.example.demo1.UserSession;
 import com.google.cloud.firestore.Firestore;
@@ -16,15 +17,14 @@ import java.util.*;
 
 import javafx.scene.control.Button;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.io.OutputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
-import java.util.Scanner;
 
 public class  LoginController extends BaseController {
     @FXML
@@ -117,26 +117,18 @@ public class  LoginController extends BaseController {
 
     // Exchange auth code for ID token
     private void exchangeCodeForToken(String code, ActionEvent event) throws IOException {
-        URL url = new URL("https://oauth2.googleapis.com/token");
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-        conn.setDoOutput(true);
-
         String params = String.format(
                 "code=%s&client_id=%s&client_secret=%s&redirect_uri=http://localhost:8080&grant_type=authorization_code",
                 code, OAuthKeys.GOOGLE_CLIENT_ID, OAuthKeys.GOOGLE_CLIENT_SECRET
         );
 
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(params.getBytes());
+        HttpGateway.JsonResponse res = post("https://oauth2.googleapis.com/token",
+                "application/x-www-form-urlencoded", params);
+        if (!res.isOk()) {
+            throw new IOException("Token exchange failed: HTTP " + res.status() + " " + res.json());
         }
 
-        Scanner scanner = new Scanner(conn.getInputStream(), "UTF-8");
-        String jsonResponse = scanner.useDelimiter("\\A").next();
-        scanner.close();
-
-        com.google.gson.JsonObject json = com.google.gson.JsonParser.parseString(jsonResponse).getAsJsonObject();
+        com.google.gson.JsonObject json = res.json().getAsJsonObject();
         String idToken = json.get("id_token").getAsString();
 
         // Now authenticate with Firebase
@@ -146,12 +138,6 @@ public class  LoginController extends BaseController {
     private void firebaseAuthWithGoogle(String idToken, ActionEvent event) throws IOException {
         String firebaseUrl = "https://identitytoolkit.googleapis.com/v1/accounts:signInWithIdp?key=" + API_KEY;
 
-        URL url = new URL(firebaseUrl);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-        conn.setDoOutput(true);
-
         // Firebase signInWithIdp request body
         String jsonInput = String.format(
                 "{"
@@ -163,20 +149,11 @@ public class  LoginController extends BaseController {
                 idToken
         );
 
-        try (OutputStream os = conn.getOutputStream()) {
-            byte[] input = jsonInput.getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
-
-        int responseCode = conn.getResponseCode();
+        HttpGateway.JsonResponse res = post(firebaseUrl, "application/json; charset=UTF-8", jsonInput);
 
-        if (responseCode == HttpURLConnection.HTTP_OK) {
+        if (res.isOk()) {
             // Success: user authenticated
-            Scanner scanner = new Scanner(conn.getInputStream(), "UTF-8");
-            String jsonResponse = scanner.useDelimiter("\\A").next();
-            scanner.close();
-
-            JsonObject response = JsonParser.parseString(jsonResponse).getAsJsonObject();
+            JsonObject response = res.json().getAsJsonObject();
 
             String email = response.get("email").getAsString();
             String firebaseIdToken = response.get("idToken").getAsString();
@@ -215,14 +192,8 @@ public class  LoginController extends BaseController {
 
         } else {
             // Handle error
-            Scanner errorScanner = new Scanner(conn.getErrorStream(), "UTF-8");
-            String errorResponse = errorScanner.useDelimiter("\\A").next();
-            errorScanner.close();
-
-            System.out.println("Firebase Error: " + errorResponse);
+            System.out.println("Firebase Error: " + res.json());
         }
-
-        conn.disconnect();
     }
 
     private String waitForOAuthCode() throws IOException {
@@ -267,29 +238,19 @@ public class  LoginController extends BaseController {
 
     private String authenticateUser(String email, String password) {
         try {
-            URL url = new URL("https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=" + API_KEY);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-
             String jsonInputString = String.format(
                     "{\"email\":\"%s\",\"password\":\"%s\",\"returnSecureToken\":true}", email, password
             );
 
 
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = jsonInputString.getBytes("utf-8");
-                os.write(input, 0, input.length);
+            HttpGateway.JsonResponse res = post(
+                    "https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=" + API_KEY,
+                    "application/json", jsonInputString);
+            if (!res.isOk()) {
+                throw new IOException("Sign-in failed: HTTP " + res.status());
             }
 
-            Scanner scanner = new Scanner(conn.getInputStream(), "UTF-8");
-            String jsonResponse = scanner.useDelimiter("\\A").next();
-            scanner.close();
-
-
-            JsonObject response = JsonParser.parseString(jsonResponse).getAsJsonObject();
+            JsonObject response = res.json().getAsJsonObject();
             String idToken = response.get("idToken").getAsString();
 
             // Return the email as the user ID
@@ -299,4 +260,20 @@ public class  LoginController extends BaseController {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /** POST through the shared gateway and parse the JSON reply. */
+    private static HttpGateway.JsonResponse post(String url, String contentType, String body) throws IOException {
+        HttpRequest request = HttpGateway.request(url)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        try {
+            return HttpGateway.sendForJson(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.uri().getHost(), e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+}
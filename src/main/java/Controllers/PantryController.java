@@ -1,15 +1,20 @@
 package Controllers;
 
 import javafx.fxml.Initializable;
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
 import Pantry.PantryItem;
-import Firebase.FirebaseConfiguration;
-import Firebase.FirebaseService;
+import Firebase.AsyncFirebaseService;
+import Firebase.PantryCache;
+import Repository.Repositories;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import com.example.demo1.UserSession;
 
 import java.net.URL;
 import java.util.ResourceBundle;
-import java.util.concurrent.ExecutionException;
 
 import javafx.event.Event;
 import javafx.fxml.FXML;
@@ -31,16 +36,19 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
-import com.google.cloud.firestore.Firestore;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.QuerySnapshot;
 
 public class PantryController extends BaseController implements Initializable {
 
-    private FirebaseService firebaseService;
     private ObservableList<PantryItem> allItems;
+    // Held strongly here, registered weakly on the session-wide cache list
+    private final ListChangeListener<PantryItem> pantryListener = change -> {
+        if (segExpiring.isSelected()) scheduleExpiringRefresh();
+        applyFilters();
+    };
     private ToggleGroup filterGroup;
 
     // ===== Header UI =====
@@ -59,6 +67,22 @@ public class PantryController extends BaseController implements Initializable {
     @FXML private ToggleButton segExpiring;
     @FXML private ToggleButton segLowStock;
     @FXML private FlowPane cardFlow;
+    @FXML private ScrollPane cardScroll;
+
+    // Progressive rendering: build cards one page at a time as the user scrolls
+    private static final int CARD_PAGE_SIZE = 40;
+    private int visibleCardLimit = CARD_PAGE_SIZE;
+    private List<PantryItem> shownItems = List.of();
+    private Button loadMoreBtn;
+
+    // Expiring filter: fetched with indexed expiry queries instead of scanning the whole pantry
+    private static final int EXPIRING_DAYS = 7;
+    private static final int EXPIRING_LIMIT = 200;
+    private List<PantryItem> expiringItems;   // null until the first fetch lands
+    private long expiringRequest;
+    // A burst of snapshots (bulk add, sync) re-runs the expiry queries once, after it settles
+    private static final Duration EXPIRING_REFRESH_DELAY = Duration.millis(500);
+    private PauseTransition expiringRefresh;
 
     private final DateTimeFormatter DATE_FMT =
             DateTimeFormatter.ofPattern("MMM d, uuuu", Locale.US);
@@ -86,6 +110,7 @@ public class PantryController extends BaseController implements Initializable {
 
     private void renderCards(ObservableList<PantryItem> items) {
         cardFlow.getChildren().clear();
+        shownItems = items;
 
         if (items.isEmpty()) {
             Label emptyLabel = new Label("No items in your pantry. Click '+ Add Item' to get started!");
@@ -94,10 +119,53 @@ public class PantryController extends BaseController implements Initializable {
             return;
         }
 
-        for (PantryItem item : items) {
-            VBox card = createItemCard(item);
+        appendCards(0, Math.min(visibleCardLimit, items.size()));
+    }
+
+    /**
+     * Add the cards for shownItems[from, to) and a "Load more" button if anything is left.
+     */
+    private void appendCards(int from, int to) {
+        cardFlow.getChildren().remove(loadMoreBtn);
+
+        for (int i = from; i < to; i++) {
+            VBox card = createItemCard(shownItems.get(i));
             cardFlow.getChildren().add(card);
         }
+
+        if (to < shownItems.size()) {
+            if (loadMoreBtn == null) {
+                loadMoreBtn = new Button("Load more");
+                loadMoreBtn.getStyleClass().add("secondary");
+                loadMoreBtn.setOnAction(e -> loadMoreCards());
+            }
+            cardFlow.getChildren().add(loadMoreBtn);
+        }
+    }
+
+    private void loadMoreCards() {
+        int rendered = Math.min(visibleCardLimit, shownItems.size());
+        if (rendered >= shownItems.size()) return;
+
+        visibleCardLimit += CARD_PAGE_SIZE;
+        appendCards(rendered, Math.min(visibleCardLimit, shownItems.size()));
+    }
+
+    // Infinite scroll: render the next page when the user nears the bottom
+    private void setupInfiniteScroll() {
+        if (cardScroll == null) return;
+        cardScroll.vvalueProperty().addListener((obs, oldV, newV) -> {
+            if (newV.doubleValue() >= cardScroll.getVmax() * 0.9) {
+                loadMoreCards();
+            }
+        });
+    }
+
+    // A new search or filter starts again from the first page of cards
+    private void resetAndApplyFilters() {
+        visibleCardLimit = CARD_PAGE_SIZE;
+        applyFilters();
+        if (cardScroll != null) cardScroll.setVvalue(0);
     }
 
     private VBox createItemCard(PantryItem item) {
@@ -154,7 +222,7 @@ public class PantryController extends BaseController implements Initializable {
     }
 
     private void setupSearchListener() {
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> resetAndApplyFilters());
     }
 
     private void loadPantryItems() {
@@ -163,11 +231,18 @@ public class PantryController extends BaseController implements Initializable {
             return;
         }
         try {
-            allItems = firebaseService.getPantryItems(currentUserId);
-            renderCards(allItems);
-            System.out.println("Loaded " + allItems.size() + " items from Firebase");
-        } catch (ExecutionException | InterruptedException e) {
-            System.err.println("Error loading items from Firebase: " + e.getMessage());
+            // Subscribes once per session; later calls just re-attach to the live list
+            PantryCache cache = PantryCache.getInstance();
+            cache.subscribe(currentUserId);
+
+            if (allItems != cache.getItems()) {
+                allItems = cache.getItems();
+                allItems.addListener(new WeakListChangeListener<>(pantryListener));
+            }
+            applyFilters();
+            System.out.println("Showing " + allItems.size() + " cached pantry items");
+        } catch (Exception e) {
+            System.err.println("Error subscribing to pantry items: " + e.getMessage());
             e.printStackTrace();
             showErrorAlert("Database Error", "Failed to load pantry items: " + e.getMessage());
         }
@@ -182,15 +257,9 @@ public class PantryController extends BaseController implements Initializable {
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            firebaseService = new FirebaseService();
-        } catch (Exception e) {
-            System.err.println("Failed to initialize FirebaseService: " + e.getMessage());
-            e.printStackTrace();
-        }
-
         setupFilters();
         setupSearchListener();
+        setupInfiniteScroll();
 
         if (currentUserId == null || currentUserId.isBlank()) {
             currentUserId = UserSession.getCurrentUserId();
@@ -209,25 +278,23 @@ public class PantryController extends BaseController implements Initializable {
     private void updateShoppingBadge() {
         if (shoppingBtn == null) return;
 
-        try {
-            String uid = (currentUserId != null && !currentUserId.isBlank())
-                    ? currentUserId
-                    : UserSession.getCurrentUserId();
+        String uid = (currentUserId != null && !currentUserId.isBlank())
+                ? currentUserId
+                : UserSession.getCurrentUserId();
 
-            if (uid == null || uid.isBlank()) {
+        if (uid == null || uid.isBlank()) {
+            shoppingBtn.setGraphic(null);
+            return;
+        }
+
+        AsyncFirebaseService.supply(() -> Repositories.shoppingList().count(uid)).whenComplete((count, error) -> {
+            if (error != null) {
+                System.err.println("Error updating shopping badge: " + error.getMessage());
+                error.printStackTrace();
                 shoppingBtn.setGraphic(null);
                 return;
             }
 
-            Firestore db = FirebaseConfiguration.getDatabase();
-            ApiFuture<QuerySnapshot> future = db.collection("users")
-                    .document(uid)
-                    .collection("shoppingList")
-                    .get();
-
-            QuerySnapshot snapshot = future.get();
-            int count = snapshot.size();
-
             if (count > 0) {
                 StackPane badgeContainer = new StackPane();
                 badgeContainer.getStyleClass().add("badge-container");
@@ -242,19 +309,54 @@ public class PantryController extends BaseController implements Initializable {
             } else {
                 shoppingBtn.setGraphic(null);
             }
+        });
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error updating shopping badge: " + e.getMessage());
-            e.printStackTrace();
-            shoppingBtn.setGraphic(null);
+    /** Re-fetch the expiring items once pantry changes stop arriving for EXPIRING_REFRESH_DELAY. */
+    private void scheduleExpiringRefresh() {
+        if (expiringRefresh == null) {
+            expiringRefresh = new PauseTransition(EXPIRING_REFRESH_DELAY);
+            expiringRefresh.setOnFinished(e -> {
+                if (segExpiring.isSelected()) loadExpiringItems();
+            });
         }
+        expiringRefresh.playFromStart();
+    }
+
+    /**
+     * Fetch expired items plus those expiring in the next EXPIRING_DAYS days.
+     * Only the latest request's result is kept.
+     */
+    private void loadExpiringItems() {
+        String uid = currentUserId;
+        if (uid == null || uid.isBlank()) return;
+
+        long request = ++expiringRequest;
+        LocalDate today = LocalDate.now();
+        AsyncFirebaseService.supply(() -> {
+            List<PantryItem> items = new ArrayList<>(Repositories.pantry().findExpired(uid));
+            items.addAll(Repositories.pantry().findExpiringBetween(uid, today, today.plusDays(EXPIRING_DAYS), EXPIRING_LIMIT));
+            return items;
+        }).whenComplete((items, error) -> {
+            if (request != expiringRequest) return;
+            if (error != null) {
+                System.err.println("Error loading expiring items: " + error.getMessage());
+                return;
+            }
+            expiringItems = items;
+            if (segExpiring.isSelected()) applyFilters();
+        });
     }
 
     private void applyFilters() {
         if (allItems == null) return;
 
         String searchText = searchField.getText().toLowerCase();
-        ObservableList<PantryItem> filteredItems = allItems.filtered(item -> {
+        // Until the expiry queries return, fall back to filtering what is already cached
+        ObservableList<PantryItem> source = segExpiring.isSelected() && expiringItems != null
+                ? FXCollections.observableArrayList(expiringItems)
+                : allItems;
+        ObservableList<PantryItem> filteredItems = source.filtered(item -> {
             boolean matchesSearch = searchText.isEmpty() ||
                     item.getName().toLowerCase().contains(searchText) ||
                     (item.getCategory() != null && item.getCategory().toLowerCase().contains(searchText));
@@ -285,7 +387,7 @@ public class PantryController extends BaseController implements Initializable {
             }
 
             FXMLLoader loader = new FXMLLoader(fxmlUrl);
-            Scene addItemScene = new Scene(loader.load(), 400, 650);
+            Scene addItemScene = new Scene(loader.load(), 400, 700);
 
             AddItemController controller = loader.getController();
             String uid = (currentUserId != null && !currentUserId.isBlank())
@@ -302,7 +404,6 @@ public class PantryController extends BaseController implements Initializable {
             addItemStage.initModality(Modality.APPLICATION_MODAL);
             addItemStage.setOnHidden(e -> {
                 themeManager.unregisterScene(addItemScene);
-                loadPantryItems();
                 updateShoppingBadge();
             });
             addItemStage.showAndWait();
@@ -359,9 +460,12 @@ public class PantryController extends BaseController implements Initializable {
         segExpiring.setToggleGroup(filterGroup);
         segLowStock.setToggleGroup(filterGroup);
 
-        segAll.setOnAction(e -> applyFilters());
-        segExpiring.setOnAction(e -> applyFilters());
-        segLowStock.setOnAction(e -> applyFilters());
+        segAll.setOnAction(e -> resetAndApplyFilters());
+        segExpiring.setOnAction(e -> {
+            loadExpiringItems();
+            resetAndApplyFilters();
+        });
+        segLowStock.setOnAction(e -> resetAndApplyFilters());
     }
 
     private ItemStatus calculateStatus(LocalDate expirationDate, int quantity) {
@@ -431,10 +535,7 @@ public class PantryController extends BaseController implements Initializable {
             themeManager.registerScene(editItemScene);
 
             editItemStage.initModality(Modality.APPLICATION_MODAL);
-            editItemStage.setOnHidden(e -> {
-                themeManager.unregisterScene(editItemScene);
-                loadPantryItems();
-            });
+            editItemStage.setOnHidden(e -> themeManager.unregisterScene(editItemScene));
             editItemStage.showAndWait();
 
         } catch (IOException e) {
@@ -451,27 +552,28 @@ public class PantryController extends BaseController implements Initializable {
 
         confirmDialog.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    String uid = (currentUserId != null && !currentUserId.isBlank())
-                            ? currentUserId
-                            : com.example.demo1.UserSession.getCurrentUserId();
-                    if (uid == null || uid.isBlank()) {
-                        showErrorAlert("Delete Error", "No user is signed in.");
-                        return;
-                    }
-                    if (item.getId() == null || item.getId().isBlank()) {
-                        showErrorAlert("Delete Error", "Item has no id (cannot delete).");
-                        return;
-                    }
-
-                    firebaseService.deletePantryItem(item.getId(), uid);
-
-                    allItems.remove(item);
-                    renderCards(allItems);
-                } catch (ExecutionException | InterruptedException e) {
-                    e.printStackTrace();
-                    showErrorAlert("Delete Error", "Failed to delete item: " + e.getMessage());
+                String uid = (currentUserId != null && !currentUserId.isBlank())
+                        ? currentUserId
+                        : com.example.demo1.UserSession.getCurrentUserId();
+                if (uid == null || uid.isBlank()) {
+                    showErrorAlert("Delete Error", "No user is signed in.");
+                    return;
                 }
+                if (item.getId() == null || item.getId().isBlank()) {
+                    showErrorAlert("Delete Error", "Item has no id (cannot delete).");
+                    return;
+                }
+
+                // The pantry watch removes the card once the delete is committed
+                AsyncFirebaseService.supply(() -> {
+                    Repositories.pantry().delete(item.getId(), uid);
+                    return null;
+                }).whenComplete((v, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                        showErrorAlert("Delete Error", "Failed to delete item: " + error.getMessage());
+                    }
+                });
             }
         });
     }
@@ -481,6 +583,7 @@ public class PantryController extends BaseController implements Initializable {
         try {
             // Optional: clear session data if you want
             // UserSession.clearSession();
+            PantryCache.getInstance().unsubscribe();
             switchScene(event, "mainScreen");
         } catch (IOException ex) {
             showErrorAlert("Navigation Error", "Failed to open main screen: " + ex.getMessage());
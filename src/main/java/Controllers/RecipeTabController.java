@@ -2,12 +2,12 @@ package Controllers;
 
 import AI.AiRecipeService;
 import AI.RecipeDTO;
-import Firebase.FirebaseConfiguration;
-import Firebase.FirebaseService;
+import Firebase.AsyncFirebaseService;
 import Pantry.PantryItem;
 import Recipe.RecipeAPIService;
+import Repository.Repositories;
 import com.example.demo1.UserSession;
-import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.FieldValue;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -27,9 +27,11 @@ import javafx.stage.Stage;
 import java.awt.Desktop;
 import java.io.IOException;
 import java.net.URI;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 public class RecipeTabController extends BaseController {
 
@@ -55,7 +57,6 @@ public class RecipeTabController extends BaseController {
     @FXML private TextField searchField;
 
     // ===== Services =====
-    private FirebaseService firebase;
     private AiRecipeService ai;
 
     // ===== State =====
@@ -81,14 +82,12 @@ public class RecipeTabController extends BaseController {
     // ===== Lifecycle =====
     @FXML
     public void initialize() {
-        FirebaseConfiguration.initialize();
         currentUserId = UserSession.getCurrentUserId();
         if (currentUserId == null || currentUserId.isBlank()) {
             showError("User session not found");
             return;
         }
 
-        firebase = new FirebaseService();
         ai = new AiRecipeService();
 
         installWindowCloseCleanup();
@@ -136,20 +135,21 @@ public class RecipeTabController extends BaseController {
     // ======== DISCOVER (legacy list) ========
 
     private void loadLegacyFromFirestore() {
-        List<String> pantryItems = getPantryItemNames();
-        Firestore db = FirebaseConfiguration.getDatabase();
-        CollectionReference recipesRef = db.collection("users").document(currentUserId).collection("recipes");
+        withPantryItemNames(this::loadLegacyRecipes);
+    }
 
+    private void loadLegacyRecipes(List<String> pantryItems) {
+        String uid = currentUserId;
         CompletableFuture.supplyAsync(() -> {
             try {
-                List<QueryDocumentSnapshot> docs = recipesRef.get().get().getDocuments();
                 List<LegacyRecipe> out = new ArrayList<>();
-                for (QueryDocumentSnapshot doc : docs) {
+                for (Map.Entry<String, Map<String, Object>> doc : Repositories.recipes().findAll(uid).entrySet()) {
+                    Map<String, Object> d = doc.getValue();
                     // only legacy docs (or docs that still have legacy fields)
-                    String name = doc.getString("name");
-                    String available = doc.getString("available");
-                    String missing = doc.getString("missing");
-                    String aiTip = doc.getString("aiTip");
+                    String name = string(d, "name");
+                    String available = string(d, "available");
+                    String missing = string(d, "missing");
+                    String aiTip = string(d, "aiTip");
                     if (name == null && available == null && missing == null) continue;
 
                     String combined = ((available != null ? available : "") + "," + (missing != null ? missing : ""))
@@ -179,9 +179,9 @@ public class RecipeTabController extends BaseController {
                             String.join(", ", actualMissing),
                             aiTip
                     );
-                    r.id = doc.getId();
-                    r.favorite = Boolean.TRUE.equals(doc.getBoolean("favorite"));
-                    r.aiRecommended = Boolean.TRUE.equals(doc.getBoolean("aiRecommended"));
+                    r.id = doc.getKey();
+                    r.favorite = Boolean.TRUE.equals(d.get("favorite"));
+                    r.aiRecommended = Boolean.TRUE.equals(d.get("aiRecommended"));
                     out.add(r);
                 }
                 return out;
@@ -272,17 +272,12 @@ public class RecipeTabController extends BaseController {
         Button addToListBtn = new Button("➕ Shopping List");
         addToListBtn.getStyleClass().add("secondary");
         addToListBtn.setOnAction(e -> {
-            try {
-                List<String> missingList = recipe.missing == null ? List.of() :
-                        Arrays.asList(recipe.missing.split(",")).stream()
-                                .map(String::trim)
-                                .filter(s -> !s.isEmpty())
-                                .toList();
-                addMissingToShoppingList(missingList);
-                showSuccess("Added " + missingList.size() + " items to shopping list!");
-            } catch (Exception ex) {
-                showError("Failed to add to shopping list: " + ex.getMessage());
-            }
+            List<String> missingList = recipe.missing == null ? List.of() :
+                    Arrays.asList(recipe.missing.split(",")).stream()
+                            .map(String::trim)
+                            .filter(s -> !s.isEmpty())
+                            .toList();
+            addMissingToShoppingList(missingList);
         });
 
         HBox buttons = new HBox(10, editBtn, deleteBtn, favButton, addToListBtn);
@@ -311,9 +306,7 @@ public class RecipeTabController extends BaseController {
     private void handleDeleteRecipe(LegacyRecipe recipe) {
         CompletableFuture.runAsync(() -> {
             try {
-                Firestore db = FirebaseConfiguration.getDatabase();
-                db.collection("users").document(currentUserId)
-                        .collection("recipes").document(recipe.id).delete().get();
+                Repositories.recipes().delete(recipe.id, currentUserId);
             } catch (Exception e) { throw new RuntimeException(e); }
         }, io).whenComplete((v, err) -> Platform.runLater(() -> {
             if (err != null) showError("Failed to delete recipe: " + err.getMessage());
@@ -355,28 +348,27 @@ public class RecipeTabController extends BaseController {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(updated -> {
-            int newMatch = computeMatchPercentage(updated.available, updated.missing, getPantryItemNames());
+        dialog.showAndWait().ifPresent(updated -> withPantryItemNames(pantryItems -> {
+            int newMatch = computeMatchPercentage(updated.available, updated.missing, pantryItems);
             updated.match = newMatch + "% match";
             updateLegacyRecipeInFirebase(updated);
             renderLegacyFiltered();
             loadSavedRecipes(false); // Saved reflects updatedAt and favorite flags
-        });
+        }));
     }
 
     private void updateLegacyRecipeInFirebase(LegacyRecipe recipe) {
         CompletableFuture.runAsync(() -> {
             try {
-                Firestore db = FirebaseConfiguration.getDatabase();
-                db.collection("users").document(currentUserId).collection("recipes").document(recipe.id)
-                        .update(
-                                "name", recipe.name,
-                                "available", recipe.available,
-                                "missing", recipe.missing,
-                                "aiTip", recipe.aiTip,
-                                "favorite", recipe.favorite,
-                                "updatedAt", FieldValue.serverTimestamp()
-                        ).get();
+                // Through the repository so the favorites counter follows the flag
+                Map<String, Object> data = new HashMap<>();
+                data.put("name", recipe.name);
+                data.put("available", recipe.available);
+                data.put("missing", recipe.missing);
+                data.put("aiTip", recipe.aiTip);
+                data.put("favorite", recipe.favorite);
+                data.put("updatedAt", FieldValue.serverTimestamp());
+                Repositories.recipes().merge(recipe.id, data, currentUserId);
             } catch (Exception e) { throw new RuntimeException(e); }
         }, io).whenComplete((v, err) ->
                 Platform.runLater(() -> {
@@ -448,19 +440,21 @@ public class RecipeTabController extends BaseController {
         return (int)Math.round((double)matches / allIngredients.size() * 100);
     }
 
-    private List<String> getPantryItemNames() {
-        List<String> pantryNames = new ArrayList<>();
-        try {
-            Firestore db = FirebaseConfiguration.getDatabase();
-            CollectionReference pantryRef = db.collection("users").document(currentUserId).collection("pantryItems");
-            for (QueryDocumentSnapshot doc : pantryRef.get().get().getDocuments()) {
-                String name = doc.getString("name");
-                if (name != null && !name.isBlank()) pantryNames.add(name.trim().toLowerCase(Locale.ROOT));
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading pantry items: " + e.getMessage());
-        }
-        return pantryNames;
+    /**
+     * Load the pantry item names off the FX thread and hand them to the callback on it
+     * (an empty list if they could not be loaded).
+     */
+    private void withPantryItemNames(Consumer<List<String>> callback) {
+        String uid = currentUserId;
+        AsyncFirebaseService.supply(() -> Repositories.pantry().findNames(uid))
+                .whenComplete((names, err) -> {
+                    if (err != null) {
+                        System.err.println("Error loading pantry items: " + err.getMessage());
+                        callback.accept(List.of());
+                    } else {
+                        callback.accept(names);
+                    }
+                });
     }
 
     private HBox createIngredientRow(String icon, String iconStyle, String label, String items) {
@@ -476,24 +470,25 @@ public class RecipeTabController extends BaseController {
         if (savedVBox == null) return;
         savedVBox.getChildren().setAll(new Label("Loading saved recipes…"));
 
+        String uid = currentUserId;
         CompletableFuture.supplyAsync(() -> {
             try {
-                Query base = userRecipesRef();
-                if (favoritesOnly) base = base.whereEqualTo("favorite", true);
-
-                // we can sort in-memory for simplicity
-                List<QueryDocumentSnapshot> docs = new ArrayList<>(base.get().get().getDocuments());
+                // Filter and sort in memory, so every storage backend behaves the same
+                List<Map<String, Object>> docs = new ArrayList<>();
+                for (Map<String, Object> d : Repositories.recipes().findAll(uid).values()) {
+                    if (!favoritesOnly || Boolean.TRUE.equals(d.get("favorite"))) docs.add(d);
+                }
 
                 if (favoritesOnly && favoritesSortMode == FavSort.MATCH) {
                     docs.sort((a, b) -> {
-                        int ib = safeMatchPercent(Optional.ofNullable(b.getString("match")).orElse("0"));
-                        int ia = safeMatchPercent(Optional.ofNullable(a.getString("match")).orElse("0"));
+                        int ib = safeMatchPercent(Optional.ofNullable(string(b, "match")).orElse("0"));
+                        int ia = safeMatchPercent(Optional.ofNullable(string(a, "match")).orElse("0"));
                         return Integer.compare(ib, ia);
                     });
                 } else {
                     docs.sort((a, b) -> {
-                        var ta = a.getTimestamp("updatedAt");
-                        var tb = b.getTimestamp("updatedAt");
+                        Instant ta = updatedAt(a);
+                        Instant tb = updatedAt(b);
                         if (ta == null && tb == null) return 0;
                         if (ta == null) return 1;
                         if (tb == null) return -1;
@@ -502,7 +497,7 @@ public class RecipeTabController extends BaseController {
                 }
 
                 List<UnifiedRecipe> list = new ArrayList<>();
-                for (QueryDocumentSnapshot d : docs) list.add(fromDoc(d));
+                for (Map<String, Object> d : docs) list.add(fromDoc(d));
                 return list;
 
             } catch (Exception e) {
@@ -578,14 +573,7 @@ public class RecipeTabController extends BaseController {
 
         Button addToListBtn = new Button("➕ Shopping List");
         addToListBtn.getStyleClass().add("secondary");
-        addToListBtn.setOnAction(e -> {
-            try {
-                addMissingToShoppingList(r.missingIngredients);
-                showSuccess("Added " + r.missingIngredients.size() + " items to shopping list!");
-            } catch (Exception ex) {
-                showError("Failed to add to shopping list: " + ex.getMessage());
-            }
-        });
+        addToListBtn.setOnAction(e -> addMissingToShoppingList(r.missingIngredients));
 
         HBox header = new HBox(12, name, star, del, addToListBtn);
         header.setAlignment(Pos.CENTER_LEFT);
@@ -623,7 +611,7 @@ public class RecipeTabController extends BaseController {
 
     private void deleteSaved(UnifiedRecipe r) {
         try {
-            userRecipesRef().document(slug(r.title)).delete().get();
+            Repositories.recipes().delete(slug(r.title), currentUserId);
         } catch (Exception e) { throw new RuntimeException(e); }
     }
 
@@ -634,27 +622,42 @@ public class RecipeTabController extends BaseController {
         try { return Integer.parseInt(digits); } catch (NumberFormatException e) { return 0; }
     }
 
-    private UnifiedRecipe fromDoc(DocumentSnapshot d) {
+    private static String string(Map<String, Object> d, String field) {
+        return d.get(field) instanceof String s ? s : null;
+    }
+
+    /** updatedAt as Firestore stores it (Timestamp) or the local store does (ISO instant). */
+    private static Instant updatedAt(Map<String, Object> d) {
+        Object v = d.get("updatedAt");
+        if (v instanceof com.google.cloud.Timestamp ts) return ts.toDate().toInstant();
+        if (v instanceof Date date) return date.toInstant();
+        if (v instanceof String s) {
+            try { return Instant.parse(s); } catch (Exception ignore) { }
+        }
+        return null;
+    }
+
+    private UnifiedRecipe fromDoc(Map<String, Object> d) {
         UnifiedRecipe r = new UnifiedRecipe();
-        r.title = Optional.ofNullable(d.getString("title"))
-                .orElse(Optional.ofNullable(d.getString("name")).orElse("Untitled Recipe"));
+        r.title = Optional.ofNullable(string(d, "title"))
+                .orElse(Optional.ofNullable(string(d, "name")).orElse("Untitled Recipe"));
         r.ingredients = castList(d.get("ingredients"));
         if (r.ingredients.isEmpty()) {
-            String available = d.getString("available");
+            String available = string(d, "available");
             if (available != null) r.ingredients = splitCSV(available);
         }
         r.missingIngredients = castList(d.get("missingIngredients"));
         if (r.missingIngredients.isEmpty()) {
-            String missing = d.getString("missing");
+            String missing = string(d, "missing");
             if (missing != null) r.missingIngredients = splitCSV(missing).stream()
                     .filter(x -> !"None".equalsIgnoreCase(x)).toList();
         }
         r.steps = castList(d.get("steps"));
-        r.estimatedTime = Optional.ofNullable((String) d.get("estimatedTime")).orElse("");
+        r.estimatedTime = Optional.ofNullable(string(d, "estimatedTime")).orElse("");
         Object c = d.get("calories");
         r.calories = (c instanceof Number) ? ((Number)c).intValue() : null;
-        r.match = Optional.ofNullable(d.getString("match")).orElse("—");
-        r.favorite = Boolean.TRUE.equals(d.getBoolean("favorite"));
+        r.match = Optional.ofNullable(string(d, "match")).orElse("—");
+        r.favorite = Boolean.TRUE.equals(d.get("favorite"));
         r.source = Source.STATIC;
         return r;
     }
@@ -677,7 +680,7 @@ public class RecipeTabController extends BaseController {
         data.put("favorite", newVal);
         data.put("updatedAt", FieldValue.serverTimestamp());
         try {
-            userRecipesRef().document(slug(r.title)).set(data, SetOptions.merge()).get();
+            Repositories.recipes().merge(slug(r.title), data, currentUserId);
         } catch (Exception e) { throw new RuntimeException(e); }
     }
 
@@ -695,11 +698,6 @@ public class RecipeTabController extends BaseController {
         return m;
     }
 
-    private CollectionReference userRecipesRef() {
-        Firestore db = FirebaseConfiguration.getDatabase();
-        return db.collection("users").document(currentUserId).collection("recipes");
-    }
-
     private String slug(String title) {
         return title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
     }
@@ -707,7 +705,7 @@ public class RecipeTabController extends BaseController {
     private void updateFavoritesCount() {
         if (favoriteBtn == null) return;
         CompletableFuture.supplyAsync(() -> {
-            try { return userRecipesRef().whereEqualTo("favorite", true).get().get().size(); }
+            try { return Repositories.recipes().countFavorites(currentUserId); }
             catch (Exception e) { return -1; }
         }, io).whenComplete((n, err) -> Platform.runLater(() -> {
             if (err != null || n < 0) return;
@@ -726,7 +724,7 @@ public class RecipeTabController extends BaseController {
 
         CompletableFuture.supplyAsync(() -> {
             try {
-                var items = firebase.getPantryItems(currentUserId);
+                var items = Repositories.pantry().findAll(currentUserId);
                 var filtered = filterPantryItems(items);
                 return ai.generateRecipes(filtered, prompt, 3);
             } catch (Exception e) { throw new RuntimeException(e); }
@@ -769,7 +767,7 @@ public class RecipeTabController extends BaseController {
         Map<String, Object> data = mapForFirestore(r);
         data.put("favorite", r.favorite);
         try {
-            userRecipesRef().document(slug(r.title)).set(data, SetOptions.merge()).get();
+            Repositories.recipes().merge(slug(r.title), data, currentUserId);
         } catch (Exception e) { /* ignore in loop; surfaced later */ }
     }
 
@@ -811,51 +809,51 @@ public class RecipeTabController extends BaseController {
     }
 
     /**
-     * Add missing ingredients from a recipe to the user's shopping list in Firestore.
-     * Each ingredient is added as a separate document with quantity 1 and pending status.
-     * Uses batch writing for efficiency.
+     * Add missing ingredients from a recipe to the user's shopping list, off the FX thread.
+     * Each ingredient is saved under its slug with quantity 1, so one already on the list
+     * is left alone; the repository keeps the shopping badge counter in step.
+     * Reports the outcome in a dialog.
      *
      * @param missing List of missing ingredient names
-     * @throws IllegalStateException if no user is logged in
-     * @throws RuntimeException if Firestore write fails
      */
     private void addMissingToShoppingList(List<String> missing) {
         if (currentUserId == null || currentUserId.isBlank()) {
-            throw new IllegalStateException("No user logged in");
+            showError("Failed to add to shopping list: No user logged in");
+            return;
         }
         if (missing == null || missing.isEmpty()) {
+            showSuccess("Added 0 items to shopping list!");
             return;
         }
 
-        Firestore db = FirebaseConfiguration.getDatabase();
-        CollectionReference listRef = db.collection("users")
-                .document(currentUserId)
-                .collection("shoppingList");
-        WriteBatch batch = db.batch();
-
-        for (String raw : missing) {
-            if (raw == null) continue;
-            String name = raw.trim();
-            if (name.isEmpty()) continue;
-
-            // Use slug as document ID for consistency
-            String id = slug(name);
+        String uid = currentUserId;
+        AsyncFirebaseService.supply(() -> {
+            Set<String> onList = new HashSet<>();
+            for (ShoppingList.PantryItem item : Repositories.shoppingList().findAll(uid)) {
+                if (item.getShoppingDocId() != null) onList.add(item.getShoppingDocId());
+            }
 
-            Map<String, Object> data = new HashMap<>();
-            data.put("name", name);
-            data.put("quantity", 1);
-            data.put("status", "pending");
-            data.put("updatedAt", FieldValue.serverTimestamp());
+            // Entries already on the list keep their quantity; the rest go in one batch
+            List<ShoppingList.PantryItem> toAdd = new ArrayList<>();
+            for (String raw : missing) {
+                if (raw == null) continue;
+                String name = raw.trim();
+                if (name.isEmpty()) continue;
 
-            // Merge to avoid overwriting existing items
-            batch.set(listRef.document(id), data, SetOptions.merge());
-        }
+                // Use slug as document ID for consistency
+                String id = slug(name);
+                if (id.isEmpty() || !onList.add(id)) continue;
 
-        try {
-            batch.commit().get();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to add items to shopping list", e);
-        }
+                ShoppingList.PantryItem item = new ShoppingList.PantryItem(name, 1, "count", "Pantry", null, false);
+                item.setShoppingDocId(id);
+                toAdd.add(item);
+            }
+            if (!toAdd.isEmpty()) Repositories.shoppingList().addAll(toAdd, uid);
+            return toAdd.size();
+        }).whenComplete((added, err) -> {
+            if (err != null) showError("Failed to add to shopping list: " + err.getMessage());
+            else showSuccess("Added " + added + " items to shopping list!");
+        });
     }
 
     private void showError(String msg){ Alert a=new Alert(Alert.AlertType.ERROR, msg, ButtonType.OK); a.setHeaderText(null); a.showAndWait(); }
@@ -0,0 +1,203 @@
+package Controllers;
+
+import Firebase.AsyncFirebaseService;
+import Pantry.CameraBarcodeScanner;
+import Pantry.OpenFoodFactsService;
+import Pantry.PantryItem;
+import Pantry.ScanSession;
+import Repository.Repositories;
+import com.example.demo1.UserSession;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.util.converter.IntegerStringConverter;
+
+import java.util.List;
+
+/**
+ * Scan many items in a row and add them to the pantry with one bulk write.
+ * Lookups run in the background while scanning continues (see {@link ScanSession}).
+ */
+public class ScanSessionController {
+
+    @FXML private TextField barcodeField;
+    @FXML private TableView<ScanSession.Entry> entriesTable;
+    @FXML private TableColumn<ScanSession.Entry, String> nameColumn;
+    @FXML private TableColumn<ScanSession.Entry, Integer> countColumn;
+    @FXML private TableColumn<ScanSession.Entry, String> categoryColumn;
+    @FXML private TableColumn<ScanSession.Entry, String> statusColumn;
+    @FXML private Button commitButton;
+    @FXML private Label statusLabel;
+
+    private ScanSession session;
+    private CameraBarcodeScanner cameraScanner;
+    private String currentUserId;
+    private Runnable onCommitted;
+    private boolean saving;
+
+    @FXML
+    public void initialize() {
+        session = new ScanSession(new OpenFoodFactsService());
+        entriesTable.setItems(session.getEntries());
+
+        // Unknown products show their barcode until the user types a name
+        nameColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(
+                c.getValue().getName() != null ? c.getValue().getName() : c.getValue().getBarcode()));
+        nameColumn.setCellFactory(TextFieldTableCell.forTableColumn());
+        nameColumn.setOnEditCommit(e -> {
+            e.getRowValue().setName(e.getNewValue());
+            session.changed();
+        });
+
+        countColumn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getCount()));
+        countColumn.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+        countColumn.setOnEditCommit(e -> {
+            if (e.getNewValue() != null) e.getRowValue().setCount(e.getNewValue());
+            session.changed();
+        });
+
+        categoryColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(
+                c.getValue().getProduct() != null ? c.getValue().getProduct().getCategory() : ""));
+        statusColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(describe(c.getValue())));
+
+        session.addListener(this::refresh);
+        refresh();
+
+        if (currentUserId == null || currentUserId.isBlank()) {
+            currentUserId = UserSession.getCurrentUserId();
+        }
+    }
+
+    public void setCurrentUserId(String userId) {
+        this.currentUserId = userId;
+    }
+
+    /** Runs after the items were saved and the window closed. */
+    public void setOnCommitted(Runnable onCommitted) {
+        this.onCommitted = onCommitted;
+    }
+
+    private static String describe(ScanSession.Entry entry) {
+        switch (entry.getStatus()) {
+            case LOOKING_UP:
+                return "🔍 Looking up...";
+            case FOUND:
+                return "✓ " + (entry.getProduct().getSource() != null ? entry.getProduct().getSource() : "Found");
+            case NOT_FOUND:
+                return entry.getName() != null ? "✎ Entered manually" : "? Not found - name it";
+            default:
+                return entry.getName() != null ? "✎ Entered manually" : "✗ Lookup failed - name it";
+        }
+    }
+
+    private void refresh() {
+        entriesTable.refresh();
+
+        int ready = 0;
+        int scans = 0;
+        for (ScanSession.Entry entry : session.getEntries()) {
+            scans += entry.getCount();
+            if (entry.isReady()) ready++;
+        }
+        int unnamed = session.getEntries().size() - ready;
+
+        commitButton.setText(ready == 0 ? "Add to Pantry" : "Add " + ready + " Item" + (ready == 1 ? "" : "s") + " to Pantry");
+        commitButton.setDisable(saving || ready == 0 || session.isLookupPending());
+
+        if (saving) return;
+        if (session.getEntries().isEmpty()) {
+            statusLabel.setText("Ready to scan");
+            statusLabel.setTextFill(Color.BLUE);
+        } else if (session.isLookupPending()) {
+            statusLabel.setText("🔍 " + scans + " scanned, looking up products...");
+            statusLabel.setTextFill(Color.BLUE);
+        } else if (unnamed > 0) {
+            statusLabel.setText(unnamed + " item(s) not found. Double-click the name to enter one, or they will be skipped.");
+            statusLabel.setTextFill(Color.ORANGE);
+        } else {
+            statusLabel.setText("✓ " + scans + " scanned, ready to add");
+            statusLabel.setTextFill(Color.GREEN);
+        }
+    }
+
+    @FXML
+    private void handleBarcodeEntered() {
+        session.scan(barcodeField.getText());
+        barcodeField.clear();
+        barcodeField.requestFocus();
+    }
+
+    @FXML
+    private void handleCameraScan() {
+        if (cameraScanner == null) {
+            cameraScanner = new CameraBarcodeScanner();
+        }
+        // The camera stays open and every new barcode it sees lands in the session
+        cameraScanner.startContinuousScanning(session::scan);
+    }
+
+    @FXML
+    private void handleRemoveSelected() {
+        ScanSession.Entry selected = entriesTable.getSelectionModel().getSelectedItem();
+        if (selected != null) session.remove(selected);
+    }
+
+    @FXML
+    private void handleClear() {
+        session.clear();
+    }
+
+    @FXML
+    private void handleCommit() {
+        if (currentUserId == null || currentUserId.isBlank()) {
+            currentUserId = UserSession.getCurrentUserId();
+        }
+        if (currentUserId == null || currentUserId.isBlank()) {
+            showError("No user ID set. Please log in first.");
+            return;
+        }
+
+        String uid = currentUserId;
+        List<PantryItem> items = session.toPantryItems(uid);
+        if (items.isEmpty()) return;
+
+        saving = true;
+        refresh();
+        statusLabel.setText("Saving " + items.size() + " item(s)...");
+        statusLabel.setTextFill(Color.BLUE);
+
+        // One bulk write for the whole session; completes on the FX thread
+        AsyncFirebaseService.supply(() -> Repositories.pantry().addAll(items, uid))
+                .whenComplete((ids, error) -> {
+                    saving = false;
+                    if (error != null) {
+                        refresh();
+                        showError("Failed to save items: " + error.getMessage());
+                        error.printStackTrace();
+                        return;
+                    }
+                    System.out.println("✓ Scan session added " + ids.size() + " pantry items");
+                    closeWindow();
+                    if (onCommitted != null) onCommitted.run();
+                });
+    }
+
+    private void showError(String message) {
+        statusLabel.setText("✗ " + message);
+        statusLabel.setTextFill(Color.RED);
+    }
+
+    private void closeWindow() {
+        Stage stage = (Stage) entriesTable.getScene().getWindow();
+        stage.close();
+    }
+
+    @FXML
+    private void handleCancel() {
+        closeWindow();
+    }
+}
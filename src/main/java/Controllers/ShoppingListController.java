@@ -8,7 +8,7 @@ import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.CollectionReference;
-import Firebase.FirebaseConfiguration;
+import Repository.Repositories;
 import java.util.Map;
 import java.util.HashMap;
 import com.example.demo1.UserSession;
@@ -179,13 +179,6 @@ public class ShoppingListController extends BaseController {
         return uid != null ? uid : "lewidt@farmingdale.edu";
     }
 
-    private CollectionReference pantryColl() {
-        return FirebaseConfiguration.getDatabase()
-                .collection("users")
-                .document(currentUserDocId())
-                .collection("pantryItems");
-    }
-
     // Decides if an item belongs in the "Expiring soon" pill
     private boolean isExpiringSoon(LocalDate d) {
         if (d == null) return false;
@@ -193,21 +186,22 @@ public class ShoppingListController extends BaseController {
         return !d.isBefore(now) && !d.isAfter(now.plusDays(7));
     }
 
-    // Write a new (or edited) item to Firestore so it shows up in the pills
+    // Write a new (or edited) item to the pantry so it shows up in the pills
     private void upsertToFirestore(PantryItem it) {
-        try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("name", it.getName());
-            data.put("qty", it.getQty());                      // your readers accept qty/quantityNumeric
-            data.put("unit", it.getUnit());
-            data.put("location", it.getLocation());
-            data.put("lowStock", it.isLowStock());
-            data.put("expiration", it.getExpiration() == null ? null : it.getExpiration().toString());
-            // simplest: let Firestore assign an ID
-            pantryColl().add(data);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+        Pantry.PantryItem item = new Pantry.PantryItem(it.getName(), it.getQty() + " " + it.getUnit(),
+                it.getQty(), it.getExpiration());
+        item.setUnit(it.getUnit());
+        if (it.getExactAmount() != null) item.setAmount(it.getExactAmount());
+        item.setLocation(it.getLocation() == null || it.getLocation().isBlank() ? null : it.getLocation());
+        item.setLowStock(it.isLowStock());
+        item.setUserId(currentUserDocId());
+        CompletableFuture.runAsync(() -> {
+            try {
+                Repositories.pantry().add(item, currentUserDocId());
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        });
     }
 
     @FXML
@@ -320,41 +314,7 @@ public class ShoppingListController extends BaseController {
 
         CompletableFuture.runAsync(() -> {
             try {
-                Firestore db = FirebaseConfiguration.getDatabase();
-                CollectionReference shoppingRef = db.collection("users")
-                        .document(uid)
-                        .collection("shoppingList");
-
-                List<QueryDocumentSnapshot> docs = shoppingRef.get().get().getDocuments();
-                List<PantryItem> firestoreItems = new ArrayList<>();
-
-                for (QueryDocumentSnapshot doc : docs) {
-                    String name = doc.getString("item");
-                    if (name == null) name = doc.getString("name"); // fallback
-
-                    Long qtyLong = doc.getLong("quantity");
-                    int qty = qtyLong == null ? 1 : qtyLong.intValue();
-
-                    String unit = doc.getString("unit");
-                    if (unit == null) unit = "count";
-
-                    String location = doc.getString("location");
-                    if (location == null) location = "Pantry";
-
-                    // Expiration (optional)
-                    LocalDate expiration = null;
-                    Object expRaw = doc.get("expiration");
-                    if (expRaw instanceof String) {
-                        try { expiration = LocalDate.parse((String) expRaw); }
-                        catch (Exception ignore) {}
-                    }
-
-                    boolean lowStock = Boolean.TRUE.equals(doc.getBoolean("lowStock"));
-
-                    PantryItem item = new PantryItem(name, qty, unit, location, expiration, lowStock);
-                    item.setShoppingDocId(doc.getId()); // Store doc ID for deletion
-                    firestoreItems.add(item);
-                }
+                List<PantryItem> firestoreItems = Repositories.shoppingList().findAll(uid);
 
                 // Merge with local list on UI thread
                 Platform.runLater(() -> {
@@ -429,29 +389,29 @@ public class ShoppingListController extends BaseController {
 
         if (onListTab) {
             saveLocalList();
-            // (keep your Firebase deletion block as-is)
+            // Delete every removed row in one bulk write instead of one round trip each
             String uid = UserSession.getCurrentUserId();
             if (uid != null && !uid.isBlank()) {
-                var db = FirebaseConfiguration.getDatabase();
-                var coll = db.collection("users").document(uid).collection("shoppingList");
+                var repo = Repositories.shoppingList();
                 java.util.concurrent.CompletableFuture.runAsync(() -> {
+                    List<String> ids = new ArrayList<>();
                     for (PantryItem p : toRemove) {
                         String id = p.getShoppingDocId();
+                        if (id != null && !id.isBlank()) {
+                            ids.add(id);
+                            continue;
+                        }
                         try {
-                            if (id != null && !id.isBlank()) {
-                                coll.document(id).delete().get();
-                            } else {
-                                var q = coll.whereEqualTo("item", p.getName())
-                                        .whereEqualTo("quantity", p.getQty())
-                                        .whereEqualTo("unit", p.getUnit())
-                                        .whereEqualTo("location", p.getLocation());
-                                var snap = q.get().get();
-                                for (var d : snap.getDocuments()) d.getReference().delete().get();
-                            }
+                            ids.addAll(repo.findIds(p, uid));
                         } catch (Exception ex) {
-                            System.err.println("⚠ Delete failed: " + ex.getMessage());
+                            System.err.println("⚠ Lookup for delete failed: " + ex.getMessage());
                         }
                     }
+                    try {
+                        repo.delete(ids, uid);
+                    } catch (Exception ex) {
+                        System.err.println("⚠ Delete failed: " + ex.getMessage());
+                    }
                 });
             }
         }
@@ -550,56 +510,6 @@ public class ShoppingListController extends BaseController {
     private boolean loadedExpiring = false;
     private boolean loadedLow = false;
 
-    // ---- Helpers to work with Firestore docs flexibly ----
-
-    private static LocalDate toLocalDate(Object value) {
-        if (value == null) return null;
-        if (value instanceof com.google.cloud.Timestamp ts) {
-            return ts.toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        }
-        if (value instanceof java.util.Date dt) {
-            return dt.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        }
-        if (value instanceof String s) {
-            try { return LocalDate.parse(s); } catch (Exception ignore) { }
-        }
-        return null;
-    }
-
-    /** Convert a Firestore doc to your UI PantryItem, handling alternate field names. */
-    private PantryItem fromDoc(DocumentSnapshot d) {
-        String name = d.getString("name");
-
-        // quantity can be "quantity", "qty", or "quantityNumeric"
-        Long q = d.getLong("quantity");
-        if (q == null) q = d.getLong("qty");
-        if (q == null) q = d.getLong("quantityNumeric");
-        int qty = q == null ? 0 : q.intValue();
-
-        String unit = d.getString("unit");
-        String loc  = d.getString("location");
-        if (loc == null) loc = d.getString("category");
-
-        // expiration may be "expiryDate" (String), "expiration" (String),
-        // or "expirationDate" (Timestamp/Date)
-        Object expRaw = d.get("expiryDate");
-        if (expRaw == null) expRaw = d.get("expiration");
-        if (expRaw == null) expRaw = d.get("expirationDate");
-        LocalDate exp = toLocalDate(expRaw);
-
-        boolean low = Boolean.TRUE.equals(d.getBoolean("lowStock")); // may be absent
-
-        return new PantryItem(name, qty, unit, loc, exp, low);
-    }
-
-
-    /** Run a query and map to PantryItem list. */
-    private List<PantryItem> runQueryToItems(Query q) throws Exception {
-        return q.get().get().getDocuments().stream()
-                .map(this::fromDoc)
-                .collect(Collectors.toList());
-    }
-
     /** Merge results into target list (simple append, then distinct by name+unit+location+exp). */
     private void mergeInto(ObservableList<PantryItem> target, List<PantryItem> adds) {
         target.addAll(adds);
@@ -619,27 +529,9 @@ public class ShoppingListController extends BaseController {
 
         new Thread(() -> {
             try {
-                var coll = pantryColl();
                 LocalDate now = LocalDate.now();
-                LocalDate in7 = now.plusDays(7);
-
-                // A) ISO string field "expiryDate"
-                Query qIso = coll.whereGreaterThanOrEqualTo("expiryDate", now.toString())
-                        .whereLessThanOrEqualTo("expiryDate", in7.toString());
-
-                // B) Alternative names (keep these in case other docs use them)
-                com.google.cloud.Timestamp tsStart = com.google.cloud.Timestamp.now();
-                com.google.cloud.Timestamp tsEnd   = com.google.cloud.Timestamp.of(
-                        java.util.Date.from(in7.atStartOfDay(ZoneId.systemDefault()).toInstant()));
-                Query qTs  = coll.whereGreaterThanOrEqualTo("expirationDate", tsStart)
-                        .whereLessThanOrEqualTo("expirationDate", tsEnd);
-                Query qStr = coll.whereGreaterThanOrEqualTo("expiration", now.toString())
-                        .whereLessThanOrEqualTo("expiration", in7.toString());
-
-                var items = new java.util.ArrayList<PantryItem>();
-                try { items.addAll(runQueryToItems(qIso)); } catch (Exception ignore) {}
-                try { items.addAll(runQueryToItems(qTs));  } catch (Exception ignore) {}
-                try { items.addAll(runQueryToItems(qStr)); } catch (Exception ignore) {}
+                List<PantryItem> items = Repositories.shoppingList()
+                        .findExpiringBetween(currentUserDocId(), now, now.plusDays(7));
 
                 Platform.runLater(() -> {
                     // replace the fetched list with fresh results
@@ -664,21 +556,8 @@ public class ShoppingListController extends BaseController {
 
         new Thread(() -> {
             try {
-                var coll = pantryColl();
-
-                // Prefer a boolean if present
-                Query qFlag = coll.whereEqualTo("lowStock", true);
-
-                // Or compute by quantity number (supports multiple field names)
-                Query qQty1 = coll.whereLessThanOrEqualTo("quantity", LOW_STOCK_THRESHOLD);
-                Query qQty2 = coll.whereLessThanOrEqualTo("qty", LOW_STOCK_THRESHOLD);
-                Query qQty3 = coll.whereLessThanOrEqualTo("quantityNumeric", LOW_STOCK_THRESHOLD);
-
-                var items = new java.util.ArrayList<PantryItem>();
-                try { items.addAll(runQueryToItems(qFlag)); }  catch (Exception ignore) {}
-                try { items.addAll(runQueryToItems(qQty1)); }  catch (Exception ignore) {}
-                try { items.addAll(runQueryToItems(qQty2)); }  catch (Exception ignore) {}
-                try { items.addAll(runQueryToItems(qQty3)); }  catch (Exception ignore) {}
+                List<PantryItem> items = Repositories.shoppingList()
+                        .findLowStock(currentUserDocId(), LOW_STOCK_THRESHOLD);
 
                 Platform.runLater(() -> mergeInto(lowStockFirebase, items));
             } catch (Exception ex) {
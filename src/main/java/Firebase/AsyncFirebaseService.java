@@ -0,0 +1,151 @@
+package Firebase;
+
+import Pantry.PantryItem;
+import com.google.cloud.firestore.DocumentSnapshot;
+import javafx.application.Platform;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking facade over FirebaseService (see {@link FirebaseService#async()}).
+ *
+ * Each call runs the blocking Firestore round trip on a shared background executor.
+ * The returned future completes on the JavaFX Application Thread, so callbacks can
+ * touch the UI directly. Failures are unwrapped to the original exception.
+ */
+public class AsyncFirebaseService {
+
+    // Shared by every FirebaseService instance; daemon threads so they never block shutdown
+    private static final ExecutorService IO = Executors.newFixedThreadPool(4, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "firestore-io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final FirebaseService service;
+
+    AsyncFirebaseService(FirebaseService service) {
+        this.service = service;
+    }
+
+    /** A FirebaseService call that blocks on Firestore. */
+    @FunctionalInterface
+    public interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+
+    // ===== Pantry =====
+
+    public CompletableFuture<String> addPantryItem(PantryItem item, String userId) {
+        return submit(() -> service.addPantryItem(item, userId));
+    }
+
+    public CompletableFuture<Void> updatePantryItem(String itemId, PantryItem item) {
+        return submit(() -> {
+            service.updatePantryItem(itemId, item);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deletePantryItem(String itemId, String userId) {
+        return submit(() -> {
+            service.deletePantryItem(itemId, userId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<PantryItem>> getPantryItems(String userId) {
+        return submit(() -> FirebaseService.getPantryItems(userId));
+    }
+
+    public CompletableFuture<FirebaseService.PantryPage> getPantryItemsPage(String userId, int pageSize,
+                                                                             DocumentSnapshot after) {
+        return submit(() -> FirebaseService.getPantryItemsPage(userId, pageSize, after));
+    }
+
+    public CompletableFuture<BulkWriteResult> addPantryItems(List<PantryItem> items) {
+        return submit(() -> service.addPantryItems(items));
+    }
+
+    public CompletableFuture<BulkWriteResult> updatePantryItems(Map<String, PantryItem> itemsById) {
+        return submit(() -> service.updatePantryItems(itemsById));
+    }
+
+    public CompletableFuture<BulkWriteResult> deletePantryItems(Collection<String> itemIds, String userId) {
+        return submit(() -> service.deletePantryItems(itemIds, userId));
+    }
+
+    // ===== Shopping list =====
+
+    public CompletableFuture<String> addShoppingListItem(ShoppingList.PantryItem item, String userId) {
+        return submit(() -> service.addShoppingListItem(item, userId));
+    }
+
+    public CompletableFuture<Void> updateShoppingListItem(ShoppingList.PantryItem item, String userId) {
+        return submit(() -> {
+            service.updateShoppingListItem(item, userId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> countShoppingListItems(String userId) {
+        return submit(() -> service.countShoppingListItems(userId));
+    }
+
+    public CompletableFuture<BulkWriteResult> deleteShoppingListItems(Collection<String> docIds, String userId) {
+        return submit(() -> service.deleteShoppingListItems(docIds, userId));
+    }
+
+    // ===== Recipes =====
+
+    public CompletableFuture<Void> setRecipe(String recipeId, Map<String, Object> data, String userId) {
+        return submit(() -> {
+            service.setRecipe(recipeId, data, userId);
+            return null;
+        });
+    }
+
+    /**
+     * Run any blocking call off the FX thread and complete on the FX thread.
+     */
+    public <T> CompletableFuture<T> submit(BlockingCall<T> call) {
+        return supply(call);
+    }
+
+    /**
+     * Same as {@link #submit} without a FirebaseService, e.g. for repository calls.
+     */
+    public static <T> CompletableFuture<T> supply(BlockingCall<T> call) {
+        CompletableFuture<T> work = CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, IO);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        work.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package Firebase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-document outcome of a bulk write made through FirebaseService.
+ */
+public class BulkWriteResult {
+    private final List<String> succeeded = new ArrayList<>();
+    private final Map<String, String> failed = new LinkedHashMap<>();
+
+    void markSucceeded(String documentId) {
+        succeeded.add(documentId);
+    }
+
+    void markFailed(String documentId, String reason) {
+        failed.put(documentId, reason);
+    }
+
+    /**
+     * @return IDs of the documents that were written
+     */
+    public List<String> getSucceeded() {
+        return Collections.unmodifiableList(succeeded);
+    }
+
+    /**
+     * @return Failed document IDs mapped to the error message of their last attempt
+     */
+    public Map<String, String> getFailed() {
+        return Collections.unmodifiableMap(failed);
+    }
+
+    public boolean isSuccess() {
+        return failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkWriteResult{" +
+                "succeeded=" + succeeded.size() +
+                ", failed=" + failed +
+                '}';
+    }
+}
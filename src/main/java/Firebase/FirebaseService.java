@@ -5,19 +5,34 @@ import Pantry.PantryItem;
 import Recipe.RecipeItem;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import io.grpc.Status;
+
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 public class FirebaseService {
     private static Firestore db = null;
     private static final String COLLECTION_NAME = "pantry_items";
+    // Firestore rejects batches above 500 writes; flush the BulkWriter at that size
+    private static final int BATCH_LIMIT = 500;
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    // Run with -Dsmartpantry.debug=true to fail fast on Firestore calls made from the FX thread
+    private static final boolean DEBUG = Boolean.getBoolean("smartpantry.debug");
     private String userId;
+    private AsyncFirebaseService async;
 
     /**
      * Constructor - Uses the Firestore instance from MainApplication
@@ -40,36 +55,60 @@ public class FirebaseService {
     }
 
     /**
-     * Add new pantry item to Firebase
+     * Non-blocking view of this service for use from controllers.
+     * Calls run on a background executor and complete on the JavaFX Application Thread.
+     */
+    public synchronized AsyncFirebaseService async() {
+        if (async == null) {
+            async = new AsyncFirebaseService(this);
+        }
+        return async;
+    }
+
+    /**
+     * Every method below blocks on a Firestore round trip. In debug mode, calling one
+     * from the JavaFX Application Thread throws so the freeze is caught during development.
+     */
+    static void assertNotFxThread(String operation) {
+        if (DEBUG && Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("Blocking Firestore call on the FX thread: " + operation);
+        }
+    }
+
+    /**
+     * Add new pantry item to Firebase.
+     * If the item already carries an ID it is created under that ID, so repeating the call is harmless.
+     * The badge counters are updated in the same commit.
      *
      * @param item   The PantryItem to add
      * @param userId The user's ID
      * @return The document ID of the created item
      */
     public String addPantryItem(PantryItem item, String userId) throws ExecutionException, InterruptedException {
-        Map<String, Object> data = new HashMap<>();
-        data.put("name", item.getName());
-        data.put("quantity", item.getQuantityNumeric());
-        data.put("quantityLabel", item.getQuantityLabel());
-        data.put("unit", item.getUnit());
-        data.put("category", item.getCategory());
-        data.put("dateAdded", com.google.cloud.Timestamp.now());
-
-        // Handle expiration date - convert to string format like your old controller
-        if (item.getExpires() != null) {
-            data.put("expiryDate", item.getExpires().toString());
-        }
-
-        // Add location if available
-        data.put("location", "Pantry"); // Default location
+        assertNotFxThread("addPantryItem");
+        Map<String, Object> data = newPantryItemData(item);
 
         // Save to nested collection: users/{userId}/pantryItems
-        ApiFuture<DocumentReference> future = db.collection("users")
-                .document(userId)
-                .collection("pantryItems")
-                .add(data);
-
-        DocumentReference docRef = future.get();
+        DocumentReference docRef;
+        if (item.getId() != null && !item.getId().isBlank()) {
+            // Read first so a repeated add only counts the difference to what is already stored
+            DocumentReference ref = pantryItems(userId).document(item.getId());
+            db.runTransaction(tx -> {
+                DocumentSnapshot existing = tx.get(ref).get();
+                PantryItem before = existing.exists() ? toPantryItem(existing, userId) : null;
+                tx.set(ref, data);
+                PantryCounters.apply(tx, db, userId, PantryCounters.pantryDelta(before, item));
+                return null;
+            }).get();
+            docRef = ref;
+        } else {
+            docRef = pantryItems(userId).document();
+            WriteBatch batch = db.batch();
+            batch.create(docRef, data);
+            PantryCounters.apply(batch, db, userId, PantryCounters.pantryDelta(null, item));
+            batch.commit().get();
+        }
+        QueryCache.invalidate(userId, "pantryItems");
         System.out.println("✓ Added item to Firebase with ID: " + docRef.getId());
         return docRef.getId();
     }
@@ -81,6 +120,7 @@ public class FirebaseService {
      * @return ObservableList of PantryItems
      */
     public static ObservableList<PantryItem> getPantryItems(String userId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("getPantryItems");
         ObservableList<PantryItem> items = FXCollections.observableArrayList();
 
         System.out.println("📥 Loading items for user: " + userId);
@@ -97,54 +137,137 @@ public class FirebaseService {
 
         // Convert Firebase documents to PantryItem objects
         for (DocumentSnapshot document : documents) {
-            try {
-                PantryItem item = new PantryItem();
-                item.setId(document.getId());
+            PantryItem item = toPantryItem(document, userId);
+            if (item != null) {
+                items.add(item);
+                System.out.println("  ✓ Loaded: " + item.getName() + " (" + item.getQuantityLabel() + ")");
+            }
+        }
 
-                // Get fields from Firebase
-                item.setName(document.getString("name"));
+        return items;
+    }
 
-                // Handle quantity (could be Long or Integer from Firebase)
-                Object quantityObj = document.get("quantity");
-                if (quantityObj instanceof Long) {
-                    item.setQuantityNumeric(((Long) quantityObj).intValue());
-                } else if (quantityObj instanceof Integer) {
-                    item.setQuantityNumeric((Integer) quantityObj);
-                }
+    /**
+     * One page of a user's pantry, ordered by document ID
+     */
+    public static class PantryPage {
+        private final List<PantryItem> items;
+        private final DocumentSnapshot cursor;
+        private final boolean hasMore;
+
+        PantryPage(List<PantryItem> items, DocumentSnapshot cursor, boolean hasMore) {
+            this.items = items;
+            this.cursor = cursor;
+            this.hasMore = hasMore;
+        }
 
-                item.setUnit(document.getString("unit"));
-                item.setCategory(document.getString("category"));
-
-                // Build quantity label
-                String quantityLabel = item.getQuantityNumeric() + " " +
-                        (item.getUnit() != null ? item.getUnit() : "");
-                item.setQuantityLabel(quantityLabel);
-
-                // Parse expiration date from string format
-                String expiryDateStr = document.getString("expiryDate");
-                if (expiryDateStr != null && !expiryDateStr.isEmpty()) {
-                    try {
-                        LocalDate expiryDate = LocalDate.parse(expiryDateStr);
-                        item.setExpires(expiryDate);
-                    } catch (Exception e) {
-                        System.err.println("Could not parse expiry date: " + expiryDateStr);
-                    }
-                }
+        public List<PantryItem> getItems() { return items; }
 
-                item.setUserId(userId);
+        /** Pass to the next getPantryItemsPage call; null when the page is empty */
+        public DocumentSnapshot getCursor() { return cursor; }
 
-                items.add(item);
-                System.out.println("  ✓ Loaded: " + item.getName() + " (" + item.getQuantityLabel() + ")");
+        public boolean hasMore() { return hasMore; }
+    }
 
-            } catch (Exception e) {
-                System.err.println("❌ Error parsing document " + document.getId() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
+    /**
+     * Get one page of pantry items using a query cursor, so the first screen only
+     * waits for pageSize documents instead of the whole collection.
+     *
+     * @param userId   The user's ID
+     * @param pageSize Maximum number of items in the page
+     * @param after    Cursor from the previous page, or null for the first page
+     * @return The page and the cursor for the next one
+     */
+    public static PantryPage getPantryItemsPage(String userId, int pageSize, DocumentSnapshot after)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("getPantryItemsPage");
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+
+        // Order by document ID: every doc has one, so no item is skipped and no index is needed
+        Query query = db.collection("users")
+                .document(userId)
+                .collection("pantryItems")
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+
+        List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+        List<PantryItem> items = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            PantryItem item = toPantryItem(document, userId);
+            if (item != null) items.add(item);
+        }
+
+        DocumentSnapshot cursor = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        System.out.println("📄 Loaded page of " + items.size() + " pantry items");
+        return new PantryPage(items, cursor, documents.size() == pageSize);
+    }
+
+    /**
+     * Items expiring between two dates (inclusive), soonest first.
+     * A single range query on the Timestamp expiryDate, so only matching documents are read.
+     *
+     * @param limit Maximum number of items to return
+     */
+    public static List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to, int limit)
+            throws ExecutionException, InterruptedException {
+        return findExpiringBetween(userId, from, to, null, limit);
+    }
+
+    /**
+     * Same as {@link #findExpiringBetween(String, LocalDate, LocalDate, int)}, narrowed to one category.
+     * Uses the (category, expiryDate) composite index declared in firestore.indexes.json.
+     *
+     * @param category The category to match, or null for all
+     */
+    public static List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to,
+                                                       String category, int limit)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("findExpiringBetween");
+        Query query = db.collection("users").document(userId).collection("pantryItems");
+        if (category != null) {
+            query = query.whereEqualTo("category", category);
         }
+        query = query.whereGreaterThanOrEqualTo("expiryDate", PantryDocCodec.toTimestamp(from))
+                .whereLessThanOrEqualTo("expiryDate", PantryDocCodec.toTimestamp(to))
+                .orderBy("expiryDate")
+                .limit(limit);
+        return toPantryItems(query.get().get().getDocuments(), userId);
+    }
 
+    /**
+     * Items whose expiry date is before today, oldest first.
+     */
+    public static List<PantryItem> findExpired(String userId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("findExpired");
+        Query query = db.collection("users").document(userId).collection("pantryItems")
+                .whereLessThan("expiryDate", PantryDocCodec.toTimestamp(LocalDate.now()))
+                .orderBy("expiryDate");
+        return toPantryItems(query.get().get().getDocuments(), userId);
+    }
+
+    private static List<PantryItem> toPantryItems(List<QueryDocumentSnapshot> documents, String userId) {
+        List<PantryItem> items = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            PantryItem item = toPantryItem(document, userId);
+            if (item != null) items.add(item);
+        }
         return items;
     }
 
+    /**
+     * Convert a pantry document to a PantryItem
+     *
+     * @param document The Firestore document under users/{userId}/pantryItems
+     * @param userId   The owner's ID
+     * @return The PantryItem, or null if the document could not be parsed
+     */
+    public static PantryItem toPantryItem(DocumentSnapshot document, String userId) {
+        return PantryDocCodec.decode(document, userId);
+    }
+
     /**
      * Update an existing pantry item
      *
@@ -152,29 +275,23 @@ public class FirebaseService {
      * @param item   The updated PantryItem
      */
     public void updatePantryItem(String itemId, PantryItem item) throws ExecutionException, InterruptedException {
+        assertNotFxThread("updatePantryItem");
         if (item.getUserId() == null) {
             throw new IllegalArgumentException("Item must have a userId to update");
         }
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("name", item.getName());
-        updates.put("quantity", item.getQuantityNumeric());
-        updates.put("quantityLabel", item.getQuantityLabel());
-        updates.put("unit", item.getUnit());
-        updates.put("category", item.getCategory());
-
-        if (item.getExpires() != null) {
-            updates.put("expiryDate", item.getExpires().toString());
-        }
-
-        // Update in nested collection
-        ApiFuture<WriteResult> future = db.collection("users")
-                .document(item.getUserId())
-                .collection("pantryItems")
-                .document(itemId)
-                .update(updates);
-
-        future.get();
+        Map<String, Object> updates = pantryItemUpdates(item);
+
+        // Update in nested collection; the counters move by the difference between old and new
+        DocumentReference ref = pantryItems(item.getUserId()).document(itemId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot existing = tx.get(ref).get();
+            PantryItem before = existing.exists() ? toPantryItem(existing, item.getUserId()) : null;
+            tx.update(ref, updates);  // fails the whole commit if the item is gone
+            PantryCounters.apply(tx, db, item.getUserId(), PantryCounters.pantryDelta(before, item));
+            return null;
+        }).get();
+        QueryCache.invalidate(item.getUserId(), "pantryItems");
         System.out.println("✓ Updated item: " + itemId);
     }
 
@@ -185,19 +302,280 @@ public class FirebaseService {
      * @param currentUserId
      */
     public void deletePantryItem(String itemId, String currentUserId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("deletePantryItem");
         if (currentUserId == null || currentUserId.isBlank()) throw new IllegalArgumentException("currentUserId is required");
         if (itemId == null || itemId.isBlank()) throw new IllegalArgumentException("itemId is required");
 
-        ApiFuture<WriteResult> future = db.collection("users")
-                .document(currentUserId)            // <- use the parameter, not an undefined variable
-                .collection("pantryItems")          // <- make sure this matches where you add/update
-                .document(itemId)
-                .delete();
-
-        future.get();
+        DocumentReference ref = pantryItems(currentUserId).document(itemId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot existing = tx.get(ref).get();
+            if (!existing.exists()) return null;  // already gone, nothing to uncount
+            tx.delete(ref);
+            PantryCounters.apply(tx, db, currentUserId,
+                    PantryCounters.pantryDelta(toPantryItem(existing, currentUserId), null));
+            return null;
+        }).get();
+        QueryCache.invalidate(currentUserId, "pantryItems");
         System.out.println("✓ Deleted item: " + itemId + " for user: " + currentUserId);
     }
 
+    // ===== Bulk writes =====
+
+    /**
+     * Add many pantry items with one BulkWriter instead of one round trip per item.
+     * Each item must have a userId. Items without an ID get a generated one, set on the item;
+     * items that already have one (e.g. replayed from the journal) are written under it, and
+     * re-adding an existing document only counts the difference, like {@link #addPantryItem}.
+     *
+     * @param items The PantryItems to add
+     * @return Per-document results keyed by the document IDs
+     */
+    public BulkWriteResult addPantryItems(List<PantryItem> items) throws ExecutionException, InterruptedException {
+        assertNotFxThread("addPantryItems");
+        Map<String, BulkOperation> ops = new LinkedHashMap<>();
+        List<DocumentReference> presetRefs = new ArrayList<>();
+        for (PantryItem item : items) {
+            if (item.getUserId() == null) {
+                throw new IllegalArgumentException("Item must have a userId to add: " + item.getName());
+            }
+            Map<String, Object> data = newPantryItemData(item);
+            DocumentReference ref;
+            if (item.getId() != null && !item.getId().isBlank()) {
+                ref = pantryItems(item.getUserId()).document(item.getId());
+                presetRefs.add(ref);
+                ops.put(ref.getId(), writer -> writer.set(ref, data));
+            } else {
+                ref = pantryItems(item.getUserId()).document();
+                item.setId(ref.getId());
+                ops.put(ref.getId(), writer -> writer.create(ref, data));
+            }
+        }
+
+        // One read for every preset ID, so a repeated add does not count twice
+        Map<String, PantryItem> before = new HashMap<>();
+        if (!presetRefs.isEmpty()) {
+            for (DocumentSnapshot snap : db.getAll(presetRefs.toArray(new DocumentReference[0])).get()) {
+                if (!snap.exists()) continue;
+                String userId = snap.getReference().getParent().getParent().getId();
+                before.put(snap.getId(), toPantryItem(snap, userId));
+            }
+        }
+        BulkWriteResult result = runBulk(ops);
+
+        Map<String, Map<String, Long>> deltas = new HashMap<>();
+        Set<String> added = new HashSet<>(result.getSucceeded());
+        for (PantryItem item : items) {
+            if (!added.contains(item.getId())) continue;
+            PantryCounters.pantryDelta(before.get(item.getId()), item).forEach((field, n) ->
+                    deltas.computeIfAbsent(item.getUserId(), u -> new HashMap<>()).merge(field, n, Long::sum));
+        }
+        applyCounterDeltas(deltas);
+        items.forEach(item -> QueryCache.invalidate(item.getUserId(), "pantryItems"));
+        System.out.println("✓ Bulk added " + result.getSucceeded().size() + "/" + items.size() + " pantry items");
+        return result;
+    }
+
+    /**
+     * Update many pantry items with one BulkWriter.
+     *
+     * @param itemsById Document IDs mapped to their updated PantryItems (each with a userId)
+     * @return Per-document results
+     */
+    public BulkWriteResult updatePantryItems(Map<String, PantryItem> itemsById) throws ExecutionException, InterruptedException {
+        assertNotFxThread("updatePantryItems");
+        Map<String, BulkOperation> ops = new LinkedHashMap<>();
+        Map<String, DocumentReference> refs = new LinkedHashMap<>();
+        for (Map.Entry<String, PantryItem> entry : itemsById.entrySet()) {
+            PantryItem item = entry.getValue();
+            if (item.getUserId() == null) {
+                throw new IllegalArgumentException("Item must have a userId to update: " + entry.getKey());
+            }
+            DocumentReference ref = pantryItems(item.getUserId()).document(entry.getKey());
+            refs.put(entry.getKey(), ref);
+            Map<String, Object> updates = pantryItemUpdates(item);
+            ops.put(entry.getKey(), writer -> writer.update(ref, updates));
+        }
+        Map<String, DocumentSnapshot> before = snapshots(refs.values());
+        BulkWriteResult result = runBulk(ops);
+
+        Map<String, Map<String, Long>> deltas = new HashMap<>();
+        for (String id : result.getSucceeded()) {
+            PantryItem item = itemsById.get(id);
+            DocumentSnapshot old = before.get(id);
+            PantryItem oldItem = old != null && old.exists() ? toPantryItem(old, item.getUserId()) : null;
+            PantryCounters.pantryDelta(oldItem, item).forEach((field, n) ->
+                    deltas.computeIfAbsent(item.getUserId(), u -> new HashMap<>()).merge(field, n, Long::sum));
+        }
+        applyCounterDeltas(deltas);
+        itemsById.values().forEach(item -> QueryCache.invalidate(item.getUserId(), "pantryItems"));
+        System.out.println("✓ Bulk updated " + result.getSucceeded().size() + "/" + itemsById.size() + " pantry items");
+        return result;
+    }
+
+    /**
+     * Delete many pantry items with one BulkWriter.
+     *
+     * @param itemIds       The document IDs to delete
+     * @param currentUserId The owner's ID
+     * @return Per-document results
+     */
+    public BulkWriteResult deletePantryItems(Collection<String> itemIds, String currentUserId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("deletePantryItems");
+        if (currentUserId == null || currentUserId.isBlank()) throw new IllegalArgumentException("currentUserId is required");
+
+        Map<String, DocumentSnapshot> before = snapshots(refs(pantryItems(currentUserId), itemIds));
+        BulkWriteResult result = deleteAll(pantryItems(currentUserId), itemIds);
+
+        Map<String, Long> delta = new HashMap<>();
+        for (String id : result.getSucceeded()) {
+            DocumentSnapshot old = before.get(id);
+            if (old == null || !old.exists()) continue;  // deleting a missing document changes no count
+            PantryCounters.pantryDelta(toPantryItem(old, currentUserId), null)
+                    .forEach((field, n) -> delta.merge(field, n, Long::sum));
+        }
+        applyCounterDeltas(Map.of(currentUserId, delta));
+        QueryCache.invalidate(currentUserId, "pantryItems");
+        System.out.println("✓ Bulk deleted " + result.getSucceeded().size() + "/" + itemIds.size() + " pantry items");
+        return result;
+    }
+
+    /**
+     * Delete many shopping list entries (users/{userId}/shoppingList) with one BulkWriter.
+     *
+     * @param docIds        The shopping list document IDs to delete
+     * @param currentUserId The owner's ID
+     * @return Per-document results
+     */
+    public BulkWriteResult deleteShoppingListItems(Collection<String> docIds, String currentUserId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("deleteShoppingListItems");
+        if (currentUserId == null || currentUserId.isBlank()) throw new IllegalArgumentException("currentUserId is required");
+
+        Map<String, DocumentSnapshot> before = snapshots(refs(shoppingList(currentUserId), docIds));
+        BulkWriteResult result = deleteAll(shoppingList(currentUserId), docIds);
+
+        long removed = result.getSucceeded().stream()
+                .filter(id -> before.containsKey(id) && before.get(id).exists())
+                .count();
+        if (removed > 0) {
+            applyCounterDeltas(Map.of(currentUserId, Map.of(PantryCounters.SHOPPING_ITEMS, -removed)));
+        }
+        QueryCache.invalidate(currentUserId, "shoppingList");
+        System.out.println("✓ Bulk deleted " + result.getSucceeded().size() + "/" + docIds.size() + " shopping list items");
+        return result;
+    }
+
+    private BulkWriteResult deleteAll(CollectionReference collection, Collection<String> docIds) throws ExecutionException, InterruptedException {
+        Map<String, BulkOperation> ops = new LinkedHashMap<>();
+        for (String id : docIds) {
+            if (id == null || id.isBlank()) continue;
+            DocumentReference ref = collection.document(id);
+            ops.put(id, writer -> writer.delete(ref));
+        }
+        return runBulk(ops);
+    }
+
+    private static List<DocumentReference> refs(CollectionReference collection, Collection<String> docIds) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (String id : docIds) {
+            if (id != null && !id.isBlank()) refs.add(collection.document(id));
+        }
+        return refs;
+    }
+
+    /**
+     * Read the current state of many documents in one round trip (before a bulk write),
+     * so the counters can be moved by what actually changed.
+     */
+    private Map<String, DocumentSnapshot> snapshots(Collection<DocumentReference> refs) throws ExecutionException, InterruptedException {
+        Map<String, DocumentSnapshot> byId = new HashMap<>();
+        if (refs.isEmpty()) return byId;
+        for (DocumentSnapshot snap : db.getAll(refs.toArray(new DocumentReference[0])).get()) {
+            byId.put(snap.getId(), snap);
+        }
+        return byId;
+    }
+
+    /**
+     * Apply counter deltas after a bulk write. BulkWriter is not atomic, so this is a separate
+     * commit; a crash in between leaves drift that {@link PantryCounters#reconcile} repairs.
+     */
+    private void applyCounterDeltas(Map<String, Map<String, Long>> deltasByUser) throws ExecutionException, InterruptedException {
+        WriteBatch batch = db.batch();
+        boolean any = false;
+        for (Map.Entry<String, Map<String, Long>> entry : deltasByUser.entrySet()) {
+            Map<String, Long> delta = new HashMap<>(entry.getValue());
+            delta.values().removeIf(n -> n == 0);
+            if (delta.isEmpty()) continue;
+            PantryCounters.apply(batch, db, entry.getKey(), delta);
+            any = true;
+        }
+        if (any) batch.commit().get();
+    }
+
+    /** One queued write on a BulkWriter. */
+    private interface BulkOperation {
+        ApiFuture<WriteResult> enqueue(BulkWriter writer);
+    }
+
+    /**
+     * Queue all operations on a BulkWriter, flushing every BATCH_LIMIT writes, and collect
+     * a result per document. Transient failures are retried up to MAX_WRITE_ATTEMPTS times.
+     */
+    private BulkWriteResult runBulk(Map<String, BulkOperation> ops) throws ExecutionException, InterruptedException {
+        assertNotFxThread("bulk write");
+        BulkWriteResult result = new BulkWriteResult();
+        if (ops.isEmpty()) return result;
+
+        BulkWriter writer = db.bulkWriter();
+        writer.addWriteErrorListener(error ->
+                error.getFailedAttempts() < MAX_WRITE_ATTEMPTS && isRetryable(error.getStatus()));
+
+        Map<String, ApiFuture<WriteResult>> pending = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, BulkOperation> op : ops.entrySet()) {
+                pending.put(op.getKey(), op.getValue().enqueue(writer));
+                if (pending.size() % BATCH_LIMIT == 0) {
+                    writer.flush().get();
+                }
+            }
+        } finally {
+            writer.close();
+        }
+
+        for (Map.Entry<String, ApiFuture<WriteResult>> entry : pending.entrySet()) {
+            try {
+                entry.getValue().get();
+                result.markSucceeded(entry.getKey());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("❌ Bulk write failed for " + entry.getKey() + ": " + cause.getMessage());
+                result.markFailed(entry.getKey(), cause.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isRetryable(Status status) {
+        return switch (status.getCode()) {
+            case ABORTED, UNAVAILABLE, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED, INTERNAL -> true;
+            default -> false;
+        };
+    }
+
+    private CollectionReference pantryItems(String userId) {
+        return db.collection("users").document(userId).collection("pantryItems");
+    }
+
+    /** Fields written when a pantry item is first created. */
+    private static Map<String, Object> newPantryItemData(PantryItem item) {
+        return PantryDocCodec.encodeNew(item);
+    }
+
+    /** Fields written when a pantry item is edited. */
+    private static Map<String, Object> pantryItemUpdates(PantryItem item) {
+        return PantryDocCodec.encode(item);
+    }
+
     /**
      * Get a single pantry item by ID
      *
@@ -205,6 +583,7 @@ public class FirebaseService {
      * @return The PantryItem or null if not found
      */
     public PantryItem getPantryItemById(String itemId) throws ExecutionException, InterruptedException {
+        assertNotFxThread("getPantryItemById");
         ApiFuture<DocumentSnapshot> future = db.collection(COLLECTION_NAME)
                 .document(itemId)
                 .get();
@@ -237,9 +616,174 @@ public class FirebaseService {
             return false;
         }
     }
+    // Shopping List Methods
+
+    /**
+     * Add an entry to users/{userId}/shoppingList, under the item's shoppingDocId if it has one
+     *
+     * @return The document ID of the created entry
+     */
+    public String addShoppingListItem(ShoppingList.PantryItem item, String userId)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("addShoppingListItem");
+
+        Map<String, Object> data = shoppingListData(item);
+        data.put("createdAt", com.google.cloud.Timestamp.now());
+
+        DocumentReference ref;
+        if (item.getShoppingDocId() != null && !item.getShoppingDocId().isBlank()) {
+            // Only count the entry if it is new, so a repeated add does not count twice
+            DocumentReference preset = shoppingList(userId).document(item.getShoppingDocId());
+            db.runTransaction(tx -> {
+                boolean exists = tx.get(preset).get().exists();
+                tx.set(preset, data);
+                if (!exists) PantryCounters.apply(tx, db, userId, Map.of(PantryCounters.SHOPPING_ITEMS, 1L));
+                return null;
+            }).get();
+            ref = preset;
+        } else {
+            ref = shoppingList(userId).document();
+            WriteBatch batch = db.batch();
+            batch.create(ref, data);
+            PantryCounters.apply(batch, db, userId, Map.of(PantryCounters.SHOPPING_ITEMS, 1L));
+            batch.commit().get();
+        }
+        QueryCache.invalidate(userId, "shoppingList");
+        System.out.println("✅ Saved to shoppingList: " + item.getName() + " (" + ref.getId() + ")");
+        return ref.getId();
+    }
+
+    /**
+     * Add many entries to users/{userId}/shoppingList in one batch, with a single SHOPPING_ITEMS
+     * increment for the entries that are new. Items without a shoppingDocId get a generated one,
+     * set on the item. Lists longer than a batch allows are committed in BATCH_LIMIT chunks.
+     *
+     * @return The document IDs, in the order of the items
+     */
+    public List<String> addShoppingListItems(List<ShoppingList.PantryItem> items, String userId)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("addShoppingListItems");
+        if (userId == null || userId.isBlank()) throw new IllegalArgumentException("userId is required");
+
+        List<String> ids = new ArrayList<>();
+        List<DocumentReference> refs = new ArrayList<>();
+        List<DocumentReference> presetRefs = new ArrayList<>();
+        for (ShoppingList.PantryItem item : items) {
+            DocumentReference ref;
+            if (item.getShoppingDocId() != null && !item.getShoppingDocId().isBlank()) {
+                ref = shoppingList(userId).document(item.getShoppingDocId());
+                presetRefs.add(ref);
+            } else {
+                ref = shoppingList(userId).document();
+                item.setShoppingDocId(ref.getId());
+            }
+            refs.add(ref);
+            ids.add(ref.getId());
+        }
+
+        // One read for every preset ID, so a repeated add does not count twice
+        Set<String> existing = new HashSet<>();
+        if (!presetRefs.isEmpty()) {
+            for (DocumentSnapshot snap : db.getAll(presetRefs.toArray(new DocumentReference[0])).get()) {
+                if (snap.exists()) existing.add(snap.getId());
+            }
+        }
+
+        // Leave room in each batch for the counter write
+        int chunk = BATCH_LIMIT - 1;
+        for (int start = 0; start < items.size(); start += chunk) {
+            WriteBatch batch = db.batch();
+            long created = 0;
+            for (int i = start; i < Math.min(start + chunk, items.size()); i++) {
+                Map<String, Object> data = shoppingListData(items.get(i));
+                data.put("createdAt", com.google.cloud.Timestamp.now());
+                batch.set(refs.get(i), data);
+                if (existing.add(refs.get(i).getId())) created++;
+            }
+            if (created > 0) PantryCounters.apply(batch, db, userId, Map.of(PantryCounters.SHOPPING_ITEMS, created));
+            batch.commit().get();
+        }
+        QueryCache.invalidate(userId, "shoppingList");
+        System.out.println("✅ Saved " + items.size() + " items to shoppingList");
+        return ids;
+    }
+
+    /**
+     * Update an existing entry in users/{userId}/shoppingList
+     */
+    public void updateShoppingListItem(ShoppingList.PantryItem item, String userId)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("updateShoppingListItem");
+        if (item.getShoppingDocId() == null || item.getShoppingDocId().isBlank()) {
+            throw new IllegalArgumentException("Item must have a shoppingDocId to update");
+        }
+
+        shoppingList(userId).document(item.getShoppingDocId()).update(shoppingListData(item)).get();
+        System.out.println("✏️ Updated shoppingList: " + item.getName() + " (" + item.getShoppingDocId() + ")");
+    }
+
+    /**
+     * @return Number of entries in the user's shopping list
+     */
+    public int countShoppingListItems(String userId) throws Exception {
+        assertNotFxThread("countShoppingListItems");
+        return QueryCache.get(userId, "shoppingList", "count", QueryCache.COUNT_TTL_MS,
+                () -> counter(userId, PantryCounters.SHOPPING_ITEMS));
+    }
+
+    /**
+     * @return Number of recipes flagged favorite in users/{userId}/recipes
+     */
+    public int countFavoriteRecipes(String userId) throws Exception {
+        assertNotFxThread("countFavoriteRecipes");
+        return QueryCache.get(userId, "recipes", "favoritesCount", QueryCache.COUNT_TTL_MS,
+                () -> counter(userId, PantryCounters.FAVORITES));
+    }
+
+    /**
+     * One counter from users/{userId}/meta/counters; a user without one yet gets a
+     * reconciliation (count() queries) that also creates it.
+     */
+    private static int counter(String userId, String field) throws Exception {
+        Long value = PantryCounters.read(db, userId).get(field);
+        if (value == null) value = PantryCounters.reconcile(db, userId).get(field);
+        return value.intValue();
+    }
+
+    /**
+     * Pantry item names only, trimmed and lower-cased.
+     * Uses a select("name") projection so the other fields never leave the server.
+     */
+    public List<String> getPantryItemNames(String userId) throws Exception {
+        assertNotFxThread("getPantryItemNames");
+        return QueryCache.get(userId, "pantryItems", "names", QueryCache.NAMES_TTL_MS, () -> {
+            List<String> names = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : pantryItems(userId).select("name").get().get().getDocuments()) {
+                String name = doc.getString("name");
+                if (name != null && !name.isBlank()) names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+            return List.copyOf(names);
+        });
+    }
+
+    private CollectionReference shoppingList(String userId) {
+        return db.collection("users").document(userId).collection("shoppingList");
+    }
+
+    private static Map<String, Object> shoppingListData(ShoppingList.PantryItem item) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("item", item.getName());
+        data.put("quantity", item.getQty());
+        data.put("unit", item.getUnit());
+        data.put("location", item.getLocation());
+        PantryDocCodec.putAmount(data, item.getExactAmount());
+        return data;
+    }
+
     // Recipe Methods
     public String addRecipe(RecipeItem recipe, String userId)
             throws ExecutionException, InterruptedException {
+        assertNotFxThread("addRecipe");
 
         Map<String,Object> data = new HashMap<>();
         data.put("name", recipe.getName());
@@ -254,12 +798,14 @@ public class FirebaseService {
                 .add(data);
 
         DocumentReference ref = future.get();
+        QueryCache.invalidate(userId, "recipes");
         System.out.println("✓ Added recipe: " + recipe.getName());
         return ref.getId();
     }
 
     public static ObservableList<RecipeItem> getRecipes(String userId)
             throws ExecutionException, InterruptedException {
+        assertNotFxThread("getRecipes");
 
         ObservableList<RecipeItem> list = FXCollections.observableArrayList();
         ApiFuture<QuerySnapshot> future = db.collection("users")
@@ -282,13 +828,61 @@ public class FirebaseService {
 
     public void deleteRecipe(String recipeId, String userId)
             throws ExecutionException, InterruptedException {
-
-        ApiFuture<WriteResult> res = db.collection("users")
-                .document(userId)
-                .collection("recipes")
-                .document(recipeId)
-                .delete();
-        res.get();
+        assertNotFxThread("deleteRecipe");
+
+        DocumentReference ref = db.collection("users").document(userId).collection("recipes").document(recipeId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot existing = tx.get(ref).get();
+            if (!existing.exists()) return null;
+            tx.delete(ref);
+            PantryCounters.apply(tx, db, userId, favoriteDelta(existing, false));
+            return null;
+        }).get();
+        QueryCache.invalidate(userId, "recipes");
         System.out.println("✓ Deleted recipe " + recipeId);
     }
+
+    /**
+     * Create or overwrite users/{userId}/recipes/{recipeId}
+     */
+    public void setRecipe(String recipeId, Map<String, Object> data, String userId)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("setRecipe");
+
+        writeRecipe(recipeId, data, userId, false);
+        System.out.println("✓ Saved recipe " + recipeId);
+    }
+
+    /**
+     * Merge fields into users/{userId}/recipes/{recipeId}, creating it if needed
+     */
+    public void mergeRecipe(String recipeId, Map<String, Object> data, String userId)
+            throws ExecutionException, InterruptedException {
+        assertNotFxThread("mergeRecipe");
+        writeRecipe(recipeId, data, userId, true);
+        System.out.println("✓ Updated recipe " + recipeId);
+    }
+
+    /** Set or merge a recipe and move the favorites counter by the change in its flag. */
+    private void writeRecipe(String recipeId, Map<String, Object> data, String userId, boolean merge)
+            throws ExecutionException, InterruptedException {
+        DocumentReference ref = db.collection("users").document(userId).collection("recipes").document(recipeId);
+        db.runTransaction(tx -> {
+            DocumentSnapshot existing = tx.get(ref).get();
+            boolean favorite = merge && !data.containsKey("favorite")
+                    ? existing.exists() && Boolean.TRUE.equals(existing.getBoolean("favorite"))
+                    : Boolean.TRUE.equals(data.get("favorite"));
+            if (merge) tx.set(ref, data, SetOptions.merge());
+            else tx.set(ref, data);
+            PantryCounters.apply(tx, db, userId, favoriteDelta(existing, favorite));
+            return null;
+        }).get();
+        QueryCache.invalidate(userId, "recipes");
+    }
+
+    private static Map<String, Long> favoriteDelta(DocumentSnapshot before, boolean favoriteAfter) {
+        boolean favoriteBefore = before.exists() && Boolean.TRUE.equals(before.getBoolean("favorite"));
+        if (favoriteBefore == favoriteAfter) return Map.of();
+        return Map.of(PantryCounters.FAVORITES, favoriteAfter ? 1L : -1L);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package Firebase;
+
+import Pantry.PantryItem;
+import Repository.PantryRepository;
+import Repository.Repositories;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Live cache of the signed-in user's pantry.
+ *
+ * Subscribes once per session through {@link PantryRepository#watch} and only applies the
+ * deltas it pushes to the in-memory map, so an edit costs one document instead of a full
+ * collection reload. With Firestore that is a snapshot listener plus a small first page.
+ * The observable list is only ever mutated on the JavaFX Application Thread, and a whole
+ * snapshot lands as one list change, so listeners re-render once per snapshot, not per item.
+ */
+public class PantryCache {
+    private static PantryCache instance;
+
+    // Position of every cached item in the list, by ID
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final ObservableList<PantryItem> items = FXCollections.observableArrayList();
+
+    private PantryRepository.Subscription subscription;
+    private volatile String userId;
+
+    private PantryCache() {
+    }
+
+    public static synchronized PantryCache getInstance() {
+        if (instance == null) {
+            instance = new PantryCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Start listening to the user's pantry. Calling this again for the same user is a no-op,
+     * calling it for a different user drops the old subscription and its cached items.
+     *
+     * @param userId The user's ID
+     */
+    public synchronized void subscribe(String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        if (subscription != null && userId.equals(this.userId)) {
+            return;
+        }
+        unsubscribe();
+
+        this.userId = userId;
+        subscription = Repositories.pantry().watch(userId, (upserted, removedIds) -> applyChanges(userId, upserted, removedIds));
+    }
+
+    /**
+     * Stop listening and clear the cached items (e.g. on logout).
+     */
+    public synchronized void unsubscribe() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+            System.out.println("📴 Unsubscribed pantry updates for user: " + userId);
+        }
+        userId = null;
+        runOnFxThread(() -> {
+            indexById.clear();
+            items.clear();
+        });
+    }
+
+    /**
+     * @return Live list of the subscribed user's pantry items (mutated on the FX thread only)
+     */
+    public ObservableList<PantryItem> getItems() {
+        return items;
+    }
+
+    public synchronized boolean isSubscribed(String userId) {
+        return subscription != null && userId != null && userId.equals(this.userId);
+    }
+
+    private void applyChanges(String changeUserId, List<PantryItem> upserted, List<String> removedIds) {
+        runOnFxThread(() -> {
+            // Ignore late events from a subscription that has since been replaced
+            if (!changeUserId.equals(userId)) return;
+            if (upserted.isEmpty() && removedIds.isEmpty()) return;
+
+            List<PantryItem> next = new ArrayList<>(items);
+            for (PantryItem item : upserted) {
+                Integer index = indexById.get(item.getId());
+                if (index != null) {
+                    next.set(index, item);
+                } else {
+                    indexById.put(item.getId(), next.size());
+                    next.add(item);
+                }
+            }
+            if (!removedIds.isEmpty()) {
+                Set<String> removed = new HashSet<>(removedIds);
+                next.removeIf(item -> removed.contains(item.getId()));
+                indexById.clear();
+                for (int i = 0; i < next.size(); i++) indexById.put(next.get(i).getId(), i);
+            }
+            // One list change for the whole snapshot
+            items.setAll(next);
+        });
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        if (Platform.isFxApplicationThread()) {
+            r.run();
+        } else {
+            Platform.runLater(r);
+        }
+    }
+}
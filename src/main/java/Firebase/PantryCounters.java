@@ -0,0 +1,167 @@
+package Firebase;
+
+import Pantry.PantryItem;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user badge counters kept in users/{userId}/meta/counters.
+ *
+ * Writers add FieldValue.increment deltas to the same batch or transaction as the mutation,
+ * so badges need one small document read instead of a collection download.
+ * Expiring and expired counts also drift as days pass without any write, and bulk writes
+ * apply their deltas in a second commit, so {@link #reconcile} recounts everything with
+ * count() queries once per session (low stock unions two ID-only queries, see {@link #reconcile}).
+ */
+public final class PantryCounters {
+    public static final String SHOPPING_ITEMS = "shoppingItems";
+    public static final String FAVORITES = "favorites";
+    public static final String EXPIRING = "expiring";
+    public static final String EXPIRED = "expired";
+    public static final String LOW_STOCK = "lowStock";
+    public static final List<String> FIELDS = List.of(SHOPPING_ITEMS, FAVORITES, EXPIRING, EXPIRED, LOW_STOCK);
+
+    // Same thresholds as the dashboard's item status
+    public static final int EXPIRING_DAYS = 7;
+    public static final int LOW_STOCK_MAX = 2;
+
+    private PantryCounters() {
+    }
+
+    public static DocumentReference ref(Firestore db, String userId) {
+        return db.collection("users").document(userId).collection("meta").document("counters");
+    }
+
+    /**
+     * @return The counters document's values; missing counters are absent from the map
+     */
+    public static Map<String, Long> read(Firestore db, String userId) throws Exception {
+        DocumentSnapshot doc = ref(db, userId).get().get();
+        Map<String, Long> values = new HashMap<>();
+        if (!doc.exists()) return values;
+        for (String field : FIELDS) {
+            Long value = doc.getLong(field);
+            if (value != null) values.put(field, Math.max(0, value));
+        }
+        return values;
+    }
+
+    // ===== Deltas =====
+
+    /** Which pantry counters the item contributes 1 to. */
+    static Map<String, Long> pantryFlags(PantryItem item) {
+        Map<String, Long> flags = new HashMap<>();
+        if (item == null) return flags;
+        LocalDate expiry = item.getExpires();
+        if (expiry != null) {
+            LocalDate today = LocalDate.now();
+            if (expiry.isBefore(today)) flags.put(EXPIRED, 1L);
+            else if (!expiry.isAfter(today.plusDays(EXPIRING_DAYS))) flags.put(EXPIRING, 1L);
+        }
+        // Same rule as the Recommended view: flagged low stock or at or below the threshold
+        if (item.isLowStock() || item.getQuantityNumeric() <= LOW_STOCK_MAX) flags.put(LOW_STOCK, 1L);
+        return flags;
+    }
+
+    /** Counter deltas for replacing before with after (either may be null). */
+    static Map<String, Long> pantryDelta(PantryItem before, PantryItem after) {
+        Map<String, Long> delta = new HashMap<>(pantryFlags(after));
+        pantryFlags(before).forEach((field, n) -> delta.merge(field, -n, Long::sum));
+        delta.values().removeIf(n -> n == 0);
+        return delta;
+    }
+
+    public static void apply(WriteBatch batch, Firestore db, String userId, Map<String, Long> delta) {
+        if (delta.isEmpty()) return;
+        batch.set(ref(db, userId), increments(delta), SetOptions.merge());
+    }
+
+    static void apply(Transaction tx, Firestore db, String userId, Map<String, Long> delta) {
+        if (delta.isEmpty()) return;
+        tx.set(ref(db, userId), increments(delta), SetOptions.merge());
+    }
+
+    private static Map<String, Object> increments(Map<String, Long> delta) {
+        Map<String, Object> data = new HashMap<>();
+        delta.forEach((field, n) -> data.put(field, FieldValue.increment(n)));
+        return data;
+    }
+
+    // ===== Reconciliation =====
+
+    /**
+     * Recount every counter from the collections and overwrite the counters document.
+     * The counts and the write run in one transaction, so an increment committed by a
+     * concurrent mutation is either included in the counts or applied after the overwrite,
+     * never lost.
+     */
+    public static Map<String, Long> reconcile(Firestore db, String userId) throws Exception {
+        FirebaseService.assertNotFxThread("counter reconciliation");
+        CollectionReference pantry = db.collection("users").document(userId).collection("pantryItems");
+        LocalDate today = LocalDate.now();
+
+        Map<String, Long> counts = db.runTransaction(tx -> {
+            Map<String, Long> c = new HashMap<>();
+            c.put(SHOPPING_ITEMS, count(tx, db.collection("users").document(userId).collection("shoppingList")));
+            c.put(FAVORITES, count(tx, db.collection("users").document(userId).collection("recipes")
+                    .whereEqualTo("favorite", true)));
+            c.put(EXPIRED, count(tx, pantry.whereLessThan("expiryDate", PantryDocCodec.toTimestamp(today))));
+            c.put(EXPIRING, count(tx, pantry
+                    .whereGreaterThanOrEqualTo("expiryDate", PantryDocCodec.toTimestamp(today))
+                    .whereLessThanOrEqualTo("expiryDate", PantryDocCodec.toTimestamp(today.plusDays(EXPIRING_DAYS)))));
+            c.put(LOW_STOCK, (long) ids(tx, pantry.whereLessThanOrEqualTo("quantity", LOW_STOCK_MAX),
+                    pantry.whereEqualTo("lowStock", true)).size());
+
+            Map<String, Object> data = new HashMap<>(c);
+            data.put("reconciledAt", com.google.cloud.Timestamp.now());
+            tx.set(ref(db, userId), data);
+            return c;
+        }).get();
+        System.out.println("✓ Reconciled counters for " + userId + ": " + counts);
+        return counts;
+    }
+
+    /** Reconcile on a daemon thread; failures are only logged. */
+    public static void reconcileInBackground(Firestore db, String userId) {
+        Thread t = new Thread(() -> {
+            try {
+                reconcile(db, userId);
+            } catch (Exception e) {
+                System.err.println("⚠ Counter reconciliation failed: " + e.getMessage());
+            }
+        }, "counter-reconcile");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static long count(Transaction tx, Query query) throws Exception {
+        return tx.get(query.count()).get().getCount();
+    }
+
+    /** Document IDs matching any of the queries; an item matching several is counted once. */
+    private static Set<String> ids(Transaction tx, Query... queries) throws Exception {
+        Set<String> ids = new HashSet<>();
+        for (Query query : queries) {
+            for (QueryDocumentSnapshot doc : tx.get(query.select(FieldPath.documentId())).get().getDocuments()) {
+                ids.add(doc.getId());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,197 @@
+package Firebase;
+
+import Pantry.PantryItem;
+import Pantry.Quantity;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The one place that knows how a pantry document (users/{userId}/pantryItems/{id}) looks.
+ *
+ * Schema version 2 (current):
+ *   name, quantity (number), quantityLabel, unit, category, location, lowStock,
+ *   expiryDate (Timestamp, start of day), dateAdded (Timestamp), schemaVersion = 2.
+ *
+ * Older documents used qty / quantityNumeric for the quantity and expiration / expirationDate
+ * for the expiry, stored as either an ISO date string or a Timestamp. Decoding accepts all
+ * of them; encoding only ever writes version 2. {@link PantrySchemaMigration} rewrites old
+ * documents so that queries on quantity and expiryDate see every item.
+ */
+public final class PantryDocCodec {
+    public static final int SCHEMA_VERSION = 2;
+
+    /** Fields that only exist on pre-version-2 documents. */
+    static final List<String> LEGACY_FIELDS = List.of("qty", "quantityNumeric", "expiration", "expirationDate");
+
+    private PantryDocCodec() {
+    }
+
+    // ===== Encode =====
+
+    /** Fields written when a pantry item is edited. */
+    public static Map<String, Object> encode(PantryItem item) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", item.getName());
+        data.put("quantity", item.getQuantityNumeric());
+        data.put("quantityLabel", item.getQuantityLabel());
+        data.put("unit", item.getUnit());
+        data.put("category", item.getCategory());
+        if (item.getLocation() != null) data.put("location", item.getLocation());
+        data.put("lowStock", item.isLowStock());
+        putAmount(data, item.getExactAmount());
+        data.put("expiryDate", toTimestamp(item.getExpires()));
+        data.put("schemaVersion", SCHEMA_VERSION);
+        return data;
+    }
+
+    /** Fields written when a pantry item is first created. */
+    public static Map<String, Object> encodeNew(PantryItem item) {
+        Map<String, Object> data = encode(item);
+        data.put("dateAdded", Timestamp.now());
+        if (item.getLocation() == null) data.put("location", "Pantry"); // Default location
+        return data;
+    }
+
+    /**
+     * The exact amount in base units (mg/µL/pieces) and its unit; shopping list entries store it
+     * the same way. Null clears one left by an earlier edit.
+     */
+    public static void putAmount(Map<String, Object> data, Quantity amount) {
+        data.put("amount", amount != null ? amount.getBase() : null);
+        data.put("amountUnit", amount != null ? amount.getUnit().name() : null);
+    }
+
+    /**
+     * Rewrite any version of a pantry document as version 2, removing the legacy fields.
+     * Meant for a merge write over the existing document.
+     */
+    static Map<String, Object> upgrade(Map<String, Object> raw) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("quantity", quantity(raw));
+        data.put("expiryDate", toTimestamp(expiry(raw)));
+        if (raw.get("location") == null && raw.get("category") instanceof String category) {
+            data.put("location", category);
+        }
+        if (raw.get("dateAdded") instanceof String s) {
+            data.put("dateAdded", toTimestamp(toLocalDate(s)));
+        }
+        for (String legacy : LEGACY_FIELDS) {
+            if (raw.containsKey(legacy)) data.put(legacy, FieldValue.delete());
+        }
+        data.put("schemaVersion", SCHEMA_VERSION);
+        return data;
+    }
+
+    public static boolean isCurrent(Map<String, Object> raw) {
+        return raw.get("schemaVersion") instanceof Number n && n.intValue() >= SCHEMA_VERSION;
+    }
+
+    // ===== Decode =====
+
+    /**
+     * @return The PantryItem, or null if the document could not be parsed
+     */
+    public static PantryItem decode(DocumentSnapshot document, String userId) {
+        Map<String, Object> data = document.getData();
+        return data == null ? null : decode(document.getId(), data, userId);
+    }
+
+    public static PantryItem decode(String id, Map<String, Object> data, String userId) {
+        try {
+            PantryItem item = new PantryItem();
+            item.setId(id);
+            item.setName((String) data.get("name"));
+            item.setQuantityNumeric(quantity(data));
+            item.setUnit((String) data.get("unit"));
+            item.setCategory((String) data.get("category"));
+            if (data.get("location") instanceof String location) item.setLocation(location);
+            item.setLowStock(Boolean.TRUE.equals(data.get("lowStock")));
+
+            // Build quantity label
+            item.setQuantityLabel(item.getQuantityNumeric() + " " + (item.getUnit() != null ? item.getUnit() : ""));
+            Quantity amount = amount(data);
+            if (amount != null) item.setAmount(amount);  // keeps the decimals, e.g. "1.5 lb"
+
+            item.setExpires(expiry(data));
+            item.setUserId(userId);
+            return item;
+        } catch (Exception e) {
+            System.err.println("❌ Error parsing document " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** A pantry document as a shopping list row (used by the Recommended view). */
+    public static ShoppingList.PantryItem decodeRow(Map<String, Object> data) {
+        Object location = data.get("location");
+        if (location == null) location = data.get("category");
+        ShoppingList.PantryItem row = new ShoppingList.PantryItem((String) data.get("name"), quantity(data),
+                (String) data.get("unit"), (String) location, expiry(data), Boolean.TRUE.equals(data.get("lowStock")));
+        Quantity amount = amount(data);
+        if (amount != null) row.setAmount(amount);
+        return row;
+    }
+
+    private static int quantity(Map<String, Object> data) {
+        for (String field : new String[]{"quantity", "qty", "quantityNumeric"}) {
+            if (data.get(field) instanceof Number n) return n.intValue();
+        }
+        return 0;
+    }
+
+    /**
+     * @return The amount written by {@link #putAmount}, or null
+     */
+    public static Quantity amount(Map<String, Object> data) {
+        if (!(data.get("amount") instanceof Number n) || !(data.get("amountUnit") instanceof String unit)) return null;
+        try {
+            return Quantity.ofBase(n.longValue(), Quantity.Unit.valueOf(unit));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate expiry(Map<String, Object> data) {
+        for (String field : new String[]{"expiryDate", "expiration", "expirationDate"}) {
+            LocalDate date = toLocalDate(data.get(field));
+            if (date != null) return date;
+        }
+        return null;
+    }
+
+    static Timestamp toTimestamp(LocalDate date) {
+        if (date == null) return null;
+        return Timestamp.of(Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+    }
+
+    /** Accepts a Timestamp, a Date, an ISO date ("2025-01-31") or an ISO instant string. */
+    public static LocalDate toLocalDate(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+        if (value instanceof Date dt) {
+            return dt.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+        if (value instanceof String s && !s.isBlank()) {
+            try {
+                return LocalDate.parse(s);
+            } catch (Exception ignore) {
+            }
+            try {
+                return Instant.parse(s).atZone(ZoneId.systemDefault()).toLocalDate();
+            } catch (Exception e) {
+                System.err.println("Could not parse expiry date: " + s);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package Firebase;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background job that rewrites a user's legacy pantry documents to the current
+ * {@link PantryDocCodec} schema.
+ *
+ * Walks users/{userId}/pantryItems in document-ID order, one page per batch write, and records
+ * its progress in users/{userId}/meta/migrations after every page. An interrupted run picks
+ * up after the last finished page; a finished run is remembered and skipped from then on.
+ */
+public class PantrySchemaMigration {
+    private static final int PAGE_SIZE = 200;
+    private static final String VERSION_FIELD = "pantrySchemaVersion";
+    private static final String CURSOR_FIELD = "pantryMigrationCursor";
+
+    // Users already migrated (or being migrated) in this session
+    private static final Set<String> started = ConcurrentHashMap.newKeySet();
+
+    private final Firestore db;
+    private final String userId;
+
+    public PantrySchemaMigration(Firestore db, String userId) {
+        this.db = db;
+        this.userId = userId;
+    }
+
+    /**
+     * Run the migration for the user on a daemon thread, at most once per session.
+     */
+    public static void startInBackground(Firestore db, String userId) {
+        startInBackground(db, userId, null);
+    }
+
+    /**
+     * Same as {@link #startInBackground(Firestore, String)}, then run afterwards on the same
+     * thread once the migration has finished.
+     */
+    public static void startInBackground(Firestore db, String userId, Runnable afterwards) {
+        if (!started.add(userId)) return;
+        Thread t = new Thread(() -> {
+            try {
+                new PantrySchemaMigration(db, userId).run();
+                if (afterwards != null) afterwards.run();
+            } catch (Exception e) {
+                started.remove(userId);  // try again next time the pantry is opened
+                System.err.println("⚠ Pantry schema migration stopped: " + e.getMessage());
+            }
+        }, "pantry-migration");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * @return Number of documents rewritten by this run
+     */
+    public int run() throws Exception {
+        FirebaseService.assertNotFxThread("pantry schema migration");
+        DocumentReference progressRef = db.collection("users").document(userId)
+                .collection("meta").document("migrations");
+
+        DocumentSnapshot progress = progressRef.get().get();
+        Long done = progress.getLong(VERSION_FIELD);
+        if (done != null && done >= PantryDocCodec.SCHEMA_VERSION) return 0;
+
+        String cursor = progress.getString(CURSOR_FIELD);
+        int rewritten = 0;
+        while (true) {
+            Query page = db.collection("users").document(userId).collection("pantryItems")
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            if (cursor != null) page = page.startAfter(cursor);
+
+            List<QueryDocumentSnapshot> docs = page.get().get().getDocuments();
+            if (docs.isEmpty()) break;
+
+            WriteBatch batch = db.batch();
+            int inBatch = 0;
+            for (QueryDocumentSnapshot doc : docs) {
+                if (PantryDocCodec.isCurrent(doc.getData())) continue;
+                batch.set(doc.getReference(), PantryDocCodec.upgrade(doc.getData()), SetOptions.merge());
+                inBatch++;
+            }
+            cursor = docs.get(docs.size() - 1).getId();
+
+            // The page's rewrites and the new cursor commit together, so a crash never skips a page
+            Map<String, Object> checkpoint = new HashMap<>();
+            checkpoint.put(CURSOR_FIELD, cursor);
+            batch.set(progressRef, checkpoint, SetOptions.merge());
+            batch.commit().get();
+            rewritten += inBatch;
+
+            if (docs.size() < PAGE_SIZE) break;
+        }
+
+        Map<String, Object> finished = new HashMap<>();
+        finished.put(VERSION_FIELD, PantryDocCodec.SCHEMA_VERSION);
+        finished.put(CURSOR_FIELD, null);
+        progressRef.set(finished, SetOptions.merge()).get();
+
+        QueryCache.invalidate(userId, "pantryItems");
+        System.out.println("✓ Pantry schema v" + PantryDocCodec.SCHEMA_VERSION + ": rewrote " + rewritten + " document(s)");
+        return rewritten;
+    }
+}
@@ -0,0 +1,52 @@
+package Firebase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache for cheap-but-frequent reads (projected name lists, count() aggregations).
+ *
+ * Keys are "{userId}/{collection}/{name}". Writes through FirebaseService invalidate every key
+ * of the collection they touch; code that writes to Firestore directly should call
+ * {@link #invalidate} itself.
+ */
+public final class QueryCache {
+    public static final long NAMES_TTL_MS = 30_000;
+    public static final long COUNT_TTL_MS = 15_000;
+
+    private record Entry(Object value, long expiresAt, long generation) {}
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that started before a write is not cached after it
+    private static final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    private QueryCache() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T get(String userId, String collection, String name, long ttlMs,
+                     AsyncFirebaseService.BlockingCall<T> loader) throws Exception {
+        String prefix = userId + "/" + collection + "/";
+        long generation = generations.getOrDefault(prefix, 0L);
+        Entry cached = entries.get(prefix + name);
+        if (cached != null && cached.generation() == generation && cached.expiresAt() > System.currentTimeMillis()) {
+            return (T) cached.value();
+        }
+
+        T value = loader.call();
+        if (generations.getOrDefault(prefix, 0L) == generation) {
+            entries.put(prefix + name, new Entry(value, System.currentTimeMillis() + ttlMs, generation));
+        }
+        return value;
+    }
+
+    /**
+     * Drop everything cached for users/{userId}/{collection}.
+     */
+    public static void invalidate(String userId, String collection) {
+        if (userId == null) return;
+        String prefix = userId + "/" + collection + "/";
+        generations.merge(prefix, 1L, Long::sum);
+        entries.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+}
@@ -0,0 +1,274 @@
+package Http;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The one HTTP client for every external API (product databases, recipe APIs, sign-in, Ollama).
+ *
+ * A single shared {@link HttpClient} keeps connections alive between calls and speaks HTTP/2
+ * where the server does. On top of it the gateway adds gzip, a limit on concurrent requests per
+ * host, and retries with jittered exponential backoff for GETs that failed on the network or
+ * with 502/503/504. Bodies are never buffered into strings: the caller's {@link BodyReader}
+ * parses straight from the (decompressed) response stream. A rate-limited caller passes a
+ * retry admission (e.g. {@link ProviderGuard#reserve}) so every retry is charged like a request.
+ *
+ * With -Dsmartpantry.debug every request is logged with its host, status and duration.
+ */
+public final class HttpGateway {
+    public static final String USER_AGENT = "SmartPantry/1.0 (+javafx)";
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_PER_HOST = Integer.getInteger("smartpantry.http.maxPerHost", 4);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = 4_000;
+    private static final boolean DEBUG = Boolean.getBoolean("smartpantry.debug");
+    // Retries of unguarded requests go out without asking anyone
+    private static final LongSupplier ALWAYS = () -> 0;
+
+    // Runs the HttpClient's callbacks and the body readers; daemon threads so they never block shutdown
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "http-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(POOL)
+            .build();
+
+    private static final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+    private HttpGateway() {
+    }
+
+    /** Parses a response body as it streams in. */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(int status, InputStream body) throws IOException;
+    }
+
+    /** Status code plus the body parsed with Gson (null for an empty or non-JSON body). */
+    public record JsonResponse(int status, JsonElement json) {
+        public boolean isOk() {
+            return status / 100 == 2;
+        }
+    }
+
+    /**
+     * A request builder with the gateway's defaults: timeout, gzip and User-Agent.
+     * Plain-http URLs (e.g. a local Ollama) stay on HTTP/1.1, which skips the h2c upgrade attempt.
+     */
+    public static HttpRequest.Builder request(String url) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(DEFAULT_TIMEOUT)
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", USER_AGENT);
+        if ("http".equalsIgnoreCase(uri.getScheme())) builder.version(HttpClient.Version.HTTP_1_1);
+        return builder;
+    }
+
+    /** GET a JSON document. */
+    public static CompletableFuture<JsonResponse> getJson(String url) {
+        return sendForJson(request(url).header("Accept", "application/json").GET().build());
+    }
+
+    public static CompletableFuture<JsonResponse> sendForJson(HttpRequest request) {
+        return sendForJson(request, ALWAYS);
+    }
+
+    /** {@link #sendForJson(HttpRequest)} with a retry admission, see {@link #send(HttpRequest, BodyReader, LongSupplier)}. */
+    public static CompletableFuture<JsonResponse> sendForJson(HttpRequest request, LongSupplier admitRetry) {
+        return send(request, (status, body) -> {
+            try {
+                return new JsonResponse(status, JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                return new JsonResponse(status, null);  // e.g. an HTML error page
+            }
+        }, admitRetry);
+    }
+
+    /**
+     * Send a request and parse its body with the reader.
+     * Cancelling the returned future aborts the request in flight.
+     */
+    public static <T> CompletableFuture<T> send(HttpRequest request, BodyReader<T> reader) {
+        return send(request, reader, ALWAYS);
+    }
+
+    /**
+     * Like {@link #send(HttpRequest, BodyReader)}, but each retry must first be admitted.
+     *
+     * @param admitRetry Called before every retry; returns ms to wait before sending it, or -1
+     *                   to give up and finish with the current attempt's outcome
+     */
+    public static <T> CompletableFuture<T> send(HttpRequest request, BodyReader<T> reader, LongSupplier admitRetry) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<>();
+        result.whenComplete((v, error) -> {
+            CompletableFuture<?> current = inFlight.get();
+            if (result.isCancelled() && current != null) current.cancel(true);
+        });
+        attempt(request, reader, admitRetry, 1, result, inFlight);
+        return result;
+    }
+
+    private static <T> void attempt(HttpRequest request, BodyReader<T> reader, LongSupplier admitRetry, int attempt,
+                                    CompletableFuture<T> result, AtomicReference<CompletableFuture<?>> inFlight) {
+        if (result.isDone()) return;
+        HostLimiter limiter = limiters.computeIfAbsent(request.uri().getHost(), h -> new HostLimiter(MAX_PER_HOST));
+        limiter.run(() -> {
+            if (result.isDone()) {
+                limiter.release();
+                return;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<InputStream>> call;
+            try {
+                call = CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (RuntimeException e) {
+                limiter.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            inFlight.set(call);
+            if (result.isCancelled()) call.cancel(true);
+
+            call.whenCompleteAsync((response, error) -> {
+                try {
+                    if (error != null) {
+                        log(request, "failed: " + unwrap(error).getMessage(), start);
+                        long wait = shouldRetry(request, attempt, null, unwrap(error)) ? admitRetry.getAsLong() : -1;
+                        if (wait >= 0) {
+                            retryLater(request, reader, admitRetry, attempt, wait, result, inFlight);
+                        } else {
+                            result.completeExceptionally(unwrap(error));
+                        }
+                        return;
+                    }
+                    int status = response.statusCode();
+                    try (InputStream body = decode(response)) {
+                        long wait = shouldRetry(request, attempt, status, null) ? admitRetry.getAsLong() : -1;
+                        if (wait >= 0) {
+                            log(request, status + ", retrying", start);
+                            retryLater(request, reader, admitRetry, attempt, wait, result, inFlight);
+                            return;
+                        }
+                        T value = reader.read(status, body);
+                        log(request, String.valueOf(status), start);
+                        result.complete(value);
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    limiter.release();
+                }
+            }, POOL);
+        });
+    }
+
+    /**
+     * @param minDelay The least wait the retry's admission asked for
+     */
+    private static <T> void retryLater(HttpRequest request, BodyReader<T> reader, LongSupplier admitRetry, int attempt,
+                                       long minDelay, CompletableFuture<T> result,
+                                       AtomicReference<CompletableFuture<?>> inFlight) {
+        // Full jitter: a random wait up to the exponential cap, so clients do not retry in lockstep
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+        long delay = Math.max(minDelay, ThreadLocalRandom.current().nextLong(cap + 1));
+        CompletableFuture.runAsync(() -> attempt(request, reader, admitRetry, attempt + 1, result, inFlight),
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, POOL));
+    }
+
+    /**
+     * Only GETs are retried, so a POST (e.g. a sign-in) is never sent twice.
+     * 429 is not retried here: the caller decides what a rate limit means for it.
+     */
+    private static boolean shouldRetry(HttpRequest request, int attempt, Integer status, Throwable error) {
+        if (attempt >= MAX_ATTEMPTS || !"GET".equals(request.method())) return false;
+        if (error != null) return error instanceof IOException;
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(enc -> enc.equalsIgnoreCase("gzip")).orElse(false);
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static void log(HttpRequest request, String outcome, long startNanos) {
+        if (!DEBUG) return;
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("🌐 " + request.method() + " " + request.uri().getHost() + request.uri().getPath()
+                + " → " + outcome + " (" + ms + " ms)");
+    }
+
+    /** Caps concurrent requests to one host; requests over the cap wait their turn without blocking a thread. */
+    private static final class HostLimiter {
+        private final int limit;
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int active;
+
+        HostLimiter(int limit) {
+            this.limit = limit;
+        }
+
+        void run(Runnable task) {
+            boolean now;
+            synchronized (this) {
+                now = active < limit;
+                if (now) active++;
+                else waiting.add(task);
+            }
+            if (now) task.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) active--;
+            }
+            if (next != null) POOL.execute(next);  // the permit passes straight to the next request
+        }
+    }
+}
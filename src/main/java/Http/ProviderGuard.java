@@ -0,0 +1,243 @@
+package Http;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for a rate-limited API (UPCItemDB's trial tier, Spoonacular's free plan).
+ *
+ * Three checks before a request may go out:
+ *  - a circuit breaker that opens on 402/429. While open, callers go straight to their fallback
+ *    instead of spending a round trip on a certain refusal. Once the cool-down is over, the
+ *    breaker is half-open and lets a single probe through: success closes it, another 402/429
+ *    opens it again for twice as long;
+ *  - a daily quota. Usage is counted per UTC day and persisted in ~/.smartpantry/quota.json,
+ *    so restarting the app does not reset it;
+ *  - a token bucket that spreads bursts out to the provider's per-minute limit. A request
+ *    that would wait longer than MAX_WAIT for a token is refused instead.
+ */
+public final class ProviderGuard {
+    private static final long MAX_WAIT_MS = 2_000;
+    private static final long MIN_OPEN_MS = 60_000;
+    private static final Path STATE_FILE = Paths.get(System.getProperty("user.home"), ".smartpantry", "quota.json");
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    /** What survives a restart, per provider. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class SavedState {
+        public String day;
+        public int used;
+        public long openUntil;
+        public long openMs;
+    }
+
+    /** Thrown (inside a failed future) when a request is refused without being sent. */
+    public static class UnavailableException extends IOException {
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private static Map<String, SavedState> saved;
+
+    private final String name;
+    private final int dailyLimit;
+    private final double bucketCapacity;
+    private final double tokensPerMs;
+
+    // Guarded by "this"
+    private double tokens;
+    private long lastRefill = System.currentTimeMillis();
+    private BreakerState breaker = BreakerState.CLOSED;
+    private boolean probeInFlight;
+    private final SavedState state;
+
+    /**
+     * @param name        Key in the state file
+     * @param dailyLimit  Requests allowed per UTC day
+     * @param burst       Requests allowed back to back
+     * @param refillEvery Time for the bucket to refill by burst requests
+     */
+    public ProviderGuard(String name, int dailyLimit, int burst, Duration refillEvery) {
+        this.name = name;
+        this.dailyLimit = dailyLimit;
+        this.bucketCapacity = burst;
+        this.tokensPerMs = (double) burst / refillEvery.toMillis();
+        this.tokens = burst;
+        this.state = savedState(name);
+        if (state.openUntil > System.currentTimeMillis()) breaker = BreakerState.OPEN;
+    }
+
+    /**
+     * @return False if a request would be refused right now (no side effects)
+     */
+    public synchronized boolean isAvailable() {
+        long now = System.currentTimeMillis();
+        rollDay();
+        if (state.used >= dailyLimit) return false;
+        if (breaker == BreakerState.OPEN) return now >= state.openUntil;
+        return breaker != BreakerState.HALF_OPEN || !probeInFlight;
+    }
+
+    /**
+     * Take a token and a unit of daily quota.
+     *
+     * @return Milliseconds to wait before sending, or -1 if the request must not be sent
+     */
+    public synchronized long reserve() {
+        long now = System.currentTimeMillis();
+        rollDay();
+        if (state.used >= dailyLimit) return -1;
+
+        if (breaker == BreakerState.OPEN) {
+            if (now < state.openUntil) return -1;
+            breaker = BreakerState.HALF_OPEN;
+            System.out.println("🔌 " + name + " circuit half-open, sending a probe");
+        }
+        if (breaker == BreakerState.HALF_OPEN) {
+            if (probeInFlight) return -1;
+            probeInFlight = true;
+        }
+
+        tokens = Math.min(bucketCapacity, tokens + (now - lastRefill) * tokensPerMs);
+        lastRefill = now;
+        long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMs);
+        if (wait > MAX_WAIT_MS) {
+            probeInFlight = false;
+            return -1;
+        }
+        tokens -= 1;  // may go negative: later callers wait behind this one
+
+        state.used++;
+        save();
+        return wait;
+    }
+
+    /**
+     * Blocking form of {@link #reserve}, for callers already on a background thread.
+     *
+     * @return False if the request must not be sent
+     */
+    public boolean acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait < 0) return false;
+        if (wait > 0) Thread.sleep(wait);
+        return true;
+    }
+
+    /**
+     * Run an async request once admitted, or fail with {@link UnavailableException} right away.
+     * Cancelling the returned future cancels the request.
+     */
+    public <T> CompletableFuture<T> schedule(Supplier<CompletableFuture<T>> request) {
+        long wait = reserve();
+        if (wait < 0) {
+            return CompletableFuture.failedFuture(new UnavailableException(name + " is rate limited or out of quota"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            if (result.isDone()) {
+                recordFailure();
+                return;
+            }
+            CompletableFuture<T> call = request.get();
+            result.whenComplete((v, e) -> {
+                if (result.isCancelled()) call.cancel(true);
+            });
+            call.whenComplete((v, e) -> {
+                if (e != null) result.completeExceptionally(e);
+                else result.complete(v);
+            });
+        }, CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    /**
+     * Report the status code of a request that was admitted.
+     */
+    public synchronized void record(int status) {
+        probeInFlight = false;
+        if (status == 402 || status == 429) {
+            trip(status);
+        } else if (status / 100 == 2 || status == 404) {
+            if (breaker != BreakerState.CLOSED) System.out.println("✓ " + name + " circuit closed");
+            breaker = BreakerState.CLOSED;
+            state.openMs = 0;
+            state.openUntil = 0;
+            save();
+        }
+    }
+
+    /** Report an admitted request that got no response (network error, cancellation). */
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+    }
+
+    private void trip(int status) {
+        long now = System.currentTimeMillis();
+        // 402 means the key's daily allowance is spent: nothing will change before the quota resets
+        long untilReset = LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() - now;
+        state.openMs = status == 402
+                ? untilReset
+                : Math.min(untilReset, Math.max(MIN_OPEN_MS, state.openMs * 2));
+        state.openUntil = now + state.openMs;
+        breaker = BreakerState.OPEN;
+        save();
+        System.err.println("⛔ " + name + " answered HTTP " + status + ", circuit open for "
+                + Duration.ofMillis(state.openMs).toMinutes() + " min");
+    }
+
+    private void rollDay() {
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+        if (!today.equals(state.day)) {
+            state.day = today;
+            state.used = 0;
+        }
+    }
+
+    // ===== Persistence (one file shared by every provider) =====
+
+    private static synchronized SavedState savedState(String name) {
+        if (saved == null) {
+            saved = new HashMap<>();
+            if (Files.exists(STATE_FILE)) {
+                try {
+                    saved.putAll(mapper.readValue(STATE_FILE.toFile(), new TypeReference<Map<String, SavedState>>() {}));
+                } catch (IOException e) {
+                    System.err.println("⚠ Unreadable quota file, starting fresh: " + e.getMessage());
+                }
+            }
+        }
+        return saved.computeIfAbsent(name, k -> new SavedState());
+    }
+
+    private void save() {
+        synchronized (ProviderGuard.class) {
+            try {
+                Files.createDirectories(STATE_FILE.getParent());
+                Path tmp = Files.createTempFile(STATE_FILE.getParent(), "quota", ".tmp");
+                mapper.writeValue(tmp.toFile(), saved);
+                Files.move(tmp, STATE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("⚠ Could not save quota state: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package Pantry;
 
 import com.github.sarxos.webcam.Webcam;
-import com.google.zxing.*;
-import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
-import com.google.zxing.common.HybridBinarizer;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.google.zxing.Result;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.util.Duration;
 
 
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -28,9 +41,22 @@ import java.util.function.Consumer;
  */
 public class CameraBarcodeScanner {
 
+    private static final int DECODERS = Math.max(1, Integer.getInteger("smartpantry.camera.decoders", 1));
+    // Fraction of the frame's width and height, around its center, that is decoded (1 = whole frame)
+    private static final double ROI = roi(System.getProperty("smartpantry.camera.roi", "1"));
+    // In continuous mode, a barcode seen again within this many ms of its last sighting is the same item
+    private static final long REPEAT_WINDOW_MS = Long.getLong("smartpantry.camera.repeatWindowMs", 2000);
+
     private Webcam webcam;
     private AtomicBoolean scanning = new AtomicBoolean(false);
+    private final AtomicBoolean detected = new AtomicBoolean(false);
     private Thread scannerThread;
+    private boolean continuous;
+    private RecentCodes recentCodes;
+    private int streamed;
+    private FrameSlot frames;
+    private final AtomicReference<CameraFrame> previewFrame = new AtomicReference<>();
+    private AnimationTimer previewTimer;
     private Stage scannerStage;
     private ImageView imageView;
     private Label statusLabel;
@@ -40,26 +66,48 @@ public class CameraBarcodeScanner {
      * @param onBarcodeDetected Callback when barcode is found
      */
     public void startScanning(Consumer<String> onBarcodeDetected) {
+        start(onBarcodeDetected, false);
+    }
+
+    /**
+     * Keep the camera open and report every barcode it sees, several per frame if needed,
+     * until the user closes the window. A barcode that stays in view (or comes back within
+     * -Dsmartpantry.camera.repeatWindowMs, default 2000) is reported once.
+     * @param onBarcode Called on the JavaFX Application Thread for each new barcode
+     */
+    public void startContinuousScanning(Consumer<String> onBarcode) {
+        start(onBarcode, true);
+    }
+
+    private void start(Consumer<String> onBarcodeDetected, boolean continuous) {
         // IMPORTANT: Ensure we're on the JavaFX Application Thread
         if (!Platform.isFxApplicationThread()) {
-            Platform.runLater(() -> startScanning(onBarcodeDetected));
+            Platform.runLater(() -> start(onBarcodeDetected, continuous));
             return;
         }
+        this.continuous = continuous;
 
-        // Check if webcam is available
-        webcam = Webcam.getDefault();
-        if (webcam == null) {
-            javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
-                    javafx.scene.control.Alert.AlertType.ERROR
-            );
-            alert.setTitle("Camera Not Found");
-            alert.setHeaderText("No webcam detected");
-            alert.setContentText("Please connect a webcam and try again.");
-            alert.showAndWait();
-            return;
-        }
-
-        createScannerWindow(onBarcodeDetected);
+        // The camera list is usually cached from startup; discovery never runs on the FX thread
+        CameraManager.getInstance().choose().whenComplete((camera, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+            }
+            // Check if webcam is available
+            if (camera == null) {
+                javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+                        javafx.scene.control.Alert.AlertType.ERROR
+                );
+                alert.setTitle("Camera Not Found");
+                alert.setHeaderText("No webcam detected");
+                alert.setContentText("Please connect a webcam and try again.");
+                alert.showAndWait();
+                // Look again next time, in case one gets plugged in
+                CameraManager.getInstance().rediscover();
+                return;
+            }
+            webcam = camera;
+            createScannerWindow(onBarcodeDetected);
+        }));
     }
 
     /**
@@ -78,7 +126,9 @@ public class CameraBarcodeScanner {
         imageView.setStyle("-fx-border-color: #2f7a64; -fx-border-width: 3;");
 
         // Status label
-        statusLabel = new Label("Scanning... Hold barcode in front of camera");
+        statusLabel = new Label(continuous
+                ? "Scanning... Sweep the camera across your items"
+                : "Scanning... Hold barcode in front of camera");
         statusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #2f7a64; -fx-font-weight: bold;");
 
         // Instruction label
@@ -89,8 +139,8 @@ public class CameraBarcodeScanner {
         );
         instructionLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #666;");
 
-        // Cancel button
-        Button cancelButton = new Button("Cancel");
+        // Cancel button (in continuous mode everything seen so far is already reported)
+        Button cancelButton = new Button(continuous ? "Done" : "Cancel");
         cancelButton.setStyle(
                 "-fx-background-color: #e0e0e0; -fx-text-fill: #333; " +
                         "-fx-font-weight: bold; -fx-padding: 10 30;"
@@ -105,7 +155,8 @@ public class CameraBarcodeScanner {
                         "-fx-font-weight: bold; -fx-padding: 10 30;"
         );
         manualButton.setOnAction(e -> {
-            stopScanning();
+            // Continuous scanning goes on behind the dialog
+            if (!continuous) stopScanning();
             showManualEntry(onBarcodeDetected);
         });
 
@@ -116,6 +167,18 @@ public class CameraBarcodeScanner {
 
         // Layout
         VBox topBox = new VBox(10, statusLabel, instructionLabel);
+
+        // Camera picker, when there is a choice; the pick is remembered for next time
+        List<Webcam> cameras = CameraManager.getInstance().getCachedCameras();
+        if (cameras.size() > 1) {
+            ComboBox<String> cameraBox = new ComboBox<>();
+            for (Webcam camera : cameras) {
+                cameraBox.getItems().add(camera.getName());
+            }
+            cameraBox.setValue(webcam.getName());
+            cameraBox.setOnAction(e -> switchCamera(cameraBox.getValue(), onBarcodeDetected));
+            topBox.getChildren().add(cameraBox);
+        }
         topBox.setAlignment(Pos.CENTER);
         topBox.setPadding(new Insets(15));
         topBox.setStyle("-fx-background-color: #f5f5f5;");
@@ -137,63 +200,54 @@ public class CameraBarcodeScanner {
     }
 
     /**
-     * Start the camera and begin scanning for barcodes
+     * Start the camera and begin scanning for barcodes.
+     *
+     * Three stages run side by side so a hard-to-read barcode never stalls the preview:
+     * a capture thread reads frames as fast as the camera delivers them into a one-frame
+     * slot, decoder threads (-Dsmartpantry.camera.decoders, default 1) always take the
+     * newest frame and skip stale ones, and the preview is redrawn at most once per
+     * JavaFX pulse with whatever frame is newest.
      */
     private void startCamera(Consumer<String> onBarcodeDetected) {
         scanning.set(true);
+        detected.set(false);
+        recentCodes = new RecentCodes(REPEAT_WINDOW_MS);
+        streamed = 0;
+        frames = new FrameSlot();
+        release(previewFrame.getAndSet(null));
 
+        startPreview();
+
+        FrameSlot slot = frames;
+        Webcam camera = webcam;
         scannerThread = new Thread(() -> {
             try {
-                // Open webcam
-                webcam.setViewSize(new java.awt.Dimension(640, 480));
-                webcam.open();
-
-                // Create barcode reader
-                MultiFormatReader reader = new MultiFormatReader();
-
-                while (scanning.get()) {
-                    if (webcam.isOpen()) {
-                        BufferedImage image = webcam.getImage();
-
-                        if (image != null) {
-                            // Update camera preview on JavaFX thread
-                            Platform.runLater(() ->
-                                    imageView.setImage(SwingFXUtils.toFXImage(image, null))
-                            );
-
-                            // Try to decode barcode
-                            try {
-                                LuminanceSource source = new BufferedImageLuminanceSource(image);
-                                BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-                                Result result = reader.decode(bitmap);
-
-                                if (result != null) {
-                                    String barcode = result.getText();
-
-                                    // Barcode found!
-                                    Platform.runLater(() -> {
-                                        statusLabel.setText("✓ Barcode detected: " + barcode);
-                                        statusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: green; -fx-font-weight: bold;");
-                                    });
-
-                                    // Wait a moment so user can see the success message
-                                    Thread.sleep(500);
-
-                                    // Stop scanning and return result
-                                    stopScanning();
-                                    Platform.runLater(() -> onBarcodeDetected.accept(barcode));
-                                    break;
-                                }
-                            } catch (NotFoundException e) {
-                                // No barcode in this frame, continue scanning
-                            } catch (ReaderException e) {
-                                // Decoding error, continue scanning
-                            }
-                        }
-                    }
+                // Open webcam, or reuse it if still open from the last scan
+                CameraManager.getInstance().open(camera, new java.awt.Dimension(640, 480));
 
-                    // Small delay to prevent high CPU usage
-                    Thread.sleep(100);
+                for (int i = 0; i < DECODERS; i++) {
+                    Thread decoder = new Thread(() -> decodeFrames(slot, onBarcodeDetected), "barcode-decoder-" + (i + 1));
+                    decoder.setDaemon(true);
+                    decoder.start();
+                }
+
+                java.awt.Dimension size = camera.getViewSize();
+                CameraFrame.Pool pool = new CameraFrame.Pool(size.width, size.height);
+                // Most drivers can copy raw bytes straight into our buffer; the rest go through a BufferedImage
+                boolean rawBytes = camera.getDevice() instanceof WebcamDevice.BufferAccess;
+
+                // Reading waits for the camera's next frame, so this loop runs at the camera's rate
+                while (scanning.get() && camera.isOpen()) {
+                    CameraFrame frame = pool.acquire();
+                    if (!readFrame(camera, frame, rawBytes)) {
+                        frame.retain(1);
+                        frame.release();
+                        continue;
+                    }
+                    // One reference for the preview, one for a decoder
+                    frame.retain(2);
+                    release(previewFrame.getAndSet(frame));
+                    slot.offer(frame);
                 }
 
             } catch (Exception e) {
@@ -203,28 +257,199 @@ public class CameraBarcodeScanner {
                     statusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: red; -fx-font-weight: bold;");
                 });
             } finally {
-                if (webcam != null && webcam.isOpen()) {
-                    webcam.close();
+                slot.close();
+                if (slot.getDropped() > 0) {
+                    System.out.println("📷 Skipped " + slot.getDropped() + " stale frame(s) while decoding");
                 }
+                // Kept open for a while, so the next scan starts right away
+                CameraManager.getInstance().release(camera);
             }
-        });
+        }, "camera-capture");
 
         scannerThread.setDaemon(true);
         scannerThread.start();
     }
 
     /**
-     * Stop scanning and close camera
+     * @return False if the camera had no frame to give
      */
-    private void stopScanning() {
+    private boolean readFrame(Webcam camera, CameraFrame frame, boolean rawBytes) {
+        if (rawBytes) {
+            ByteBuffer rgb = frame.getRgb();
+            rgb.clear();
+            camera.getImageBytes(rgb);
+            rgb.clear();
+            return true;
+        }
+        BufferedImage image = camera.getImage();
+        if (image == null || image.getWidth() != frame.getWidth() || image.getHeight() != frame.getHeight()) {
+            return false;
+        }
+        frame.fill(image);
+        return true;
+    }
+
+    private static void release(CameraFrame frame) {
+        if (frame != null) {
+            frame.release();
+        }
+    }
+
+    private static double roi(String value) {
+        try {
+            double roi = Double.parseDouble(value);
+            return roi > 0 && roi <= 1 ? roi : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Decoder loop: decode the newest frame until a barcode is found or scanning stops.
+     */
+    private void decodeFrames(FrameSlot slot, Consumer<String> onBarcodeDetected) {
+        // Readers are not thread-safe, so every decoder thread has its own
+        FrameDecoder decoder = new FrameDecoder(ROI, continuous);
+        // Skips frames that are blurry or show nothing new (see MotionGate for the settings)
+        MotionGate gate = MotionGate.fromSettings();
+
+        try {
+            CameraFrame frame;
+            while (scanning.get() && !detected.get() && (frame = slot.take()) != null) {
+                long now = System.nanoTime() / 1_000_000;
+                Result[] results;
+                try {
+                    if (gate != null && !gate.shouldDecode(frame, now)) continue;
+                    results = decoder.decode(frame);
+                } finally {
+                    frame.release();
+                }
+                if (gate != null) gate.decoded(results.length > 0);
+
+                if (continuous) {
+                    for (Result result : results) {
+                        if (recentCodes.accept(result.getText(), now)) {
+                            onStreamed(result.getText(), onBarcodeDetected);
+                        }
+                    }
+                } else if (results.length > 0 && detected.compareAndSet(false, true)) {
+                    // Only the first decoder to find a barcode reports it
+                    onDetected(results[0].getText(), onBarcodeDetected);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (gate != null && gate.getFrames() > 0) {
+                System.out.println("📷 Motion gate skipped " + gate.getSkipped() + " of " + gate.getFrames() + " frame(s)");
+            }
+        }
+    }
+
+    /**
+     * Show the barcode for a moment, then close the scanner and return it.
+     */
+    private void onDetected(String barcode, Consumer<String> onBarcodeDetected) {
+        Platform.runLater(() -> {
+            statusLabel.setText("✓ Barcode detected: " + barcode);
+            statusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: green; -fx-font-weight: bold;");
+
+            // Wait a moment so user can see the success message
+            PauseTransition pause = new PauseTransition(Duration.millis(500));
+            pause.setOnFinished(e -> {
+                stopScanning();
+                onBarcodeDetected.accept(barcode);
+            });
+            pause.play();
+        });
+    }
+
+    /**
+     * Continuous mode: report the barcode and keep scanning.
+     */
+    private void onStreamed(String barcode, Consumer<String> onBarcode) {
+        Platform.runLater(() -> {
+            if (!scanning.get()) return;
+            streamed++;
+            statusLabel.setText("✓ " + streamed + " scanned - last: " + barcode);
+            statusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: green; -fx-font-weight: bold;");
+            onBarcode.accept(barcode);
+        });
+    }
+
+    /**
+     * Redraw the preview once per pulse (the display's refresh rate) if a new frame arrived.
+     * The frame is copied into the same image every time, and because the timer polls the newest
+     * frame instead of frames queueing updates, there is never more than one update pending.
+     */
+    private void startPreview() {
+        Preview preview = new Preview();
+        previewTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                CameraFrame frame = previewFrame.getAndSet(null);
+                if (frame != null) {
+                    WritableImage fxImage = preview.update(frame);
+                    frame.release();
+                    if (imageView.getImage() != fxImage) {
+                        imageView.setImage(fxImage);
+                    }
+                }
+            }
+        };
+        previewTimer.start();
+    }
+
+    /**
+     * Stop this camera's capture and decoders, then start again with the named camera.
+     */
+    private void switchCamera(String name, Consumer<String> onBarcodeDetected) {
+        Webcam next = CameraManager.getInstance().find(name);
+        if (next == null || next == webcam || !scanning.get()) return;
+        CameraManager.getInstance().setPreferredName(name);
+
         scanning.set(false);
+        frames.close();
+        previewTimer.stop();
+        statusLabel.setText("Switching to " + name + "...");
 
-        if (webcam != null && webcam.isOpen()) {
-            webcam.close();
+        Thread previous = scannerThread;
+        Thread waiter = new Thread(() -> {
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Platform.runLater(() -> {
+                if (!scannerStage.isShowing()) return;
+                webcam = next;
+                statusLabel.setText(continuous
+                        ? "Scanning... Sweep the camera across your items"
+                        : "Scanning... Hold barcode in front of camera");
+                startCamera(onBarcodeDetected);
+            });
+        }, "camera-switch");
+        waiter.setDaemon(true);
+        waiter.start();
+    }
+
+    /**
+     * Stop scanning and hand the camera back
+     */
+    private void stopScanning() {
+        scanning.set(false);
+        if (frames != null) {
+            frames.close();
         }
+        // The capture thread hands the camera back to CameraManager once its current frame is read
 
         if (scannerStage != null) {
             Platform.runLater(() -> {
+                if (previewTimer != null) {
+                    previewTimer.stop();
+                }
                 if (scannerStage.isShowing()) {
                     scannerStage.close();
                 }
@@ -232,6 +457,123 @@ public class CameraBarcodeScanner {
         }
     }
 
+    /**
+     * A preview image backed by one pixel buffer that is updated in place. Only touched on the
+     * JavaFX Application Thread.
+     */
+    static class Preview {
+        private IntBuffer pixels;
+        private PixelBuffer<IntBuffer> pixelBuffer;
+        private WritableImage image;
+        private int[] row = new int[0];
+
+        /** Copy the frame into the preview image; a new image is only made when the frame size changes. */
+        WritableImage update(CameraFrame frame) {
+            int width = frame.getWidth();
+            int height = frame.getHeight();
+            if (image == null || pixelBuffer.getWidth() != width || pixelBuffer.getHeight() != height) {
+                pixels = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+                pixelBuffer = new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+                image = new WritableImage(pixelBuffer);
+                row = new int[width];
+            }
+            pixelBuffer.updateBuffer(b -> {
+                copy(frame.getRgb(), width, height);
+                return null; // the whole frame changed
+            });
+            return image;
+        }
+
+        private void copy(ByteBuffer rgb, int width, int height) {
+            pixels.clear();
+            int i = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, i += 3) {
+                    row[x] = 0xFF000000 | (rgb.get(i) & 0xFF) << 16 | (rgb.get(i + 1) & 0xFF) << 8 | (rgb.get(i + 2) & 0xFF);
+                }
+                pixels.put(row, 0, width);
+            }
+            pixels.flip();
+        }
+    }
+
+    /**
+     * Barcodes seen recently. A barcode counts as new unless it was last seen less than the window
+     * ago; every sighting restarts its window, so an item held in view is reported once.
+     */
+    static class RecentCodes {
+        private final long windowMillis;
+        // Oldest sighting first
+        private final LinkedHashMap<String, Long> lastSeen = new LinkedHashMap<>();
+
+        RecentCodes(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        /** @return True if the barcode was not seen within the window before now */
+        synchronized boolean accept(String barcode, long nowMillis) {
+            Iterator<Map.Entry<String, Long>> oldest = lastSeen.entrySet().iterator();
+            while (oldest.hasNext() && nowMillis - oldest.next().getValue() >= windowMillis) {
+                oldest.remove();
+            }
+            // UPC-A and EAN-13 reads of the same product are the same item
+            String gtin = Gtin.normalize(barcode);
+            String key = gtin != null ? gtin : barcode;
+            boolean isNew = lastSeen.remove(key) == null;
+            lastSeen.put(key, nowMillis);
+            return isNew;
+        }
+    }
+
+    /**
+     * Holds only the newest frame: a frame nobody took yet is replaced (dropped) by the next.
+     */
+    static class FrameSlot {
+        private CameraFrame frame;
+        private long dropped;
+        private boolean closed;
+
+        void offer(CameraFrame next) {
+            CameraFrame stale;
+            synchronized (this) {
+                if (closed) {
+                    stale = next;
+                } else {
+                    stale = frame;
+                    if (stale != null) dropped++;
+                    frame = next;
+                    notifyAll();
+                }
+            }
+            release(stale);
+        }
+
+        /** @return The newest frame, waiting for one if needed, or null once closed. The caller releases it. */
+        synchronized CameraFrame take() throws InterruptedException {
+            while (frame == null && !closed) {
+                wait();
+            }
+            CameraFrame next = frame;
+            frame = null;
+            return next;
+        }
+
+        void close() {
+            CameraFrame stale;
+            synchronized (this) {
+                closed = true;
+                stale = frame;
+                frame = null;
+                notifyAll();
+            }
+            release(stale);
+        }
+
+        synchronized long getDropped() {
+            return dropped;
+        }
+    }
+
     /**
      * Show manual barcode entry dialog
      */
@@ -0,0 +1,100 @@
+package Pantry;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One camera frame as packed R, G, B bytes in a direct buffer, recycled through a {@link Pool}.
+ *
+ * A frame can be read by several stages at once (the decoder and the preview); each one calls
+ * {@link #release()} when done, and the last release returns the frame to its pool.
+ */
+public class CameraFrame {
+    private final ByteBuffer rgb;
+    private final int width;
+    private final int height;
+    private final Pool pool;
+    private final AtomicInteger refs = new AtomicInteger();
+
+    private CameraFrame(int width, int height, Pool pool) {
+        this.width = width;
+        this.height = height;
+        this.pool = pool;
+        this.rgb = ByteBuffer.allocateDirect(width * height * 3);
+    }
+
+    /** A frame outside any pool, e.g. a recorded frame; releasing it does nothing. */
+    public static CameraFrame of(int width, int height) {
+        return new CameraFrame(width, height, null);
+    }
+
+    public ByteBuffer getRgb() {
+        return rgb;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Hand the frame to that many readers; each of them must {@link #release()} it. */
+    void retain(int readers) {
+        refs.set(readers);
+    }
+
+    public void release() {
+        if (refs.decrementAndGet() == 0 && pool != null) {
+            pool.free.offer(this);
+        }
+    }
+
+    /**
+     * Copy an image into the frame, for cameras that cannot hand out raw bytes.
+     * The image must have the frame's size.
+     */
+    public void fill(BufferedImage image) {
+        rgb.clear();
+        DataBuffer data = image.getRaster().getDataBuffer();
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && data instanceof DataBufferByte) {
+            byte[] bgr = ((DataBufferByte) data).getData();
+            for (int i = 0; i < width * height * 3; i += 3) {
+                rgb.put(bgr[i + 2]).put(bgr[i + 1]).put(bgr[i]);
+            }
+        } else {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int pixel = image.getRGB(x, y);
+                    rgb.put((byte) (pixel >> 16)).put((byte) (pixel >> 8)).put((byte) pixel);
+                }
+            }
+        }
+        rgb.clear();
+    }
+
+    /**
+     * Frames of one size. Frames come back as readers release them, so a running camera
+     * settles on a handful of buffers instead of allocating one per frame.
+     */
+    public static class Pool {
+        private final int width;
+        private final int height;
+        private final ConcurrentLinkedQueue<CameraFrame> free = new ConcurrentLinkedQueue<>();
+
+        public Pool(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public CameraFrame acquire() {
+            CameraFrame frame = free.poll();
+            return frame != null ? frame : new CameraFrame(width, height, this);
+        }
+    }
+}
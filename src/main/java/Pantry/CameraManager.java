@@ -0,0 +1,197 @@
+package Pantry;
+
+import com.github.sarxos.webcam.Webcam;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
+/**
+ * Finds the webcams once, in the background, and keeps the last one used open for a while
+ * so the next scan starts without waiting for the device.
+ *
+ * Discovery starts at app startup ({@link #discover()}); scans then pick the preferred camera
+ * from the cached list. A camera released after a scan stays open for
+ * -Dsmartpantry.camera.idleMs (default 60000; 0 closes it right away).
+ */
+public class CameraManager {
+    private static final long IDLE_MS = Long.getLong("smartpantry.camera.idleMs", 60_000);
+    private static final String PREFERRED_PREF_KEY = "preferred_camera";
+
+    private static CameraManager instance;
+
+    private final Preferences prefs;
+    // Discovery, opening and idle closing all run here, one at a time
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "camera-manager");
+        t.setDaemon(true);
+        return t;
+    });
+    private CompletableFuture<List<Webcam>> cameras;
+    // Guarded by "this"; opening and closing a device is guarded by the Webcam itself
+    private Webcam warm;
+    private ScheduledFuture<?> idleClose;
+    private long idleGeneration;
+
+    private CameraManager() {
+        this.prefs = Preferences.userNodeForPackage(CameraManager.class);
+    }
+
+    public static synchronized CameraManager getInstance() {
+        if (instance == null) {
+            instance = new CameraManager();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The cameras, found once and cached; call early so the first scan does not wait
+     */
+    public synchronized CompletableFuture<List<Webcam>> discover() {
+        if (cameras == null || cameras.isCompletedExceptionally()) {
+            cameras = CompletableFuture.supplyAsync(() -> {
+                long start = System.currentTimeMillis();
+                List<Webcam> found = new ArrayList<>(Webcam.getWebcams());
+                System.out.println("📷 Found " + found.size() + " camera(s) in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                return found;
+            }, executor);
+        }
+        return cameras;
+    }
+
+    /** Look for cameras again, e.g. after one was plugged in. */
+    public synchronized CompletableFuture<List<Webcam>> rediscover() {
+        cameras = null;
+        return discover();
+    }
+
+    /**
+     * @return The cameras found so far; empty while discovery is still running
+     */
+    public synchronized List<Webcam> getCachedCameras() {
+        return cameras != null && cameras.isDone() && !cameras.isCompletedExceptionally()
+                ? cameras.join() : List.of();
+    }
+
+    public String getPreferredName() {
+        return prefs.get(PREFERRED_PREF_KEY, null);
+    }
+
+    public void setPreferredName(String name) {
+        if (name == null) prefs.remove(PREFERRED_PREF_KEY);
+        else prefs.put(PREFERRED_PREF_KEY, name);
+    }
+
+    /**
+     * @return The preferred camera, else the first one found; null if there is none
+     */
+    public CompletableFuture<Webcam> choose() {
+        return discover().thenApply(found -> {
+            String preferred = getPreferredName();
+            for (Webcam webcam : found) {
+                if (webcam.getName().equals(preferred)) return webcam;
+            }
+            return found.isEmpty() ? null : found.get(0);
+        });
+    }
+
+    /**
+     * @return The camera with this name among those found, or null
+     */
+    public Webcam find(String name) {
+        for (Webcam webcam : getCachedCameras()) {
+            if (webcam.getName().equals(name)) return webcam;
+        }
+        return null;
+    }
+
+    /**
+     * Open the camera for a scan, or keep using it if it is still warm from the last one.
+     * Blocks while the device opens, so call it off the JavaFX Application Thread. The device
+     * is opened outside the manager's lock, so discovery and other callers do not wait for it.
+     */
+    public void open(Webcam webcam, Dimension size) {
+        Webcam previous;
+        synchronized (this) {
+            cancelIdleClose();
+            // Only one device is kept open
+            previous = warm != null && warm != webcam ? warm : null;
+            warm = webcam;
+        }
+        if (previous != null) closeUnlessWarm(previous);
+
+        synchronized (webcam) {
+            if (webcam.isOpen() && !size.equals(webcam.getViewSize())) {
+                webcam.close();
+            }
+            if (!webcam.isOpen()) {
+                long start = System.currentTimeMillis();
+                webcam.setViewSize(size);
+                webcam.open();
+                System.out.println("📷 Opened " + webcam.getName() + " in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        }
+    }
+
+    /**
+     * The scan is done with the camera: close it once it has been idle for the configured time.
+     */
+    public void release(Webcam webcam) {
+        synchronized (this) {
+            if (webcam == warm) {
+                cancelIdleClose();
+                if (IDLE_MS > 0) {
+                    long generation = idleGeneration;
+                    idleClose = executor.schedule(() -> closeIdle(webcam, generation), IDLE_MS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                warm = null;
+            }
+        }
+        closeUnlessWarm(webcam);
+    }
+
+    /** Stop a pending idle close; one that is already running sees the new generation and backs off. */
+    private synchronized void cancelIdleClose() {
+        idleGeneration++;
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+    }
+
+    /**
+     * @param generation The idle generation when the close was scheduled; a later open() or
+     *                   release() moves it on, and then this close is stale
+     */
+    private void closeIdle(Webcam webcam, long generation) {
+        // Device lock first, so an open() of this camera waits until the close is done
+        synchronized (webcam) {
+            synchronized (this) {
+                if (generation != idleGeneration || webcam != warm) return;
+                warm = null;
+                idleClose = null;
+            }
+            if (webcam.isOpen()) {
+                webcam.close();
+                System.out.println("📷 Closed idle camera " + webcam.getName());
+            }
+        }
+    }
+
+    private void closeUnlessWarm(Webcam webcam) {
+        synchronized (webcam) {
+            synchronized (this) {
+                if (webcam == warm) return;  // opened again in the meantime
+            }
+            if (webcam.isOpen()) webcam.close();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package Pantry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command-line tool that builds the offline catalog read by {@link LocalCatalogProvider}.
+ *
+ * Usage: CatalogImporter [--delta] dump-file [catalog-dir]
+ *
+ * The dump is either the Open Food Facts CSV export (tab-separated, with a header row) or a
+ * JSON-lines export such as the daily delta files; ".gz" files are decompressed on the fly.
+ *
+ * A full import writes a new records file and a new index, then swaps the index in. A delta
+ * import appends the changed products to the current records file and merges their entries
+ * into a new index, so it costs time proportional to the catalog's index, not its records.
+ * Replaced records stay in the file as garbage until the next full import.
+ */
+public class CatalogImporter {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** GTIN/offset pairs collected during an import. */
+    private static class Entries {
+        long[] gtins = new long[1 << 16];
+        long[] offsets = new long[1 << 16];
+        int size;
+
+        void add(long gtin, long offset) {
+            if (size == gtins.length) {
+                gtins = Arrays.copyOf(gtins, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            gtins[size] = gtin;
+            offsets[size] = offset;
+            size++;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean delta = args.length > 0 && args[0].equals("--delta");
+        int first = delta ? 1 : 0;
+        if (args.length <= first) {
+            System.err.println("Usage: CatalogImporter [--delta] dump-file [catalog-dir]");
+            System.exit(2);
+        }
+        Path dump = Path.of(args[first]);
+        Path dir = args.length > first + 1
+                ? Path.of(args[first + 1])
+                : Path.of(System.getProperty("user.home"), ".smartpantry", "catalog");
+
+        long start = System.currentTimeMillis();
+        int imported = delta ? importDelta(dump, dir) : importFull(dump, dir);
+        System.out.println("✓ Imported " + imported + " products into " + dir
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Replace the catalog with the products in the dump.
+     *
+     * @return Number of products written
+     */
+    public static int importFull(Path dump, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        int oldGeneration = currentGeneration(dir);
+        int generation = oldGeneration + 1;
+        Path records = LocalCatalogProvider.recordsFile(dir, generation);
+
+        Entries entries = new Entries();
+        int written;
+        try (OutputStream out = Files.newOutputStream(records)) {
+            written = appendRecords(dump, out, 0, entries);
+        }
+        writeIndex(dir, generation, sortAndDedupe(entries));
+
+        if (oldGeneration > 0) Files.deleteIfExists(LocalCatalogProvider.recordsFile(dir, oldGeneration));
+        return written;
+    }
+
+    /**
+     * Add or replace the products in the dump, keeping everything else.
+     *
+     * @return Number of products written
+     */
+    public static int importDelta(Path dump, Path dir) throws IOException {
+        int generation = currentGeneration(dir);
+        if (generation == 0) return importFull(dump, dir);
+        Path records = LocalCatalogProvider.recordsFile(dir, generation);
+
+        // Existing entries first: on a GTIN collision the appended record has the larger offset and wins
+        Entries entries = readIndex(dir);
+        long end = Files.size(records);
+        int written;
+        try (OutputStream out = Files.newOutputStream(records, StandardOpenOption.APPEND)) {
+            written = appendRecords(dump, out, end, entries);
+        }
+        writeIndex(dir, generation, sortAndDedupe(entries));
+        return written;
+    }
+
+    // ===== Dump parsing =====
+
+    /** @return Number of records appended */
+    private static int appendRecords(Path dump, OutputStream target, long startOffset, Entries entries) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        long offset = startOffset;
+        int written = 0;
+        try (BufferedReader reader = open(dump)) {
+            boolean jsonLines = isJsonLines(dump);
+            Map<String, Integer> columns = jsonLines ? null : header(reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] fields = jsonLines ? fromJson(line) : fromTsv(line, columns);
+                if (fields == null) continue;
+
+                String gtin = Gtin.normalize(fields[0]);
+                if (gtin == null || fields[1] == null || fields[1].isBlank()) continue;  // unusable without a name
+
+                entries.add(Long.parseLong(gtin), offset);
+                written++;
+                for (int i = 1; i < fields.length; i++) offset += writeField(out, fields[i]);
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Records file would exceed 2 GB; run a full import to drop replaced records");
+                }
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    private static BufferedReader open(Path dump) throws IOException {
+        InputStream in = Files.newInputStream(dump);
+        if (dump.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static boolean isJsonLines(Path dump) {
+        String name = dump.getFileName().toString().replace(".gz", "");
+        return name.endsWith(".json") || name.endsWith(".jsonl");
+    }
+
+    private static Map<String, Integer> header(String line) throws IOException {
+        if (line == null) throw new IOException("Empty dump");
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = line.split("\t", -1);
+        for (int i = 0; i < names.length; i++) columns.put(names[i].trim(), i);
+        if (!columns.containsKey("code") || !columns.containsKey("product_name")) {
+            throw new IOException("Not an Open Food Facts CSV export (no code/product_name columns)");
+        }
+        return columns;
+    }
+
+    /** @return code, name, quantity, categories, category tags */
+    private static String[] fromTsv(String line, Map<String, Integer> columns) {
+        String[] cells = line.split("\t", -1);
+        return new String[]{
+                cell(cells, columns, "code"),
+                cell(cells, columns, "product_name"),
+                cell(cells, columns, "quantity"),
+                cell(cells, columns, "categories"),
+                cell(cells, columns, "categories_tags")
+        };
+    }
+
+    private static String cell(String[] cells, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        return i != null && i < cells.length ? cells[i] : null;
+    }
+
+    private static String[] fromJson(String line) {
+        try {
+            JsonNode product = mapper.readTree(line);
+            String tags = null;
+            if (product.path("categories_tags").isArray()) {
+                StringBuilder sb = new StringBuilder();
+                for (JsonNode tag : product.path("categories_tags")) {
+                    if (sb.length() > 0) sb.append(',');
+                    sb.append(tag.asText());
+                }
+                tags = sb.toString();
+            }
+            String name = product.path("product_name").asText("");
+            if (name.isBlank()) name = product.path("product_name_en").asText("");
+            return new String[]{
+                    product.path("code").asText(""),
+                    name,
+                    product.path("quantity").asText(""),
+                    product.path("categories").asText(""),
+                    tags
+            };
+        } catch (IOException e) {
+            System.err.println("⚠ Skipping unreadable dump line: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** @return Bytes written */
+    private static int writeField(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.trim().getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, LocalCatalogProvider.MAX_FIELD_BYTES);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+        return 2 + length;
+    }
+
+    // ===== Index =====
+
+    private static int currentGeneration(Path dir) throws IOException {
+        Path index = dir.resolve(LocalCatalogProvider.INDEX_FILE);
+        if (!Files.exists(index)) return 0;
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(LocalCatalogProvider.HEADER_BYTES);
+            channel.read(header, 0);
+            return header.getInt(0) == LocalCatalogProvider.MAGIC ? header.getInt(8) : 0;
+        }
+    }
+
+    private static Entries readIndex(Path dir) throws IOException {
+        Entries entries = new Entries();
+        try (FileChannel channel = FileChannel.open(dir.resolve(LocalCatalogProvider.INDEX_FILE), StandardOpenOption.READ)) {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long count = index.getLong(16);
+            for (long i = 0; i < count; i++) {
+                int at = (int) (LocalCatalogProvider.HEADER_BYTES + i * LocalCatalogProvider.ENTRY_BYTES);
+                entries.add(index.getLong(at), index.getLong(at + 8));
+            }
+        }
+        return entries;
+    }
+
+    /** Sort by GTIN and keep only the newest (highest-offset) record per GTIN. */
+    private static Entries sortAndDedupe(Entries entries) {
+        sort(entries.gtins, entries.offsets, 0, entries.size - 1);
+        int out = 0;
+        for (int i = 0; i < entries.size; i++) {
+            if (out > 0 && entries.gtins[out - 1] == entries.gtins[i]) {
+                entries.offsets[out - 1] = entries.offsets[i];  // equal GTINs are sorted by offset
+            } else {
+                entries.gtins[out] = entries.gtins[i];
+                entries.offsets[out] = entries.offsets[i];
+                out++;
+            }
+        }
+        entries.size = out;
+        return entries;
+    }
+
+    /** Quicksort of the parallel arrays by (GTIN, offset); avoids boxing millions of pairs. */
+    private static void sort(long[] keys, long[] values, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pivotKey = keys[mid];
+            long pivotValue = values[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++;
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--;
+                if (i <= j) {
+                    long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+                    long v = values[i]; values[i] = values[j]; values[j] = v;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half, loop on the larger, so the stack stays shallow
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private static int compare(long key, long value, long otherKey, long otherValue) {
+        int c = Long.compare(key, otherKey);
+        return c != 0 ? c : Long.compare(value, otherValue);
+    }
+
+    /** Write the index next to the old one and move it into place in one step. */
+    private static void writeIndex(Path dir, int generation, Entries entries) throws IOException {
+        Path tmp = Files.createTempFile(dir, "index", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(LocalCatalogProvider.MAGIC);
+            out.writeInt(LocalCatalogProvider.VERSION);
+            out.writeInt(generation);
+            out.writeInt(0);
+            out.writeLong(entries.size);
+            for (int i = 0; i < entries.size; i++) {
+                out.writeLong(entries.gtins[i]);
+                out.writeLong(entries.offsets[i]);
+            }
+        }
+        Files.move(tmp, dir.resolve(LocalCatalogProvider.INDEX_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
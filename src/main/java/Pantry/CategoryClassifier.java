@@ -0,0 +1,344 @@
+package Pantry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps free text (product names, UPCItemDB categories, Open Food Facts categories and
+ * categories_tags) to one of the app's pantry categories.
+ *
+ * The keywords and their weights come from a taxonomy file (Pantry/category-keywords.txt on the
+ * classpath, or -Dsmartpantry.categories.file); its header describes the format. They are
+ * compiled once into an Aho-Corasick automaton, so classifying a string is a single pass over
+ * its characters however many keywords there are, and no keyword's position in the file can
+ * shadow another the way a chain of contains() checks did.
+ *
+ * Run main() with a tab-separated "expected category, text" file to print the misses and the
+ * accuracy against the bundled (or given) sample set. CategoryClassifierTest checks the bundled
+ * set on every build; CategoryClassifierBenchmark (JMH, under src/test) measures throughput.
+ */
+public class CategoryClassifier {
+    public static final String OTHER = "Other";
+
+    private static final String RESOURCE = "/Pantry/category-keywords.txt";
+    private static final String SAMPLES = "/Pantry/category-samples.tsv";
+
+    private static CategoryClassifier instance;
+
+    private final String[] categories;
+    // Per keyword
+    private final int[] keywordLength;
+    private final int[] keywordCategory;
+    private final int[] keywordWeight;
+    // Automaton: a full transition table over the keywords' alphabet, plus every keyword ending at each state
+    private final char[] alphabet;
+    private final int[] asciiSymbols = new int[128];
+    private final int[][] next;
+    private final int[][] output;
+
+    /**
+     * @param taxonomy Taxonomy in the format of category-keywords.txt
+     */
+    public CategoryClassifier(Reader taxonomy) throws IOException {
+        List<String> categoryNames = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        List<Integer> wordCategories = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(taxonomy);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            if (line.startsWith("[") && line.endsWith("]")) {
+                categoryNames.add(line.substring(1, line.length() - 1).strip());
+                continue;
+            }
+            if (categoryNames.isEmpty()) {
+                throw new IOException("Line " + lineNumber + ": keyword before the first [Category]");
+            }
+            int eq = line.lastIndexOf('=');
+            String word = normalize(eq < 0 ? line : line.substring(0, eq)).strip();
+            int weight;
+            try {
+                weight = eq < 0 ? 1 : Integer.parseInt(line.substring(eq + 1).strip());
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": bad weight in '" + line + "'");
+            }
+            if (word.isEmpty()) continue;
+            words.add(word);
+            wordCategories.add(categoryNames.size() - 1);
+            weights.add(weight);
+        }
+
+        categories = categoryNames.toArray(new String[0]);
+        keywordLength = new int[words.size()];
+        keywordCategory = new int[words.size()];
+        keywordWeight = new int[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            keywordLength[i] = words.get(i).length();
+            keywordCategory[i] = wordCategories.get(i);
+            keywordWeight[i] = weights.get(i);
+        }
+
+        alphabet = alphabetOf(words);
+        for (char c = 0; c < asciiSymbols.length; c++) {
+            int i = Arrays.binarySearch(alphabet, c);
+            asciiSymbols[c] = i >= 0 ? i : -1;
+        }
+        List<int[]> transitions = new ArrayList<>();
+        List<int[]> outputs = new ArrayList<>();
+        transitions.add(newRow());
+        outputs.add(new int[0]);
+
+        // 1. Trie of the keywords
+        for (int k = 0; k < words.size(); k++) {
+            int state = 0;
+            for (char c : words.get(k).toCharArray()) {
+                int symbol = symbol(c);
+                if (transitions.get(state)[symbol] <= 0) {
+                    transitions.get(state)[symbol] = transitions.size();
+                    transitions.add(newRow());
+                    outputs.add(new int[0]);
+                }
+                state = transitions.get(state)[symbol];
+            }
+            outputs.set(state, append(outputs.get(state), k));
+        }
+
+        // 2. Breadth-first: failure links turn the trie into a full transition table, and each
+        //    state inherits the keywords of its failure state (the keywords that are suffixes of it)
+        int[] fail = new int[transitions.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = transitions.get(0);
+        for (int s = 0; s < alphabet.length; s++) {
+            if (root[s] <= 0) {
+                root[s] = 0;
+            } else {
+                fail[root[s]] = 0;
+                queue.add(root[s]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = transitions.get(state);
+            outputs.set(state, concat(outputs.get(state), outputs.get(fail[state])));
+            for (int s = 0; s < alphabet.length; s++) {
+                int child = row[s];
+                if (child > 0) {
+                    fail[child] = transitions.get(fail[state])[s];
+                    queue.add(child);
+                } else {
+                    row[s] = transitions.get(fail[state])[s];
+                }
+            }
+        }
+
+        next = transitions.toArray(new int[0][]);
+        output = outputs.toArray(new int[0][]);
+    }
+
+    /**
+     * The classifier for the bundled taxonomy, or the file named by -Dsmartpantry.categories.file.
+     */
+    public static synchronized CategoryClassifier getDefault() {
+        if (instance == null) {
+            String configured = System.getProperty("smartpantry.categories.file");
+            try (Reader reader = configured != null
+                    ? Files.newBufferedReader(Path.of(configured), StandardCharsets.UTF_8)
+                    : resource(RESOURCE)) {
+                instance = new CategoryClassifier(reader);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not load category taxonomy: " + e.getMessage(), e);
+            }
+            System.out.println("✓ Category classifier: " + instance.keywordLength.length + " keywords, "
+                    + instance.next.length + " states");
+        }
+        return instance;
+    }
+
+    /**
+     * @return The best-scoring category for the text, or "Other" if nothing scores above zero
+     */
+    public String classify(String text) {
+        if (text == null || text.isEmpty()) return OTHER;
+        int[] scores = new int[categories.length];
+
+        // Matched keywords as [start, end) spans
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int[] ids = new int[8];
+        int matches = 0;
+
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int symbol = symbol(normalize(text.charAt(i)));
+            state = symbol < 0 ? 0 : next[state][symbol];
+            for (int k : output[state]) {
+                int start = i - keywordLength[k] + 1;
+                int end = wordEnd(text, i + 1);
+                if (end < 0 || (start > 0 && isWordChar(text.charAt(start - 1)))) continue;
+                if (matches == ids.length) {
+                    starts = Arrays.copyOf(starts, matches * 2);
+                    ends = Arrays.copyOf(ends, matches * 2);
+                    ids = Arrays.copyOf(ids, matches * 2);
+                }
+                starts[matches] = start;
+                ends[matches] = i + 1;
+                ids[matches] = k;
+                matches++;
+            }
+        }
+
+        // A keyword inside a longer matched keyword does not count on its own
+        for (int m = 0; m < matches; m++) {
+            boolean covered = false;
+            for (int o = 0; o < matches && !covered; o++) {
+                covered = o != m && starts[o] <= starts[m] && ends[m] <= ends[o]
+                        && ends[o] - starts[o] > ends[m] - starts[m];
+            }
+            if (!covered) scores[keywordCategory[ids[m]]] += keywordWeight[ids[m]];
+        }
+
+        int best = -1;
+        for (int c = 0; c < scores.length; c++) {
+            if (scores[c] > 0 && (best < 0 || scores[c] > scores[best])) best = c;
+        }
+        return best < 0 ? OTHER : categories[best];
+    }
+
+    /** @return Category names in taxonomy order */
+    public List<String> getCategories() {
+        return List.of(categories);
+    }
+
+    // ===== Text handling =====
+
+    /** Lower case, with '-' and '_' read as spaces (tags write "en:fresh-vegetables"). */
+    private static char normalize(char c) {
+        if (c == '-' || c == '_') return ' ';
+        return Character.toLowerCase(c);
+    }
+
+    private static String normalize(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) chars[i] = normalize(chars[i]);
+        return new String(chars);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * @return End of the word at a keyword ending at index end (allowing a plural "s"/"es"),
+     *         or -1 if the keyword stops mid-word
+     */
+    private static int wordEnd(String text, int end) {
+        if (end == text.length() || !isWordChar(text.charAt(end))) return end;
+        char c = Character.toLowerCase(text.charAt(end));
+        if (c == 's' && (end + 1 == text.length() || !isWordChar(text.charAt(end + 1)))) return end + 1;
+        if (c == 'e' && end + 1 < text.length() && Character.toLowerCase(text.charAt(end + 1)) == 's'
+                && (end + 2 == text.length() || !isWordChar(text.charAt(end + 2)))) return end + 2;
+        return -1;
+    }
+
+    // ===== Automaton construction =====
+
+    private static char[] alphabetOf(List<String> words) {
+        StringBuilder sb = new StringBuilder();
+        words.stream().flatMapToInt(String::chars).distinct().sorted().forEach(c -> sb.append((char) c));
+        return sb.toString().toCharArray();
+    }
+
+    /** @return Index of the character in the alphabet, or -1 if no keyword contains it */
+    private int symbol(char c) {
+        if (c < asciiSymbols.length) return asciiSymbols[c];
+        int i = Arrays.binarySearch(alphabet, c);
+        return i >= 0 ? i : -1;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabet.length];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] out = Arrays.copyOf(array, array.length + 1);
+        out[array.length] = value;
+        return out;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (b.length == 0) return a;
+        int[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static Reader resource(String name) throws IOException {
+        InputStream in = CategoryClassifier.class.getResourceAsStream(name);
+        if (in == null) throw new IOException("Missing resource " + name);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    // ===== Accuracy check =====
+
+    /**
+     * @param file A samples file, or null for the bundled one
+     * @return Each sample line as {expected category, text}
+     */
+    static List<String[]> loadSamples(Path file) throws IOException {
+        List<String[]> samples = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(file != null
+                ? Files.newBufferedReader(file, StandardCharsets.UTF_8)
+                : resource(SAMPLES))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t", 2);
+                if (parts.length == 2) samples.add(parts);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Usage: CategoryClassifier [samples.tsv]
+     * Each sample line is "expected category TAB text"; prints every miss and the accuracy.
+     */
+    public static void main(String[] args) throws IOException {
+        List<String[]> samples = loadSamples(args.length > 0 ? Path.of(args[0]) : null);
+
+        CategoryClassifier classifier = getDefault();
+        int correct = 0;
+        Map<String, Integer> misses = new HashMap<>();
+        for (String[] sample : samples) {
+            String actual = classifier.classify(sample[1]);
+            if (actual.equals(sample[0])) {
+                correct++;
+            } else {
+                misses.merge(sample[0], 1, Integer::sum);
+                System.out.println("✗ expected " + sample[0] + ", got " + actual + ": " + sample[1]);
+            }
+        }
+        System.out.printf("Accuracy: %d/%d (%.1f%%), misses by expected category: %s%n",
+                correct, samples.size(), 100.0 * correct / Math.max(1, samples.size()), misses);
+    }
+}
@@ -0,0 +1,246 @@
+package Pantry;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Replays recorded camera frames through {@link FrameDecoder} with different hint settings,
+ * so decode speed and detection rate can be measured without a webcam.
+ *
+ * A corpus is a directory of frames in recording order (sorted by file name): PNG, JPEG or BMP
+ * images, or raw RGB dumps named with their size, e.g. "frame-0001-640x480.rgb". An optional
+ * expected.txt lists the barcodes in the corpus, one per line; then only those count as hits
+ * and anything else read is reported as a misread. Gated configs run frames through the
+ * {@link MotionGate} (with its -Dsmartpantry.camera.* settings) as if they arrived at 30 fps,
+ * reporting each decode's outcome back to it as the scanner does; a skipped frame counts as
+ * no detection.
+ *
+ * Usage: DecoderBenchmark [--rounds N] corpus-dir...
+ */
+public class DecoderBenchmark {
+    private static final Result[] NONE = new Result[0];
+    // Recorded frames are replayed as if they came from a 30 fps camera
+    private static final long FRAME_MILLIS = 33;
+    private static final Pattern RAW_SIZE = Pattern.compile("(\\d+)x(\\d+)\\.rgb$");
+
+    /** One decoder setup to compare. */
+    static class Config {
+        final String name;
+        final Map<DecodeHintType, Object> hints;
+        final double roi;
+        final boolean rotate;
+        final boolean multiple;
+        final boolean gated;
+
+        Config(String name, Map<DecodeHintType, Object> hints, double roi, boolean rotate, boolean multiple) {
+            this(name, hints, roi, rotate, multiple, false);
+        }
+
+        Config(String name, Map<DecodeHintType, Object> hints, double roi, boolean rotate, boolean multiple, boolean gated) {
+            this.name = name;
+            this.hints = hints;
+            this.roi = roi;
+            this.rotate = rotate;
+            this.multiple = multiple;
+            this.gated = gated;
+        }
+
+        FrameDecoder newDecoder() {
+            return new FrameDecoder(hints.isEmpty() ? null : hints, roi, rotate, multiple);
+        }
+    }
+
+    static List<Config> configs() {
+        List<Config> configs = new ArrayList<>();
+        configs.add(new Config("default (live scanner)", hints(false, false, false), 1, false, false));
+        configs.add(new Config("ean/upc", hints(true, false, false), 1, false, false));
+        configs.add(new Config("ean/upc + try-harder", hints(true, true, false), 1, false, false));
+        configs.add(new Config("try-harder", hints(false, true, false), 1, false, false));
+        configs.add(new Config("pure-barcode", hints(false, false, true), 1, false, false));
+        configs.add(new Config("ean/upc + rotate", hints(true, false, false), 1, true, false));
+        configs.add(new Config("ean/upc + roi 0.6", hints(true, false, false), 0.6, false, false));
+        configs.add(new Config("ean/upc + roi 0.8", hints(true, false, false), 0.8, false, false));
+        configs.add(new Config("multiple (continuous)", hints(false, false, false), 1, false, true));
+        configs.add(new Config("default + motion gate", hints(false, false, false), 1, false, false, true));
+        return configs;
+    }
+
+    private static Map<DecodeHintType, Object> hints(boolean retailOnly, boolean tryHarder, boolean pure) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        if (retailOnly) {
+            hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(
+                    BarcodeFormat.EAN_13, BarcodeFormat.EAN_8, BarcodeFormat.UPC_A, BarcodeFormat.UPC_E));
+        }
+        if (tryHarder) hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        if (pure) hints.put(DecodeHintType.PURE_BARCODE, Boolean.TRUE);
+        return hints;
+    }
+
+    /** What one config did on one corpus. */
+    static class Report {
+        int frames;
+        int hits;
+        int misreads;
+        int firstHit = -1;
+        long firstHitNanos;
+        long totalNanos;
+        int rounds;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rounds = 5;
+        List<Path> corpora = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rounds") && i + 1 < args.length) {
+                rounds = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                corpora.add(Path.of(args[i]));
+            }
+        }
+        if (corpora.isEmpty()) {
+            System.err.println("Usage: DecoderBenchmark [--rounds N] corpus-dir...");
+            System.exit(2);
+        }
+
+        for (Path corpus : corpora) {
+            List<CameraFrame> frames = loadFrames(corpus);
+            Set<String> expected = loadExpected(corpus);
+            System.out.println();
+            System.out.println("📷 " + corpus + ": " + frames.size() + " frames"
+                    + (expected.isEmpty() ? "" : ", expecting " + expected));
+            if (frames.isEmpty()) continue;
+
+            System.out.printf("%-24s %9s %9s %9s %9s %14s%n",
+                    "config", "frames/s", "ms/frame", "detected", "misreads", "first hit");
+            for (Config config : configs()) {
+                Report report = run(config, frames, expected, rounds);
+                double msPerFrame = report.totalNanos / 1e6 / ((double) report.frames * report.rounds);
+                System.out.printf("%-24s %9.1f %9.2f %8.1f%% %9d %14s%n",
+                        config.name,
+                        1000 / msPerFrame,
+                        msPerFrame,
+                        100.0 * report.hits / report.frames,
+                        report.misreads,
+                        report.firstHit < 0 ? "never"
+                                : "#" + report.firstHit + " " + String.format("%.1f ms", report.firstHitNanos / 1e6));
+            }
+        }
+    }
+
+    /**
+     * Decode every frame once to warm up and count hits, then time {@code rounds} more passes.
+     * Time to first hit is the decode time spent on the frames up to and including the first hit,
+     * as if they had arrived one after the other.
+     */
+    static Report run(Config config, List<CameraFrame> frames, Set<String> expected, int rounds) {
+        FrameDecoder decoder = config.newDecoder();
+        MotionGate gate = config.gated ? MotionGate.configured() : null;
+        Report report = new Report();
+        report.frames = frames.size();
+        report.rounds = rounds;
+
+        for (int i = 0; i < frames.size(); i++) {
+            long start = System.nanoTime();
+            Result[] results = NONE;
+            if (gate == null || gate.shouldDecode(frames.get(i), i * FRAME_MILLIS)) {
+                results = decoder.decode(frames.get(i));
+                if (gate != null) gate.decoded(results.length > 0);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            boolean hit = false;
+            for (Result result : results) {
+                if (expected.isEmpty() || expected.contains(key(result.getText()))) hit = true;
+                else report.misreads++;
+            }
+            if (hit) report.hits++;
+            if (report.firstHit < 0) {
+                report.firstHitNanos += elapsed;
+                if (hit) report.firstHit = i;
+            }
+        }
+        if (report.firstHit < 0) report.firstHitNanos = 0;
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            // A fresh gate per round, so every round sees the corpus from its first frame
+            MotionGate roundGate = config.gated ? MotionGate.configured() : null;
+            for (int i = 0; i < frames.size(); i++) {
+                if (roundGate == null || roundGate.shouldDecode(frames.get(i), i * FRAME_MILLIS)) {
+                    Result[] results = decoder.decode(frames.get(i));
+                    if (roundGate != null) roundGate.decoded(results.length > 0);
+                }
+            }
+        }
+        report.totalNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    static List<CameraFrame> loadFrames(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        List<CameraFrame> frames = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString().toLowerCase();
+            Matcher raw = RAW_SIZE.matcher(name);
+            if (raw.find()) {
+                int width = Integer.parseInt(raw.group(1));
+                int height = Integer.parseInt(raw.group(2));
+                byte[] bytes = Files.readAllBytes(file);
+                if (bytes.length != width * height * 3) {
+                    System.err.println("⚠️ Skipping " + file + ": " + bytes.length + " bytes is not " + width + "x" + height + " RGB");
+                    continue;
+                }
+                CameraFrame frame = CameraFrame.of(width, height);
+                frame.getRgb().put(bytes).clear();
+                frames.add(frame);
+            } else if (name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".bmp")) {
+                BufferedImage image = ImageIO.read(file.toFile());
+                if (image == null) {
+                    System.err.println("⚠️ Skipping " + file + ": not a readable image");
+                    continue;
+                }
+                CameraFrame frame = CameraFrame.of(image.getWidth(), image.getHeight());
+                frame.fill(image);
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+
+    static Set<String> loadExpected(Path dir) throws IOException {
+        Set<String> expected = new HashSet<>();
+        Path file = dir.resolve("expected.txt");
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file)) {
+                if (!line.isBlank() && !line.startsWith("#")) expected.add(key(line.trim()));
+            }
+        }
+        return expected;
+    }
+
+    /** UPC-A and EAN-13 reads of the same product compare equal. */
+    private static String key(String barcode) {
+        String gtin = Gtin.normalize(barcode);
+        return gtin != null ? gtin : barcode;
+    }
+}
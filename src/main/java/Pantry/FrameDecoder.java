@@ -0,0 +1,83 @@
+package Pantry;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+
+import java.util.Map;
+
+/**
+ * Decodes barcodes from camera frames: the decode path shared by {@link CameraBarcodeScanner}
+ * and {@link DecoderBenchmark}.
+ *
+ * Not thread-safe (ZXing readers are not); give every decoding thread its own. The luma array
+ * is reused from frame to frame.
+ */
+public class FrameDecoder {
+    private static final Result[] NONE = new Result[0];
+
+    private final MultiFormatReader reader = new MultiFormatReader();
+    private final GenericMultipleBarcodeReader multiReader;
+    private final Map<DecodeHintType, ?> hints;
+    private final double roi;
+    private final boolean rotate;
+    private byte[] luma;
+
+    /**
+     * @param hints ZXing hints, or null for the defaults
+     * @param roi Fraction of the frame's width and height, around its center, to decode (1 = whole frame)
+     * @param rotate Also try the frame turned 90°, for barcodes held upright
+     * @param multiple Find every barcode in the frame rather than the first
+     */
+    public FrameDecoder(Map<DecodeHintType, ?> hints, double roi, boolean rotate, boolean multiple) {
+        this.hints = hints;
+        this.roi = roi > 0 && roi <= 1 ? roi : 1;
+        this.rotate = rotate;
+        this.multiReader = multiple ? new GenericMultipleBarcodeReader(reader) : null;
+        reader.setHints(hints);
+    }
+
+    public FrameDecoder(double roi, boolean multiple) {
+        this(null, roi, false, multiple);
+    }
+
+    /**
+     * @return The barcodes found; empty if none
+     */
+    public Result[] decode(CameraFrame frame) {
+        int width = Math.max(1, (int) (frame.getWidth() * roi));
+        int height = Math.max(1, (int) (frame.getHeight() * roi));
+        luma = FrameLuminanceSource.lumaBuffer(luma, width, height);
+        FrameLuminanceSource source = FrameLuminanceSource.fromRgb(frame.getRgb(), frame.getWidth(),
+                (frame.getWidth() - width) / 2, (frame.getHeight() - height) / 2, width, height, luma);
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+
+        Result[] results = decode(bitmap);
+        if (results.length == 0 && rotate) {
+            results = decode(bitmap.rotateCounterClockwise());
+        }
+        return results;
+    }
+
+    private Result[] decode(BinaryBitmap bitmap) {
+        try {
+            if (multiReader != null) {
+                return multiReader.decodeMultiple(bitmap, hints);
+            }
+            return new Result[] { reader.decodeWithState(bitmap) };
+        } catch (NotFoundException e) {
+            // No barcode in this frame
+            return NONE;
+        } catch (ReaderException e) {
+            // Decoding error, e.g. a checksum mismatch on a blurry frame
+            return NONE;
+        } finally {
+            reader.reset();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package Pantry;
+
+import com.google.zxing.LuminanceSource;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ZXing luminance over a camera frame's raw RGB bytes.
+ *
+ * {@link #fromRgb} computes luma for the region of interest only, into an array the caller
+ * reuses from frame to frame, so decoding a frame allocates no pixel data. Crops share that
+ * array instead of copying it.
+ */
+public class FrameLuminanceSource extends LuminanceSource {
+    private final byte[] luma;
+    private final int dataWidth;
+    private final int dataHeight;
+    private final int left;
+    private final int top;
+
+    private FrameLuminanceSource(byte[] luma, int dataWidth, int dataHeight, int left, int top, int width, int height) {
+        super(width, height);
+        this.luma = luma;
+        this.dataWidth = dataWidth;
+        this.dataHeight = dataHeight;
+        this.left = left;
+        this.top = top;
+    }
+
+    /**
+     * @param rgb Packed R, G, B bytes, row by row, starting at index 0
+     * @param frameWidth Width of the whole frame in pixels
+     * @param left Left edge of the region of interest
+     * @param top Top edge of the region of interest
+     * @param width Width of the region of interest
+     * @param height Height of the region of interest
+     * @param luma Where to put the luma; must hold exactly width * height bytes
+     */
+    public static FrameLuminanceSource fromRgb(ByteBuffer rgb, int frameWidth,
+                                               int left, int top, int width, int height, byte[] luma) {
+        if (luma.length != width * height) {
+            throw new IllegalArgumentException("Luma array holds " + luma.length + " bytes, need " + width * height);
+        }
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            int in = ((top + y) * frameWidth + left) * 3;
+            for (int x = 0; x < width; x++, in += 3) {
+                int r = rgb.get(in) & 0xFF;
+                int g = rgb.get(in + 1) & 0xFF;
+                int b = rgb.get(in + 2) & 0xFF;
+                // Same weighting as ZXing's RGBLuminanceSource
+                luma[out++] = (byte) ((r + 2 * g + b) >> 2);
+            }
+        }
+        return new FrameLuminanceSource(luma, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * @return The region's luma array, resized only when the region's size changed
+     */
+    public static byte[] lumaBuffer(byte[] current, int width, int height) {
+        return current != null && current.length == width * height ? current : new byte[width * height];
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        System.arraycopy(luma, (top + y) * dataWidth + left, row, 0, width);
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        int width = getWidth();
+        int height = getHeight();
+        // The usual case: the whole array, no copy
+        if (width == dataWidth && height == dataHeight) {
+            return luma;
+        }
+        byte[] matrix = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(luma, (top + y) * dataWidth + left, matrix, y * width, width);
+        }
+        return matrix;
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isRotateSupported() {
+        return true;
+    }
+
+    /** Unlike crops this copies, which is fine for the occasional retry with TRY_HARDER or rotation. */
+    @Override
+    public LuminanceSource rotateCounterClockwise() {
+        int width = getWidth();
+        int height = getHeight();
+        byte[] rotated = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            int in = (top + y) * dataWidth + left;
+            for (int x = 0; x < width; x++) {
+                // (x, y) moves to (y, width - 1 - x) in a height-wide image
+                rotated[(width - 1 - x) * height + y] = luma[in + x];
+            }
+        }
+        return new FrameLuminanceSource(rotated, height, width, 0, 0, height, width);
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        if (left + width > getWidth() || top + height > getHeight()) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+        return new FrameLuminanceSource(luma, dataWidth, dataHeight, this.left + left, this.top + top, width, height);
+    }
+}
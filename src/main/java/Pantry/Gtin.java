@@ -0,0 +1,47 @@
+package Pantry;
+
+/**
+ * GTIN normalization for barcode lookups.
+ *
+ * EAN-8, UPC-A (12 digits), EAN-13 and GTIN-14 are all the same number with a different
+ * amount of leading zeros, so "012345678905" and "0012345678905" are one product. Every
+ * form is zero-padded to 14 digits and its check digit verified.
+ */
+public final class Gtin {
+    private Gtin() {
+    }
+
+    /**
+     * @param barcode Scanned or typed barcode; spaces and dashes are ignored
+     * @return The 14-digit GTIN, or null if the barcode is not a GTIN or its check digit is wrong
+     */
+    public static String normalize(String barcode) {
+        if (barcode == null) return null;
+        StringBuilder digits = new StringBuilder(14);
+        for (int i = 0; i < barcode.length(); i++) {
+            char c = barcode.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+            else if (c != ' ' && c != '-') return null;
+        }
+        int length = digits.length();
+        if (length != 8 && length != 12 && length != 13 && length != 14) return null;
+
+        while (digits.length() < 14) digits.insert(0, '0');
+        String gtin = digits.toString();
+        return isValid(gtin) ? gtin : null;
+    }
+
+    /**
+     * GS1 check digit: weights 3,1,3,1... from the rightmost data digit.
+     */
+    static boolean isValid(String gtin) {
+        int sum = 0;
+        int last = gtin.length() - 1;
+        for (int i = 0; i < last; i++) {
+            int digit = gtin.charAt(i) - '0';
+            sum += (last - i) % 2 == 1 ? digit * 3 : digit;
+        }
+        int check = (10 - sum % 10) % 10;
+        return check == gtin.charAt(last) - '0';
+    }
+}
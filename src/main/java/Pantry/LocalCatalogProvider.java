@@ -0,0 +1,156 @@
+package Pantry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline product lookups from a catalog built by {@link CatalogImporter} out of an
+ * Open Food Facts export.
+ *
+ * The catalog directory (~/.smartpantry/catalog, or -Dsmartpantry.catalog.dir) holds:
+ *   index.bin          header (magic, version, records generation, entry count) followed by
+ *                      fixed-size (GTIN, record offset) pairs sorted by GTIN
+ *   records-{gen}.bin  the product records the offsets point into
+ *
+ * Both files are memory-mapped, so a lookup is a binary search over the mapped index plus one
+ * record decode, with no network and no heap copy of the catalog. When the importer swaps in a
+ * new index the files are mapped again on the next lookup.
+ */
+public class LocalCatalogProvider {
+    static final String INDEX_FILE = "index.bin";
+    static final int MAGIC = 0x53504349;  // "SPCI"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int ENTRY_BYTES = 16;
+    // A field is stored as an unsigned 16-bit byte length followed by UTF-8
+    static final int MAX_FIELD_BYTES = 0xFFFF;
+
+    private static final long RELOAD_CHECK_MS = 10_000;
+
+    /** One product as stored in the catalog. */
+    public record CatalogRecord(String name, String quantity, String categories, String categoryTags) {}
+
+    /** The files as mapped at one point in time; replaced as a whole on reload. */
+    private record Mapping(MappedByteBuffer index, long count, ByteBuffer records, long indexModified) {}
+
+    private static LocalCatalogProvider instance;
+
+    private final Path dir;
+    private volatile Mapping mapping;
+    private volatile long lastCheck;
+
+    public LocalCatalogProvider(Path dir) {
+        this.dir = dir;
+    }
+
+    public static synchronized LocalCatalogProvider getInstance() {
+        if (instance == null) {
+            String configured = System.getProperty("smartpantry.catalog.dir");
+            instance = new LocalCatalogProvider(configured != null
+                    ? Paths.get(configured)
+                    : Paths.get(System.getProperty("user.home"), ".smartpantry", "catalog"));
+        }
+        return instance;
+    }
+
+    static Path recordsFile(Path dir, int generation) {
+        return dir.resolve("records-" + generation + ".bin");
+    }
+
+    /**
+     * @return The catalog's record for the barcode, or null if it is not in the catalog
+     *         (or there is no catalog)
+     */
+    public CatalogRecord lookup(String barcode) {
+        String gtin = Gtin.normalize(barcode);
+        if (gtin == null) return null;
+        Mapping m = current();
+        if (m == null) return null;
+
+        long key = Long.parseLong(gtin);
+        long lo = 0;
+        long hi = m.count() - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int at = (int) (HEADER_BYTES + mid * ENTRY_BYTES);
+            long midKey = m.index().getLong(at);
+            if (midKey < key) lo = mid + 1;
+            else if (midKey > key) hi = mid - 1;
+            else return readRecord(m.records(), m.index().getLong(at + 8));
+        }
+        return null;
+    }
+
+    public boolean isAvailable() {
+        return current() != null;
+    }
+
+    /** @return The mapping, remapped if the index changed since it was last checked */
+    private Mapping current() {
+        long now = System.currentTimeMillis();
+        Mapping m = mapping;
+        if (m != null && now - lastCheck < RELOAD_CHECK_MS) return m;
+
+        synchronized (this) {
+            lastCheck = now;
+            Path indexFile = dir.resolve(INDEX_FILE);
+            try {
+                if (!Files.exists(indexFile)) {
+                    mapping = null;
+                    return null;
+                }
+                long modified = Files.getLastModifiedTime(indexFile).toMillis();
+                if (mapping != null && mapping.indexModified() == modified) return mapping;
+                mapping = map(indexFile, modified);
+                System.out.println("📦 Offline catalog: " + mapping.count() + " products");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠ Offline catalog unusable: " + e.getMessage());
+                mapping = null;
+            }
+            return mapping;
+        }
+    }
+
+    private Mapping map(Path indexFile, long modified) throws IOException {
+        MappedByteBuffer index;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("not a catalog index: " + indexFile);
+        }
+        int generation = index.getInt(8);
+        long count = index.getLong(16);
+
+        // A mapping stays valid after its channel is closed (and after the importer deletes an old file)
+        ByteBuffer records;
+        try (FileChannel channel = FileChannel.open(recordsFile(dir, generation), StandardOpenOption.READ)) {
+            records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new Mapping(index, count, records, modified);
+    }
+
+    private static CatalogRecord readRecord(ByteBuffer records, long offset) {
+        int[] pos = {(int) offset};
+        String name = readField(records, pos);
+        String quantity = readField(records, pos);
+        String categories = readField(records, pos);
+        String tags = readField(records, pos);
+        return new CatalogRecord(name, quantity, categories, tags);
+    }
+
+    private static String readField(ByteBuffer records, int[] pos) {
+        int length = records.getShort(pos[0]) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        records.get(pos[0] + 2, bytes);
+        pos[0] += 2 + length;
+        return length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package Pantry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides cheaply whether a camera frame is worth a full decode, from a small luma thumbnail.
+ *
+ * A frame is decoded only if it is sharp enough (not blurred by motion or out of focus) and
+ * differs enough from the last frame a barcode was read from; a camera pointed at an empty
+ * counter then costs a thumbnail per frame instead of a binarize-and-decode. Callers report
+ * each decode's outcome with {@link #decoded}, and only a successful decode moves that
+ * reference on, so an item moved in slowly, or held still once the blur settles, is still
+ * decoded. A frame that decoded to nothing is remembered too: the same view is tried again
+ * only once it is clearly sharper, so an empty counter is not decoded on every frame. As a
+ * safety net a frame is decoded at least every maxSkip ms whatever the thumbnail says.
+ *
+ * Settings (system properties):
+ * -Dsmartpantry.camera.motionGate=false turns the gate off;
+ * -Dsmartpantry.camera.motionThreshold mean luma change, 0-255, needed to decode again (default 4);
+ * -Dsmartpantry.camera.sharpnessThreshold mean luma gradient, 0-255, below which a frame is too
+ * blurry (default 3);
+ * -Dsmartpantry.camera.maxSkipMs longest time without a decode (default 1000).
+ *
+ * Not thread-safe; each decoder thread has its own.
+ */
+public class MotionGate {
+    // Thumbnails are at most this wide, e.g. 160x120 for a 640x480 frame
+    private static final int THUMBNAIL_WIDTH = 160;
+    // A view that decoded to nothing is retried once it is this much sharper
+    private static final double RETRY_SHARPNESS_GAIN = 1.2;
+
+    private final double motionThreshold;
+    private final double sharpnessThreshold;
+    private final long maxSkipMillis;
+
+    private int[] thumbnail = new int[0];
+    private int[] pending = new int[0];     // the frame being decoded
+    private int[] reference = new int[0];   // the last frame a barcode was read from
+    private int[] failed = new int[0];      // the last frame that decoded to nothing
+    private boolean hasPending;
+    private boolean hasReference;
+    private boolean hasFailed;
+    private double pendingSharpness;
+    private double failedSharpness;
+    private long lastDecode = Long.MIN_VALUE / 2;
+    private long frames;
+    private long skipped;
+
+    public MotionGate(double motionThreshold, double sharpnessThreshold, long maxSkipMillis) {
+        this.motionThreshold = motionThreshold;
+        this.sharpnessThreshold = sharpnessThreshold;
+        this.maxSkipMillis = maxSkipMillis;
+    }
+
+    /**
+     * @return The gate configured by the system properties, or null if it is turned off
+     */
+    public static MotionGate fromSettings() {
+        if (!Boolean.parseBoolean(System.getProperty("smartpantry.camera.motionGate", "true"))) {
+            return null;
+        }
+        return configured();
+    }
+
+    /**
+     * @return A gate with the configured thresholds, even if the gate is turned off
+     */
+    public static MotionGate configured() {
+        return new MotionGate(
+                doubleSetting("smartpantry.camera.motionThreshold", 4),
+                doubleSetting("smartpantry.camera.sharpnessThreshold", 3),
+                Long.getLong("smartpantry.camera.maxSkipMs", 1000));
+    }
+
+    private static double doubleSetting(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(System.getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring -D" + key + ": not a number");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param nowMillis Any monotonic clock in ms, e.g. System.nanoTime() / 1_000_000
+     * @return True if the frame should be decoded; then report the outcome with {@link #decoded}
+     */
+    public boolean shouldDecode(CameraFrame frame, long nowMillis) {
+        frames++;
+        int step = Math.max(1, (frame.getWidth() + THUMBNAIL_WIDTH - 1) / THUMBNAIL_WIDTH);
+        int width = frame.getWidth() / step;
+        int height = frame.getHeight() / step;
+        if (thumbnail.length != width * height) {
+            thumbnail = new int[width * height];
+            pending = new int[width * height];
+            reference = new int[width * height];
+            failed = new int[width * height];
+            hasPending = hasReference = hasFailed = false;
+        }
+        sample(frame.getRgb(), frame.getWidth(), step, width, height);
+
+        boolean due = nowMillis - lastDecode >= maxSkipMillis;
+        double sharpness = sharpness(width, height);
+        if (!due && (sharpness < sharpnessThreshold
+                || (hasReference && motion(reference) < motionThreshold)
+                || (hasFailed && motion(failed) < motionThreshold && sharpness < failedSharpness * RETRY_SHARPNESS_GAIN))) {
+            skipped++;
+            return false;
+        }
+
+        // Held until decoded() says whether it becomes the reference or the failed view
+        int[] swap = pending;
+        pending = thumbnail;
+        thumbnail = swap;
+        hasPending = true;
+        pendingSharpness = sharpness;
+        lastDecode = nowMillis;
+        return true;
+    }
+
+    /**
+     * Report whether the frame last passed by {@link #shouldDecode} yielded a barcode.
+     * Only a successful decode moves the reference that later frames must differ from.
+     */
+    public void decoded(boolean found) {
+        if (!hasPending) return;
+        hasPending = false;
+        int[] swap;
+        if (found) {
+            swap = reference;
+            reference = pending;
+            hasReference = true;
+            hasFailed = false;
+        } else {
+            swap = failed;
+            failed = pending;
+            failedSharpness = pendingSharpness;
+            hasFailed = true;
+        }
+        pending = swap;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /** Point-sample the frame's luma every step pixels. */
+    private void sample(ByteBuffer rgb, int frameWidth, int step, int width, int height) {
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            int in = y * step * frameWidth * 3;
+            for (int x = 0; x < width; x++, in += step * 3) {
+                // Same weighting as FrameLuminanceSource
+                thumbnail[out++] = ((rgb.get(in) & 0xFF) + 2 * (rgb.get(in + 1) & 0xFF) + (rgb.get(in + 2) & 0xFF)) >> 2;
+            }
+        }
+    }
+
+    /** Mean absolute horizontal plus vertical luma gradient: barcodes score high, blur and blank surfaces low. */
+    private double sharpness(int width, int height) {
+        if (width < 2 || height < 2) return Double.MAX_VALUE;
+        long sum = 0;
+        for (int y = 0; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 0; x < width - 1; x++) {
+                int p = thumbnail[row + x];
+                sum += Math.abs(thumbnail[row + x + 1] - p) + Math.abs(thumbnail[row + width + x] - p);
+            }
+        }
+        return (double) sum / ((width - 1) * (height - 1));
+    }
+
+    /** Mean absolute luma difference between this frame and an earlier one. */
+    private double motion(int[] earlier) {
+        long sum = 0;
+        for (int i = 0; i < thumbnail.length; i++) {
+            sum += Math.abs(thumbnail[i] - earlier[i]);
+        }
+        return (double) sum / thumbnail.length;
+    }
+}
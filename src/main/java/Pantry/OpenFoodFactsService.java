@@ -1,17 +1,27 @@
 package Pantry;
 
+import Http.HttpGateway;
+import Http.ProviderGuard;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonArray;
 
-import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Service to fetch product data from UPCItemDB (primary) with Open Food Facts fallback
+ * Service to fetch product data from UPCItemDB and Open Food Facts, queried concurrently
  */
 public class OpenFoodFactsService {
 
@@ -30,6 +40,7 @@ public class OpenFoodFactsService {
         private boolean found;
         private String errorMessage;
         private String source; // Track which API provided the data
+        private boolean lookupFailed; // Network error or unexpected response, as opposed to "not found"
 
         public ProductData() {
             this.found = false;
@@ -57,6 +68,9 @@ public class OpenFoodFactsService {
         public String getSource() { return source; }
         public void setSource(String source) { this.source = source; }
 
+        public boolean isLookupFailed() { return lookupFailed; }
+        public void setLookupFailed(boolean lookupFailed) { this.lookupFailed = lookupFailed; }
+
         public LocalDate getEstimatedExpirationDate() {
             if (expirationDays != null) {
                 return LocalDate.now().plusDays(expirationDays);
@@ -65,70 +79,281 @@ public class OpenFoodFactsService {
         }
     }
 
+    /** A product database that can be queried by barcode. */
+    public enum Provider {
+        UPC_ITEM_DB("UPCItemDB (US Database)"),
+        OPEN_FOOD_FACTS("Open Food Facts");
+
+        final String label;
+
+        Provider(String label) {
+            this.label = label;
+        }
+    }
+
+    /** How the results of the concurrent provider queries are combined. */
+    public enum LookupMode {
+        /** The first provider that finds the product wins; the rest are cancelled. */
+        FIRST_FOUND,
+        /** Wait for every provider and fill the preferred result's gaps from the others. */
+        MERGE
+    }
+
+    // UPCItemDB trial tier: 100 requests a day, 6 a minute
+    private static final ProviderGuard UPC_ITEM_DB_GUARD = new ProviderGuard("upcitemdb",
+            Integer.getInteger("smartpantry.upcitemdb.dailyLimit", 100), 6, Duration.ofMinutes(1));
+    // Open Food Facts has no daily cap but asks for at most 100 product reads a minute
+    private static final ProviderGuard OPEN_FOOD_FACTS_GUARD = new ProviderGuard("openfoodfacts",
+            Integer.MAX_VALUE, 100, Duration.ofMinutes(1));
+
+    private final ProductCache cache;
+    private final LocalCatalogProvider catalog;
+    private final CategoryClassifier classifier = CategoryClassifier.getDefault();
+    private final List<Provider> preferenceOrder;
+    private final LookupMode mode;
+
     /**
-     * Fetch product data by barcode - tries UPCItemDB first, then Open Food Facts
+     * Uses -Dsmartpantry.lookup.order (e.g. "OPEN_FOOD_FACTS,UPC_ITEM_DB") and
+     * -Dsmartpantry.lookup.mode (FIRST_FOUND or MERGE); UPCItemDB first and FIRST_FOUND by default.
+     */
+    public OpenFoodFactsService() {
+        this(ProductCache.getInstance(), LocalCatalogProvider.getInstance(), configuredOrder(),
+                LookupMode.valueOf(System.getProperty("smartpantry.lookup.mode", LookupMode.FIRST_FOUND.name())));
+    }
+
+    /**
+     * @param catalog Offline catalog consulted before the network, or null for none
+     */
+    public OpenFoodFactsService(ProductCache cache, LocalCatalogProvider catalog, List<Provider> preferenceOrder, LookupMode mode) {
+        if (preferenceOrder.isEmpty()) throw new IllegalArgumentException("At least one provider is required");
+        this.cache = cache;
+        this.catalog = catalog;
+        this.preferenceOrder = List.copyOf(preferenceOrder);
+        this.mode = mode;
+    }
+
+    private static List<Provider> configuredOrder() {
+        List<Provider> order = new ArrayList<>();
+        String configured = System.getProperty("smartpantry.lookup.order");
+        if (configured != null) {
+            for (String name : configured.split(",")) {
+                if (!name.isBlank()) order.add(Provider.valueOf(name.trim()));
+            }
+        }
+        // Providers left out of the setting are still queried, after the listed ones
+        for (Provider provider : Provider.values()) {
+            if (!order.contains(provider)) order.add(provider);
+        }
+        return order;
+    }
+
+    /**
+     * Fetch product data by barcode - answers from the product cache or the offline catalog when it can,
+     * otherwise queries every product database at once (see {@link #lookup}), and caches the outcome
      * @param barcode The product barcode (UPC/EAN)
      * @return ProductData object with product information
      */
     public ProductData getProductByBarcode(String barcode) {
-        ProductData product;
+        ProductData cached = cache.get(barcode);
+        if (cached != null) {
+            System.out.println("⚡ Product cache hit for barcode: " + barcode);
+            return cached;
+        }
 
-        // STEP 1: Try UPCItemDB first (best for US products)
-        System.out.println("🔍 Searching UPCItemDB for barcode: " + barcode);
-        product = searchUPCItemDB(barcode);
+        ProductData offline = lookupOffline(barcode);
+        if (offline != null) {
+            System.out.println("📦 Offline catalog hit for barcode: " + barcode);
+            return offline;  // already local, so not worth a cache entry
+        }
 
-        if (product.isFound()) {
-            System.out.println("✓ Found in UPCItemDB!");
-            product.setSource("UPCItemDB (US Database)");
-            return product;
+        ProductData product = lookup(barcode);
+        cache.put(barcode, product);
+        return product;
+    }
+
+    /**
+     * @return The product from the offline catalog, or null if there is no catalog or it lacks the barcode
+     */
+    private ProductData lookupOffline(String barcode) {
+        if (catalog == null) return null;
+        LocalCatalogProvider.CatalogRecord record = catalog.lookup(barcode);
+        if (record == null) return null;
+
+        ProductData product = new ProductData();
+        product.setFound(true);
+        product.setSource("Offline catalog");
+        product.setName(record.name());
+        product.setQuantity(record.quantity());
+        product.setCategory(classifier.classify(join(record.categories(), record.categoryTags())));
+        product.setExpirationDays(estimateExpirationDays(product.getCategory(), null));
+        return product;
+    }
+
+    /**
+     * Query every provider at once. In FIRST_FOUND mode the first provider that finds the
+     * product wins and the others are cancelled; in MERGE mode all are awaited and the
+     * preferred result has its missing fields filled from the others.
+     */
+    private ProductData lookup(String barcode) {
+        // Raw gateway futures, kept so the losers can be cancelled (a derived future would not abort the request)
+        Map<Provider, CompletableFuture<ProductData>> requests = new LinkedHashMap<>();
+        Map<Provider, CompletableFuture<ProductData>> futures = new LinkedHashMap<>();
+        for (Provider provider : preferenceOrder) {
+            System.out.println("🔍 Searching " + provider.label + " for barcode: " + barcode);
+            CompletableFuture<ProductData> request = search(provider, barcode);
+            requests.put(provider, request);
+            futures.put(provider, request.exceptionally(error -> {
+                if (error instanceof ProviderGuard.UnavailableException) {
+                    System.out.println("⏭ Skipping " + provider.label + ": " + error.getMessage());
+                } else if (!request.isCancelled()) {
+                    System.err.println("❌ " + provider.label + " lookup failed: " + error.getMessage());
+                }
+                return failed(error.getMessage());
+            }));
+        }
+
+        List<ProductData> results = new ArrayList<>();
+        try {
+            if (mode == LookupMode.MERGE) {
+                for (CompletableFuture<ProductData> future : futures.values()) {
+                    results.add(future.get());
+                }
+                return merge(results);
+            }
+
+            CompletableFuture<ProductData> firstFound = new CompletableFuture<>();
+            futures.values().forEach(f -> f.thenAccept(product -> {
+                if (product.isFound()) firstFound.complete(product);
+            }));
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .whenComplete((v, error) -> firstFound.complete(null));
+
+            ProductData winner = firstFound.get();
+            if (winner != null) {
+                System.out.println("✓ Found in " + winner.getSource() + "!");
+                return winner;
+            }
+            for (CompletableFuture<ProductData> future : futures.values()) {
+                results.add(future.get());
+            }
+            return merge(results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed("Lookup interrupted");
+        } catch (ExecutionException e) {
+            return failed(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } finally {
+            // The losers' answers are no longer needed; abort their requests
+            requests.values().forEach(request -> request.cancel(true));
         }
+    }
 
-        // STEP 2: If not found, try Open Food Facts as fallback (best for European products)
-        System.out.println("⚠ Not found in UPCItemDB. Trying Open Food Facts...");
-        product = searchOpenFoodFacts(barcode);
+    /**
+     * Combine results given in preference order: the first one that found the product is the
+     * base, and its missing name, category, quantity and shelf life come from the others.
+     */
+    private ProductData merge(List<ProductData> results) {
+        ProductData base = null;
+        List<String> sources = new ArrayList<>();
+        for (ProductData result : results) {
+            if (!result.isFound()) continue;
+            if (base == null) {
+                base = result;
+                sources.add(result.getSource());
+                continue;
+            }
+            boolean used = false;
+            if (isBlank(base.getName()) && !isBlank(result.getName())) {
+                base.setName(result.getName());
+                used = true;
+            }
+            if ((isBlank(base.getCategory()) || "Other".equals(base.getCategory()))
+                    && !isBlank(result.getCategory()) && !"Other".equals(result.getCategory())) {
+                base.setCategory(result.getCategory());
+                base.setExpirationDays(result.getExpirationDays());
+                used = true;
+            }
+            if (isBlank(base.getQuantity()) && !isBlank(result.getQuantity())) {
+                base.setQuantity(result.getQuantity());
+                used = true;
+            }
+            if (base.getExpirationDays() == null && result.getExpirationDays() != null) {
+                base.setExpirationDays(result.getExpirationDays());
+                used = true;
+            }
+            if (used) sources.add(result.getSource());
+        }
 
-        if (product.isFound()) {
-            System.out.println("✓ Found in Open Food Facts!");
-            product.setSource("Open Food Facts");
-            return product;
+        if (base != null) {
+            base.setSource(String.join(" + ", sources));
+            System.out.println("✓ Found in " + base.getSource() + "!");
+            return base;
         }
 
-        // STEP 3: Product not found in either database
         System.out.println("✗ Product not found in any database");
+        ProductData product = new ProductData();
+        // Only a definite "not found" from every provider may be cached as a miss
+        product.setLookupFailed(results.stream().anyMatch(ProductData::isLookupFailed));
         product.setErrorMessage("Product not found in UPCItemDB or Open Food Facts databases");
         return product;
     }
 
+    private CompletableFuture<ProductData> search(Provider provider, String barcode) {
+        return switch (provider) {
+            case UPC_ITEM_DB -> searchUPCItemDB(barcode);
+            case OPEN_FOOD_FACTS -> searchOpenFoodFacts(barcode);
+        };
+    }
+
+    private static ProductData failed(String message) {
+        ProductData product = new ProductData();
+        product.setLookupFailed(true);
+        product.setErrorMessage(message);
+        return product;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    /**
+     * Send the request if the provider's guard admits it, reporting the outcome back to the guard.
+     * A refused request fails at once with {@link ProviderGuard.UnavailableException}; gateway
+     * retries are charged to the guard too, and stop once it refuses one.
+     */
+    private static CompletableFuture<ProductData> guarded(ProviderGuard guard, HttpRequest request,
+                                                          HttpGateway.BodyReader<ProductData> parser) {
+        return guard.schedule(() -> {
+            CompletableFuture<ProductData> call = HttpGateway.send(request, (status, body) -> {
+                guard.record(status);
+                return parser.read(status, body);
+            }, guard::reserve);
+            call.whenComplete((product, error) -> {
+                if (error != null) guard.recordFailure();
+            });
+            return call;
+        });
+    }
+
     /**
      * Search UPCItemDB database (PRIMARY - US products)
      * Free tier: 100 requests/day, no API key needed
      */
-    private ProductData searchUPCItemDB(String barcode) {
+    private CompletableFuture<ProductData> searchUPCItemDB(String barcode) {
+        HttpRequest request = HttpGateway.request(UPC_ITEM_DB_URL + "?upc=" + barcode)
+                .header("Accept", "application/json")
+                .setHeader("User-Agent", USER_AGENT)
+                .GET()
+                .build();
+        return guarded(UPC_ITEM_DB_GUARD, request, this::parseUPCItemDB);
+    }
+
+    private ProductData parseUPCItemDB(int responseCode, InputStream body) {
         ProductData product = new ProductData();
 
         try {
-            String urlString = UPC_ITEM_DB_URL + "?upc=" + barcode;
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("User-Agent", USER_AGENT);
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-
-            int responseCode = conn.getResponseCode();
-
             if (responseCode == 200) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String inputLine;
-
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
-
-                JsonObject jsonResponse = JsonParser.parseString(response.toString()).getAsJsonObject();
+                JsonObject jsonResponse = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
 
                 // Check if product was found
                 if (jsonResponse.has("code") &&
@@ -140,6 +365,7 @@ public class OpenFoodFactsService {
 
                     if (items.size() > 0) {
                         product.setFound(true);
+                        product.setSource(Provider.UPC_ITEM_DB.label);
                         JsonObject item = items.get(0).getAsJsonObject();
 
                         // Extract product name (title)
@@ -160,7 +386,7 @@ public class OpenFoodFactsService {
                         String category = "Other";
                         if (item.has("category")) {
                             String upcCategory = item.get("category").getAsString();
-                            category = mapUPCCategory(upcCategory);
+                            category = classifier.classify(upcCategory);
                         }
                         product.setCategory(category);
 
@@ -176,12 +402,13 @@ public class OpenFoodFactsService {
                 }
             } else if (responseCode == 404) {
                 product.setFound(false);
+            } else {
+                // e.g. 429 once the trial quota is used up
+                product.setLookupFailed(true);
             }
-
-            conn.disconnect();
-
         } catch (Exception e) {
             product.setFound(false);
+            product.setLookupFailed(true);
             e.printStackTrace();
         }
 
@@ -191,40 +418,32 @@ public class OpenFoodFactsService {
     /**
      * Search Open Food Facts database (FALLBACK - European products)
      */
-    private ProductData searchOpenFoodFacts(String barcode) {
+    private CompletableFuture<ProductData> searchOpenFoodFacts(String barcode) {
+        HttpRequest request = HttpGateway.request(OPEN_FOOD_FACTS_URL + barcode + ".json")
+                .header("Accept", "application/json")
+                .setHeader("User-Agent", USER_AGENT)
+                .GET()
+                .build();
+        return guarded(OPEN_FOOD_FACTS_GUARD, request, this::parseOpenFoodFacts);
+    }
+
+    private ProductData parseOpenFoodFacts(int responseCode, InputStream body) {
         ProductData product = new ProductData();
 
         try {
-            String urlString = OPEN_FOOD_FACTS_URL + barcode + ".json";
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("User-Agent", USER_AGENT);
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-
-            int responseCode = conn.getResponseCode();
-
             if (responseCode == 404) {
                 product.setFound(false);
-                conn.disconnect();
                 return product;
             }
 
-            if (responseCode == 200) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String inputLine;
-
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
-
-                JsonObject jsonResponse = JsonParser.parseString(response.toString()).getAsJsonObject();
+            if (responseCode != 200) {
+                product.setLookupFailed(true);
+            } else {
+                JsonObject jsonResponse = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
 
                 if (jsonResponse.has("status") && jsonResponse.get("status").getAsInt() == 1) {
                     product.setFound(true);
+                    product.setSource(Provider.OPEN_FOOD_FACTS.label);
                     JsonObject productObj = jsonResponse.getAsJsonObject("product");
 
                     // Extract product name
@@ -239,91 +458,40 @@ public class OpenFoodFactsService {
                         product.setQuantity(productObj.get("quantity").getAsString());
                     }
 
-                    // Extract category
+                    // Extract category: the free-text list plus the language-neutral tags
+                    String categories = null;
                     if (productObj.has("categories") && !productObj.get("categories").isJsonNull()) {
-                        String categories = productObj.get("categories").getAsString();
-                        product.setCategory(mapCategory(categories));
+                        categories = productObj.get("categories").getAsString();
+                    }
+                    String tags = null;
+                    if (productObj.has("categories_tags") && productObj.get("categories_tags").isJsonArray()) {
+                        StringBuilder sb = new StringBuilder();
+                        for (JsonElement tag : productObj.getAsJsonArray("categories_tags")) {
+                            if (sb.length() > 0) sb.append(',');
+                            sb.append(tag.getAsString());
+                        }
+                        tags = sb.toString();
+                    }
+                    if (categories != null || tags != null) {
+                        product.setCategory(classifier.classify(join(categories, tags)));
                     }
 
                     product.setExpirationDays(estimateExpirationDays(product.getCategory(), productObj));
                 }
             }
-
-            conn.disconnect();
-
         } catch (Exception e) {
             product.setFound(false);
+            product.setLookupFailed(true);
             e.printStackTrace();
         }
 
         return product;
     }
 
-    /**
-     * Map UPCItemDB categories to our app categories
-     */
-    private String mapUPCCategory(String upcCategory) {
-        if (upcCategory == null || upcCategory.isEmpty()) return "Other";
-
-        upcCategory = upcCategory.toLowerCase();
-
-        // UPCItemDB uses categories like "Food > Beverages", "Health & Beauty > Food & Nutrition"
-        if (upcCategory.contains("dairy") || upcCategory.contains("milk") ||
-                upcCategory.contains("cheese") || upcCategory.contains("yogurt")) {
-            return "Dairy";
-        } else if (upcCategory.contains("vegetable") || upcCategory.contains("produce")) {
-            return "Vegetables";
-        } else if (upcCategory.contains("fruit")) {
-            return "Fruits";
-        } else if (upcCategory.contains("meat") || upcCategory.contains("poultry") ||
-                upcCategory.contains("seafood")) {
-            return "Meat";
-        } else if (upcCategory.contains("grain") || upcCategory.contains("bread") ||
-                upcCategory.contains("cereal") || upcCategory.contains("pasta")) {
-            return "Grains";
-        } else if (upcCategory.contains("beverage") || upcCategory.contains("drink") ||
-                upcCategory.contains("soda") || upcCategory.contains("juice")) {
-            return "Beverages";
-        } else if (upcCategory.contains("snack") || upcCategory.contains("candy") ||
-                upcCategory.contains("chip") || upcCategory.contains("cookie")) {
-            return "Snacks";
-        } else if (upcCategory.contains("food")) {
-            return "Other"; // Generic food category
-        }
-
-        return "Other";
-    }
-
-    /**
-     * Map Open Food Facts categories to our app categories
-     */
-    private String mapCategory(String categories) {
-        if (categories == null || categories.isEmpty()) return "Other";
-
-        categories = categories.toLowerCase();
-
-        if (categories.contains("dairy") || categories.contains("milk") ||
-                categories.contains("cheese") || categories.contains("yogurt")) {
-            return "Dairy";
-        } else if (categories.contains("vegetable") || categories.contains("veggies")) {
-            return "Vegetables";
-        } else if (categories.contains("fruit")) {
-            return "Fruits";
-        } else if (categories.contains("meat") || categories.contains("poultry") ||
-                categories.contains("fish") || categories.contains("seafood")) {
-            return "Meat";
-        } else if (categories.contains("grain") || categories.contains("bread") ||
-                categories.contains("pasta") || categories.contains("cereal")) {
-            return "Grains";
-        } else if (categories.contains("beverage") || categories.contains("drink") ||
-                categories.contains("juice") || categories.contains("soda")) {
-            return "Beverages";
-        } else if (categories.contains("snack") || categories.contains("chip") ||
-                categories.contains("cookie") || categories.contains("candy")) {
-            return "Snacks";
-        }
-
-        return "Other";
+    private static String join(String a, String b) {
+        if (a == null || a.isBlank()) return b;
+        if (b == null || b.isBlank()) return a;
+        return a + ", " + b;
     }
 
     /**
@@ -356,47 +524,4 @@ public class OpenFoodFactsService {
                 return 180; // 6 months default
         }
     }
-
-    /**
-     * Parse quantity string to extract numeric value and unit
-     * Examples: "1L", "500g", "12 oz"
-     */
-    public static class ParsedQuantity {
-        public int numeric = 1;
-        public String unit = "pcs";
-
-        public ParsedQuantity(String quantityStr) {
-            if (quantityStr == null || quantityStr.isEmpty()) return;
-
-            try {
-                // Remove spaces and convert to lowercase
-                quantityStr = quantityStr.trim().toLowerCase();
-
-                // Extract numbers
-                String numericPart = quantityStr.replaceAll("[^0-9.]", "");
-                if (!numericPart.isEmpty()) {
-                    this.numeric = (int) Double.parseDouble(numericPart);
-                }
-
-                // Extract unit
-                if (quantityStr.contains("kg")) {
-                    this.unit = "kg";
-                } else if (quantityStr.contains("g")) {
-                    this.unit = "kg";
-                    this.numeric = this.numeric / 1000; // convert g to kg
-                } else if (quantityStr.contains("l")) {
-                    this.unit = "L";
-                } else if (quantityStr.contains("ml")) {
-                    this.unit = "L";
-                    this.numeric = this.numeric / 1000; // convert ml to L
-                } else if (quantityStr.contains("oz")) {
-                    this.unit = "oz";
-                }
-
-            } catch (Exception e) {
-                // Keep defaults
-            }
-
-        }
-    }
-}
\ No newline at end of file
+}
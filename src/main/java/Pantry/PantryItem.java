@@ -14,6 +14,9 @@ public class PantryItem {
     private String category;        // e.g., "Dairy", "Vegetables"
     private String userId;          // Which user owns this item
     private Date dateAdded;         // When item was added
+    private Quantity amount;        // Exact weight/volume when entered as one (e.g. 1.5 lb), else null
+    private String location;        // e.g., "Pantry", "Fridge"; null until set
+    private boolean lowStock;       // Flagged for restocking from the shopping list
 
     // ✅ DEFAULT CONSTRUCTOR (Required by Firebase)
     public PantryItem() {
@@ -95,6 +98,29 @@ public class PantryItem {
         return dateAdded;
     }
 
+    public String getLocation() {
+        return location;
+    }
+
+    public boolean isLowStock() {
+        return lowStock;
+    }
+
+    /**
+     * The exact amount: the one set with {@link #setAmount}, else read from the quantity label
+     * ("2 x 330 ml"), else quantityNumeric in unit.
+     */
+    public Quantity getAmount() {
+        if (amount != null) return amount;
+        Quantity parsed = Quantity.parse(quantityLabel);
+        return parsed != null ? parsed : Quantity.of(quantityNumeric, unit);
+    }
+
+    /** @return The amount set with {@link #setAmount}, or null (what gets stored) */
+    public Quantity getExactAmount() {
+        return amount;
+    }
+
     // Alias for compatibility (matches your original method name)
     public int getQuantity() {
         return quantityNumeric;
@@ -149,6 +175,27 @@ public class PantryItem {
         this.dateAdded = dateAdded;
     }
 
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public void setLowStock(boolean lowStock) {
+        this.lowStock = lowStock;
+    }
+
+    /**
+     * Set the exact amount; quantityNumeric, unit and quantityLabel follow it
+     * (quantityNumeric rounded to a whole number, at least 1 for a non-zero amount).
+     * Null clears it and leaves them alone.
+     */
+    public void setAmount(Quantity amount) {
+        this.amount = amount;
+        if (amount == null) return;
+        this.quantityNumeric = amount.getWholeAmount();
+        this.unit = amount.getUnit().getSymbol();
+        this.quantityLabel = amount.toString();
+    }
+
     // Alias setter for compatibility
     public void setQuantity(int quantity) {
         this.quantityNumeric = quantity;
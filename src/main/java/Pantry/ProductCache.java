@@ -0,0 +1,164 @@
+package Pantry;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Barcode → product cache in front of the product APIs.
+ *
+ * Two tiers: a bounded in-memory LRU, and one small JSON file per product under
+ * ~/.smartpantry/products/ so results survive restarts. Keys are normalized GTINs
+ * ({@link Gtin}), so the UPC-A and EAN-13 forms of a barcode share an entry.
+ *
+ * Not-found results are cached too, with a shorter TTL than hits, so an unknown barcode
+ * is not retried against every API on every scan but is picked up once a database adds it.
+ * Lookups that failed (network errors, rate limits) are never cached.
+ */
+public class ProductCache {
+    private static final int MEMORY_CAPACITY = 256;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long HIT_TTL_MS = Long.getLong("smartpantry.productCache.hitTtlDays", 30) * DAY_MS;
+    private static final long MISS_TTL_MS = Long.getLong("smartpantry.productCache.missTtlDays", 1) * DAY_MS;
+
+    /** What is stored per barcode, in memory and on disk. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        public boolean found;
+        public String name;
+        public String category;
+        public String quantity;
+        public Integer expirationDays;
+        public String source;
+        public long storedAt;
+    }
+
+    private static ProductCache instance;
+
+    private final Path dir;
+    private final ObjectMapper mapper = new ObjectMapper();
+    // Access-ordered, so the eldest entry is the least recently used; guarded by "this"
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_CAPACITY;
+        }
+    };
+
+    /**
+     * @param dir Directory for the on-disk tier, or null to cache in memory only
+     */
+    public ProductCache(Path dir) {
+        this.dir = dir;
+    }
+
+    public static synchronized ProductCache getInstance() {
+        if (instance == null) {
+            instance = new ProductCache(Paths.get(System.getProperty("user.home"), ".smartpantry", "products"));
+        }
+        return instance;
+    }
+
+    /**
+     * @return The cached result for the barcode, or null if there is none or it has expired
+     */
+    public OpenFoodFactsService.ProductData get(String barcode) {
+        String gtin = Gtin.normalize(barcode);
+        if (gtin == null) return null;
+
+        Entry entry;
+        synchronized (this) {
+            entry = memory.get(gtin);
+        }
+        if (entry == null) {
+            entry = readFromDisk(gtin);
+            if (entry == null) return null;
+            synchronized (this) {
+                memory.put(gtin, entry);
+            }
+        }
+        if (isExpired(entry)) {
+            synchronized (this) {
+                memory.remove(gtin);
+            }
+            return null;
+        }
+        return toProductData(entry);
+    }
+
+    /**
+     * Remember a lookup result. Failed lookups and barcodes that are not valid GTINs are ignored.
+     */
+    public void put(String barcode, OpenFoodFactsService.ProductData product) {
+        String gtin = Gtin.normalize(barcode);
+        if (gtin == null || product == null || product.isLookupFailed()) return;
+
+        Entry entry = new Entry();
+        entry.found = product.isFound();
+        entry.name = product.getName();
+        entry.category = product.getCategory();
+        entry.quantity = product.getQuantity();
+        entry.expirationDays = product.getExpirationDays();
+        entry.source = product.getSource();
+        entry.storedAt = System.currentTimeMillis();
+
+        synchronized (this) {
+            memory.put(gtin, entry);
+        }
+        writeToDisk(gtin, entry);
+    }
+
+    private static boolean isExpired(Entry entry) {
+        long ttl = entry.found ? HIT_TTL_MS : MISS_TTL_MS;
+        return System.currentTimeMillis() - entry.storedAt > ttl;
+    }
+
+    private static OpenFoodFactsService.ProductData toProductData(Entry entry) {
+        OpenFoodFactsService.ProductData product = new OpenFoodFactsService.ProductData();
+        product.setFound(entry.found);
+        product.setName(entry.name);
+        product.setCategory(entry.category);
+        product.setQuantity(entry.quantity);
+        product.setExpirationDays(entry.expirationDays);
+        product.setSource(entry.source);
+        if (!entry.found) {
+            product.setErrorMessage("Product not found in UPCItemDB or Open Food Facts databases");
+        }
+        return product;
+    }
+
+    // ===== Disk tier =====
+
+    private Entry readFromDisk(String gtin) {
+        if (dir == null) return null;
+        Path file = dir.resolve(gtin + ".json");
+        if (!Files.exists(file)) return null;
+        try {
+            return mapper.readValue(file.toFile(), Entry.class);
+        } catch (IOException e) {
+            System.err.println("⚠ Unreadable product cache entry " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String gtin, Entry entry) {
+        if (dir == null) return;
+        try {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(gtin + ".json");
+            Path tmp = Files.createTempFile(dir, gtin, ".tmp");
+            mapper.writeValue(tmp.toFile(), entry);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The memory tier still has it; only persistence across restarts is lost
+            System.err.println("⚠ Could not persist product cache entry " + gtin + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package Pantry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of something, held as a whole number of base units: milligrams for mass,
+ * microlitres for volume, pieces for counts. Two quantities of the same dimension can be
+ * compared and added exactly whatever units they were written in; the unit is kept only
+ * to display the amount the way it was entered.
+ *
+ * {@link #parse} reads product sizes as the databases write them ("500g", "1.5 lb",
+ * "2 x 330 ml", "6 × 12 fl oz", "1,5 kg") in one pass over the text, without regexes or
+ * intermediate strings.
+ */
+public final class Quantity implements Comparable<Quantity> {
+
+    public enum Dimension { MASS, VOLUME, COUNT }
+
+    /** Display systems for {@link #toSystem}. */
+    public enum UnitSystem { METRIC, US }
+
+    // Base units per unit, times MICRO, so fractional factors (ounces, US cups) stay exact integers
+    private static final long MICRO = 1_000_000L;
+
+    public enum Unit {
+        MG(Dimension.MASS, 1_000_000L, "mg", "mg", "milligram", "milligrams"),
+        G(Dimension.MASS, 1_000_000_000L, "g", "g", "gr", "gram", "grams", "gramm"),
+        KG(Dimension.MASS, 1_000_000_000_000L, "kg", "kg", "kgs", "kilo", "kilos", "kilogram", "kilograms"),
+        OZ(Dimension.MASS, 28_349_523_125L, "oz", "oz", "ounce", "ounces", "onz"),
+        LB(Dimension.MASS, 453_592_370_000L, "lb", "lb", "lbs", "pound", "pounds"),
+        ML(Dimension.VOLUME, 1_000_000_000L, "ml", "ml", "millilitre", "millilitres", "milliliter", "milliliters"),
+        CL(Dimension.VOLUME, 10_000_000_000L, "cl", "cl", "centilitre", "centilitres"),
+        DL(Dimension.VOLUME, 100_000_000_000L, "dl", "dl"),
+        L(Dimension.VOLUME, 1_000_000_000_000L, "L", "l", "lt", "ltr", "litre", "litres", "liter", "liters"),
+        TSP(Dimension.VOLUME, 4_928_921_594L, "tsp", "tsp", "teaspoon", "teaspoons"),
+        TBSP(Dimension.VOLUME, 14_786_764_781L, "tbsp", "tbsp", "tablespoon", "tablespoons"),
+        FL_OZ(Dimension.VOLUME, 29_573_529_563L, "fl oz", "floz"),
+        CUP(Dimension.VOLUME, 236_588_236_500L, "cup", "cup", "cups"),
+        PT(Dimension.VOLUME, 473_176_473_000L, "pt", "pt", "pint", "pints"),
+        QT(Dimension.VOLUME, 946_352_946_000L, "qt", "qt", "quart", "quarts"),
+        GAL(Dimension.VOLUME, 3_785_411_784_000L, "gal", "gal", "gallon", "gallons"),
+        PCS(Dimension.COUNT, 1_000_000L, "pcs", "pcs", "pc", "piece", "pieces", "ct", "count", "each", "ea",
+                "unit", "units", "pack", "packs", "bottle", "bottles", "can", "cans", "box", "boxes",
+                "bag", "bags", "jar", "jars");
+
+        private final Dimension dimension;
+        private final long microBase;
+        private final String symbol;
+        private final String[] aliases;
+
+        Unit(Dimension dimension, long microBase, String symbol, String... aliases) {
+            this.dimension = dimension;
+            this.microBase = microBase;
+            this.symbol = symbol;
+            this.aliases = aliases;
+        }
+
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        /** @return The unit written as text[start, end) (any case), or null */
+        static Unit match(CharSequence text, int start, int end) {
+            for (Unit unit : VALUES) {
+                for (String alias : unit.aliases) {
+                    if (equalsIgnoreCase(alias, text, start, end)) return unit;
+                }
+            }
+            return null;
+        }
+
+        private static final Unit[] VALUES = values();
+    }
+
+    private final long base;
+    private final Unit unit;
+
+    private Quantity(long base, Unit unit) {
+        this.base = base;
+        this.unit = unit;
+    }
+
+    // ===== Construction =====
+
+    /**
+     * @param base Amount in the unit's base unit (mg, µL or pieces)
+     */
+    public static Quantity ofBase(long base, Unit unit) {
+        return new Quantity(base, unit);
+    }
+
+    /**
+     * @param unit A unit name or symbol such as "kg", "fl oz" or "bottles"; unknown or missing units count pieces
+     */
+    public static Quantity of(double amount, String unit) {
+        Unit u = unitOf(unit);
+        if (u == null) u = Unit.PCS;
+        return new Quantity(Math.round(amount * u.microBase / MICRO), u);
+    }
+
+    /** @return The unit for a name or symbol, or null if it is not one we know */
+    public static Unit unitOf(String name) {
+        if (name == null) return null;
+        String s = name.strip();
+        if (s.isEmpty()) return null;
+        if (equalsIgnoreCase("fl oz", s, 0, s.length()) || equalsIgnoreCase("fl. oz", s, 0, s.length())) return Unit.FL_OZ;
+        return Unit.match(s, 0, s.length());
+    }
+
+    /**
+     * Parse a product size. A leading or trailing "N x" multiplies the amount ("2 x 330 ml" is 660 ml);
+     * a number with no known unit counts pieces. Decimal commas are accepted ("1,5 kg").
+     *
+     * @return The quantity, or null if the text has no number or the amount does not fit in a long
+     */
+    public static Quantity parse(CharSequence text) {
+        if (text == null) return null;
+        int n = text.length();
+        int i = 0;
+        while (i < n && !isDigit(text.charAt(i))) i++;
+        if (i == n) return null;
+
+        long multiplier = 1;
+        long mantissa = 0;
+        int scale = 0;
+        Unit unit = null;
+
+        // Up to two numbers: "6 x 330 ml" reads a multiplier first
+        for (int round = 0; round < 2; round++) {
+            mantissa = 0;
+            scale = 0;
+            boolean fraction = false;
+            int digits = 0;
+            for (; i < n; i++) {
+                char c = text.charAt(i);
+                if (isDigit(c)) {
+                    if (digits < 18 && (!fraction || scale < 9)) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits++;
+                        if (fraction) scale++;
+                    }
+                } else if ((c == '.' || c == ',') && !fraction && i + 1 < n && isDigit(text.charAt(i + 1))) {
+                    // "1,000 g" groups thousands; "1,5 kg" is a decimal comma
+                    if (c == ',' && isThousandsGroup(text, i + 1)) continue;
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+            i = skipSpaces(text, i);
+            if (round == 0 && i < n && isTimes(text.charAt(i))) {
+                int after = skipSpaces(text, i + 1);
+                if (after < n && isDigit(text.charAt(after))) {
+                    multiplier = Math.max(1, scale == 0 ? mantissa : 1);
+                    i = after;
+                    continue;
+                }
+            }
+            break;
+        }
+
+        // Unit: the run of letters after the number ("fl oz" spans two words)
+        int start = i;
+        while (i < n && Character.isLetter(text.charAt(i))) i++;
+        if (i > start) {
+            if (equalsIgnoreCase("fl", text, start, i)) {
+                int oz = skipSpaces(text, i < n && text.charAt(i) == '.' ? i + 1 : i);
+                int ozEnd = oz;
+                while (ozEnd < n && Character.isLetter(text.charAt(ozEnd))) ozEnd++;
+                if (equalsIgnoreCase("oz", text, oz, ozEnd)) {
+                    unit = Unit.FL_OZ;
+                    i = ozEnd;
+                }
+            } else {
+                unit = Unit.match(text, start, i);
+            }
+        }
+        if (unit == null) unit = Unit.PCS;
+
+        // Trailing multiplier: "330 ml x 6"
+        if (multiplier == 1) {
+            int j = skipSpaces(text, i < n && text.charAt(i) == '.' ? i + 1 : i);
+            if (j < n && isTimes(text.charAt(j))) {
+                j = skipSpaces(text, j + 1);
+                long count = 0;
+                int digits = 0;
+                while (j < n && isDigit(text.charAt(j)) && digits < 9) {
+                    count = count * 10 + (text.charAt(j++) - '0');
+                    digits++;
+                }
+                if (count > 0) multiplier = count;
+            }
+        }
+
+        try {
+            return new Quantity(Math.multiplyExact(toBase(mantissa, scale, unit), multiplier), unit);
+        } catch (ArithmeticException e) {
+            return null;  // e.g. "999999 x 999999999999 kg"
+        }
+    }
+
+    /** mantissa / 10^scale units, in base units, rounded half up; exact unless the product overflows a long. */
+    private static long toBase(long mantissa, int scale, Unit unit) {
+        long divisor = MICRO;
+        for (int s = 0; s < scale; s++) divisor *= 10;
+        if (mantissa <= Long.MAX_VALUE / unit.microBase) {
+            long product = mantissa * unit.microBase;
+            return (product + divisor / 2) / divisor;
+        }
+        return Math.round(mantissa / Math.pow(10, scale) * unit.microBase / MICRO);
+    }
+
+    // ===== Accessors and conversions =====
+
+    /** @return The amount in base units: mg, µL or pieces */
+    public long getBase() {
+        return base;
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    public Dimension getDimension() {
+        return unit.dimension;
+    }
+
+    /** @return The amount in its own unit */
+    public double getAmount() {
+        return in(unit);
+    }
+
+    /**
+     * @return The amount in its own unit rounded to a whole number, but never 0 unless the
+     *         amount is: 0.25 kg is 1, so it still counts as something in stock
+     */
+    public int getWholeAmount() {
+        long whole = Math.round(getAmount());
+        if (whole == 0 && base != 0) whole = base > 0 ? 1 : -1;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, whole));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the unit measures a different dimension
+     */
+    public double in(Unit other) {
+        requireSameDimension(other);
+        return (double) base * MICRO / other.microBase;
+    }
+
+    /** The same amount, displayed in another unit of the same dimension. */
+    public Quantity to(Unit other) {
+        requireSameDimension(other);
+        return new Quantity(base, other);
+    }
+
+    /** The same amount in the most readable unit of the system: 1.5 kg rather than 1500 g, 12 oz rather than 0.75 lb. */
+    public Quantity toSystem(UnitSystem system) {
+        switch (unit.dimension) {
+            case MASS:
+                if (system == UnitSystem.US) return to(base >= Unit.LB.microBase / MICRO ? Unit.LB : Unit.OZ);
+                if (base >= Unit.KG.microBase / MICRO) return to(Unit.KG);
+                return to(base >= Unit.G.microBase / MICRO ? Unit.G : Unit.MG);
+            case VOLUME:
+                if (system == UnitSystem.US) return to(base >= Unit.GAL.microBase / MICRO ? Unit.GAL : Unit.FL_OZ);
+                return to(base >= Unit.L.microBase / MICRO ? Unit.L : Unit.ML);
+            default:
+                return this;
+        }
+    }
+
+    /** @throws IllegalArgumentException If the two measure different dimensions */
+    public Quantity plus(Quantity other) {
+        requireSameDimension(other.unit);
+        return new Quantity(Math.addExact(base, other.base), unit);
+    }
+
+    public Quantity times(long factor) {
+        return new Quantity(Math.multiplyExact(base, factor), unit);
+    }
+
+    public boolean isZero() {
+        return base == 0;
+    }
+
+    private void requireSameDimension(Unit other) {
+        if (other.dimension != unit.dimension) {
+            throw new IllegalArgumentException("Cannot convert " + unit.dimension + " to " + other.dimension);
+        }
+    }
+
+    /** Quantities of different dimensions order by dimension, then by amount. */
+    @Override
+    public int compareTo(Quantity other) {
+        int c = unit.dimension.compareTo(other.unit.dimension);
+        return c != 0 ? c : Long.compare(base, other.base);
+    }
+
+    /** Equal amounts are equal whatever unit they are displayed in. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Quantity)) return false;
+        Quantity other = (Quantity) o;
+        return base == other.base && unit.dimension == other.unit.dimension;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(base) * 31 + unit.dimension.hashCode();
+    }
+
+    /** @return The amount in its own unit with up to three decimals, e.g. "1.5 kg", "660 ml", "2 pcs" */
+    @Override
+    public String toString() {
+        BigDecimal amount = BigDecimal.valueOf(base).multiply(BigDecimal.valueOf(MICRO))
+                .divide(BigDecimal.valueOf(unit.microBase), 3, RoundingMode.HALF_UP)
+                .stripTrailingZeros();
+        return amount.toPlainString() + " " + unit.symbol;
+    }
+
+    // ===== Character helpers =====
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isTimes(char c) {
+        return c == 'x' || c == 'X' || c == '×' || c == '*';
+    }
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Exactly three digits and then no more digits (or a decimal point, as in "1,000.5"),
+     * or another such group, as in "1,000,000".
+     */
+    private static boolean isThousandsGroup(CharSequence text, int i) {
+        int n = text.length();
+        if (i + 3 > n) return false;
+        for (int k = i; k < i + 3; k++) {
+            if (!isDigit(text.charAt(k))) return false;
+        }
+        if (i + 3 == n) return true;
+        char next = text.charAt(i + 3);
+        if (next == ',') return isThousandsGroup(text, i + 4);
+        return !isDigit(next);
+    }
+
+    private static boolean equalsIgnoreCase(String expected, CharSequence text, int start, int end) {
+        if (end - start != expected.length()) return false;
+        for (int k = 0; k < expected.length(); k++) {
+            if (Character.toLowerCase(text.charAt(start + k)) != expected.charAt(k)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package Pantry;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A batch of scanned barcodes waiting to be added to the pantry in one write.
+ *
+ * Every new barcode is looked up in the background as soon as it is scanned, at most
+ * -Dsmartpantry.scan.parallelism lookups at a time (default 4); the rest queue up. Scanning a
+ * barcode that is already in the session adds one to its count instead of adding a row.
+ * The session is confined to the JavaFX Application Thread: call it from there, and lookup
+ * results are applied there.
+ */
+public class ScanSession {
+    private static final int PARALLELISM = Integer.getInteger("smartpantry.scan.parallelism", 4);
+
+    // Shared by all sessions; daemon threads so they never block shutdown
+    private static final ExecutorService LOOKUPS = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "scan-lookup-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    public enum Status { LOOKING_UP, FOUND, NOT_FOUND, FAILED }
+
+    /** One distinct product in the session. */
+    public static class Entry {
+        private final String barcode;
+        private int count = 1;
+        private Status status = Status.LOOKING_UP;
+        private OpenFoodFactsService.ProductData product;
+        private String name;
+
+        Entry(String barcode) {
+            this.barcode = barcode;
+        }
+
+        public String getBarcode() {
+            return barcode;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = Math.max(1, count);
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public OpenFoodFactsService.ProductData getProduct() {
+            return product;
+        }
+
+        /** @return The name to save: the user's edit, else the product's name (null if neither) */
+        public String getName() {
+            if (name != null && !name.isBlank()) return name;
+            return product != null && product.getName() != null && !product.getName().isBlank() ? product.getName() : null;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /** Ready once looked up and named; an unknown product can be saved after the user names it. */
+        public boolean isReady() {
+            return status != Status.LOOKING_UP && getName() != null;
+        }
+
+        /** Counted in packages; the product's own size goes into the label, e.g. "2 × 500 g". */
+        PantryItem toPantryItem(String userId) {
+            PantryItem item = new PantryItem();
+            item.setName(getName());
+            item.setQuantityNumeric(count);
+            item.setUnit("pcs");
+            String size = product != null ? product.getQuantity() : null;
+            item.setQuantityLabel(size != null && !size.isBlank() ? count + " × " + size : count + " pcs");
+            // Products the databases did not know are classified by the name the user gave them
+            item.setCategory(product != null && product.getCategory() != null
+                    ? product.getCategory() : CategoryClassifier.getDefault().classify(getName()));
+            if (product != null) {
+                item.setExpirationDate(Date.from(product.getEstimatedExpirationDate()
+                        .atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            }
+            item.setUserId(userId);
+            item.setDateAdded(new Date());
+            return item;
+        }
+    }
+
+    private final OpenFoodFactsService service;
+    private final ObservableList<Entry> entries = FXCollections.observableArrayList();
+    private final Map<String, Entry> byKey = new HashMap<>();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private int pending;
+
+    public ScanSession(OpenFoodFactsService service) {
+        this.service = service;
+    }
+
+    /** Rows in scan order. Changes to an entry's fields are announced through {@link #addListener}. */
+    public ObservableList<Entry> getEntries() {
+        return entries;
+    }
+
+    /** Called (on the FX thread) whenever a row is added, merged, removed or resolved. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Add a scanned barcode: a new row whose lookup starts right away, or +1 on an existing row.
+     */
+    public void scan(String barcode) {
+        if (barcode == null || barcode.isBlank()) return;
+        String code = barcode.trim();
+        // UPC-A and EAN-13 scans of the same product share a row
+        String gtin = Gtin.normalize(code);
+        String key = gtin != null ? gtin : code;
+
+        Entry existing = byKey.get(key);
+        if (existing != null) {
+            existing.count++;
+            changed();
+            return;
+        }
+
+        Entry entry = new Entry(code);
+        byKey.put(key, entry);
+        entries.add(entry);
+        pending++;
+        changed();
+
+        CompletableFuture.supplyAsync(() -> service.getProductByBarcode(code), LOOKUPS)
+                .whenComplete((product, error) -> Platform.runLater(() -> {
+                    pending--;
+                    if (error != null || product == null) {
+                        entry.status = Status.FAILED;
+                    } else {
+                        entry.product = product;
+                        if (product.isFound()) entry.status = Status.FOUND;
+                        else entry.status = product.isLookupFailed() ? Status.FAILED : Status.NOT_FOUND;
+                    }
+                    changed();
+                }));
+    }
+
+    public void remove(Entry entry) {
+        entries.remove(entry);
+        byKey.values().remove(entry);
+        changed();
+    }
+
+    public boolean isLookupPending() {
+        return pending > 0;
+    }
+
+    /** @return Pantry items for every ready row (rows still unnamed are left out) */
+    public List<PantryItem> toPantryItems(String userId) {
+        List<PantryItem> items = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isReady()) items.add(entry.toPantryItem(userId));
+        }
+        return items;
+    }
+
+    public void clear() {
+        entries.clear();
+        byKey.clear();
+        changed();
+    }
+
+    /** Let listeners know an entry changed outside the session, e.g. an edit in the review table. */
+    public void changed() {
+        for (Runnable listener : listeners) listener.run();
+    }
+}
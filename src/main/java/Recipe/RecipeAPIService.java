@@ -1,14 +1,14 @@
 package Recipe;
 
+import Http.HttpGateway;
+import Http.ProviderGuard;
 import com.google.gson.*;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
+import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -35,6 +35,10 @@ public class RecipeAPIService {
     private static final String MEALDB_FILTER  = "https://www.themealdb.com/api/json/v1/1/filter.php?i=";
     private static final String MEALDB_LOOKUP  = "https://www.themealdb.com/api/json/v1/1/lookup.php?i=";
 
+    // Free plan: 150 points a day, HTTP 402 once they are spent
+    private static final ProviderGuard SPOONACULAR = new ProviderGuard("spoonacular",
+            Integer.getInteger("smartpantry.spoonacular.dailyLimit", 150), 5, Duration.ofSeconds(5));
+
     private static final Pattern NON_WORDS = Pattern.compile("[^a-zA-Z\\s]");
     private static final Set<String> STOP = Set.of(
             "a","an","the","easy","best","homemade","quick","recipe","classic","and","with","of","for"
@@ -48,15 +52,16 @@ public class RecipeAPIService {
         String normalizedAvail = normalizeIngredientsCsv(availableCsv);
         int n = Math.max(1, limit);
 
-        // 1) Spoonacular: name queries (complexSearch)
-        if (isSpoonKeyPresent()) {
+        // 1) Spoonacular: name queries (complexSearch); skipped entirely while its quota is gone
+        if (isSpoonKeyPresent() && SPOONACULAR.isAvailable()) {
             for (String q : buildNameCandidates(cleanName)) {
+                if (!SPOONACULAR.isAvailable()) break;
                 List<Map<String,String>> byName = spoonByName(q, n);
                 if (!byName.isEmpty()) return byName;
             }
             // 2) Spoonacular: by ingredients
             String ingCsv = normalizedAvail.isBlank() ? ingredientsFromName(cleanName) : normalizedAvail;
-            List<Map<String,String>> byIng = spoonByIngredients(ingCsv, n);
+            List<Map<String,String>> byIng = SPOONACULAR.isAvailable() ? spoonByIngredients(ingCsv, n) : List.of();
             if (!byIng.isEmpty()) return byIng;
         }
 
@@ -93,21 +98,19 @@ public class RecipeAPIService {
         List<Map<String,String>> out = new ArrayList<>();
         if (!isSpoonKeyPresent() || isBlank(name)) return out;
 
-        HttpURLConnection c = null;
         try {
             String url = SPOON_COMPLEX
                     + "?query=" + enc(name)
                     + "&addRecipeInformation=true"
                     + "&number=" + limit
                     + "&apiKey=" + enc(apiKey());
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = spoonFetch(url);
+            int code = res.status();
 
             if (code == 402) { System.err.println("Name search HTTP 402 for query: " + name); return List.of(); }
             if (code != 200)  { System.err.println("Name search HTTP " + code + " for query: " + name); return List.of(); }
 
-            JsonArray results = JsonParser.parseString(body).getAsJsonObject().getAsJsonArray("results");
+            JsonArray results = res.json().getAsJsonObject().getAsJsonArray("results");
             if (results == null) return out;
 
             for (JsonElement el : results) {
@@ -116,7 +119,7 @@ public class RecipeAPIService {
             }
         } catch (Exception e) {
             System.err.println("Error (spoon name search): " + e.getMessage());
-        } finally { if (c != null) c.disconnect(); }
+        }
         return out;
     }
 
@@ -124,21 +127,19 @@ public class RecipeAPIService {
         List<Map<String,String>> out = new ArrayList<>();
         if (!isSpoonKeyPresent() || isBlank(ingredientsCsv)) return out;
 
-        HttpURLConnection c = null;
         try {
             String url = SPOON_BY_ING
                     + "?ingredients=" + enc(normalizeIngredientsCsv(ingredientsCsv))
                     + "&ranking=2&ignorePantry=true"
                     + "&number=" + limit
                     + "&apiKey=" + enc(apiKey());
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = spoonFetch(url);
+            int code = res.status();
 
             if (code == 402) { System.err.println("Error fetching recipes (ingredients). HTTP 402 URL: " + url); return List.of(); }
             if (code != 200)  { System.err.println("Error fetching recipes (ingredients). HTTP " + code + " URL: " + url); return List.of(); }
 
-            JsonArray arr = JsonParser.parseString(body).getAsJsonArray();
+            JsonArray arr = res.json().getAsJsonArray();
             if (arr == null) return out;
 
             for (JsonElement el : arr) {
@@ -151,7 +152,7 @@ public class RecipeAPIService {
             }
         } catch (Exception e) {
             System.err.println("Error (spoon ingredients): " + e.getMessage());
-        } finally { if (c != null) c.disconnect(); }
+        }
         return out;
     }
 
@@ -159,23 +160,21 @@ public class RecipeAPIService {
         Map<String,String> details = new LinkedHashMap<>();
         if (!isSpoonKeyPresent() || isBlank(id)) return details;
 
-        HttpURLConnection c = null;
         try {
             String url = SPOON_INFO + "/" + enc(id) + "/information?apiKey=" + enc(apiKey());
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = spoonFetch(url);
+            int code = res.status();
             if (code == 402) { System.err.println("getRecipeDetails HTTP 402 id=" + id); return Map.of(); }
             if (code != 200)  { System.err.println("getRecipeDetails HTTP " + code + " id=" + id); return Map.of(); }
 
-            JsonObject o = JsonParser.parseString(body).getAsJsonObject();
+            JsonObject o = res.json().getAsJsonObject();
             details.put("title", getString(o, "title"));
             details.put("image", getString(o, "image"));
             details.put("instructions", getString(o, "instructions").isBlank() ? "No instructions available." : getString(o, "instructions"));
             details.put("sourceUrl", getString(o, "sourceUrl"));
         } catch (Exception e) {
             System.err.println("Error fetching spoon details: " + e.getMessage());
-        } finally { if (c != null) c.disconnect(); }
+        }
         return details;
     }
 
@@ -197,15 +196,13 @@ public class RecipeAPIService {
         List<Map<String,String>> out = new ArrayList<>();
         if (isBlank(name)) return out;
 
-        HttpURLConnection c = null;
         try {
             String url = MEALDB_SEARCH + enc(name);
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = fetch(url);
+            int code = res.status();
             if (code != 200) return out;
 
-            JsonObject root = JsonParser.parseString(body).getAsJsonObject();
+            JsonObject root = res.json().getAsJsonObject();
             JsonArray meals = root.getAsJsonArray("meals");
             if (meals == null) return out;
 
@@ -217,7 +214,7 @@ public class RecipeAPIService {
                 count++;
             }
         } catch (Exception ignored) {
-        } finally { if (c != null) c.disconnect(); }
+        }
         return out;
     }
 
@@ -225,15 +222,13 @@ public class RecipeAPIService {
         List<Map<String,String>> out = new ArrayList<>();
         if (isBlank(ingredient)) return out;
 
-        HttpURLConnection c = null;
         try {
             String url = MEALDB_FILTER + enc(ingredient);
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = fetch(url);
+            int code = res.status();
             if (code != 200) return out;
 
-            JsonObject root = JsonParser.parseString(body).getAsJsonObject();
+            JsonObject root = res.json().getAsJsonObject();
             JsonArray meals = root.getAsJsonArray("meals");
             if (meals == null) return out;
 
@@ -245,7 +240,7 @@ public class RecipeAPIService {
                 count++;
             }
         } catch (Exception ignored) {
-        } finally { if (c != null) c.disconnect(); }
+        }
         return out;
     }
 
@@ -253,15 +248,13 @@ public class RecipeAPIService {
         Map<String,String> details = new LinkedHashMap<>();
         if (isBlank(id)) return details;
 
-        HttpURLConnection c = null;
         try {
             String url = MEALDB_LOOKUP + enc(id);
-            c = open(url);
-            int code = c.getResponseCode();
-            String body = readBody(c, code);
+            HttpGateway.JsonResponse res = fetch(url);
+            int code = res.status();
             if (code != 200) return details;
 
-            JsonObject root = JsonParser.parseString(body).getAsJsonObject();
+            JsonObject root = res.json().getAsJsonObject();
             JsonArray meals = root.getAsJsonArray("meals");
             if (meals == null || meals.size() == 0) return details;
 
@@ -276,7 +269,7 @@ public class RecipeAPIService {
             if (src.isBlank()) src = "https://www.themealdb.com/meal/" + id;
             details.put("sourceUrl", src);
         } catch (Exception ignored) {
-        } finally { if (c != null) c.disconnect(); }
+        }
         return details;
     }
 
@@ -360,23 +353,42 @@ public class RecipeAPIService {
 
     // ========= HTTP & key =========
 
-    private static HttpURLConnection open(String url) throws IOException {
-        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
-        c.setRequestMethod("GET");
-        c.setConnectTimeout((int) Duration.ofSeconds(8).toMillis());
-        c.setReadTimeout((int) Duration.ofSeconds(12).toMillis());
-        c.setRequestProperty("Accept", "application/json");
-        c.setRequestProperty("User-Agent", "SmartPantry/1.0 (+javafx)");
-        return c;
+    /** GET a JSON document through the shared gateway; the body is parsed as it streams in. */
+    private static HttpGateway.JsonResponse fetch(String url) throws Exception {
+        return fetch(url, null);
     }
 
-    private static String readBody(HttpURLConnection c, int code) throws IOException {
-        InputStream in = (code >= 200 && code < 300) ? c.getInputStream() : c.getErrorStream();
-        if (in == null) return "";
-        try (Scanner sc = new Scanner(in, StandardCharsets.UTF_8)) {
-            sc.useDelimiter("\\A");
-            return sc.hasNext() ? sc.next() : "";
+    /**
+     * @param guard Charged for every gateway retry as well, or null
+     */
+    private static HttpGateway.JsonResponse fetch(String url, ProviderGuard guard) throws Exception {
+        HttpRequest request = HttpGateway.request(url)
+                .timeout(Duration.ofSeconds(12))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        try {
+            return (guard == null ? HttpGateway.sendForJson(request)
+                    : HttpGateway.sendForJson(request, guard::reserve)).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /** fetch() behind the Spoonacular quota and circuit breaker. */
+    private static HttpGateway.JsonResponse spoonFetch(String url) throws Exception {
+        if (!SPOONACULAR.acquire()) {
+            throw new ProviderGuard.UnavailableException("Spoonacular quota used up or circuit open, using TheMealDB");
+        }
+        HttpGateway.JsonResponse res;
+        try {
+            res = fetch(url, SPOONACULAR);
+        } catch (Exception e) {
+            SPOONACULAR.recordFailure();
+            throw e;
         }
+        SPOONACULAR.record(res.status());
+        return res;
     }
 
     private static String enc(String s) { return URLEncoder.encode(nz(s), StandardCharsets.UTF_8); }
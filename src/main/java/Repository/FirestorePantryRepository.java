@@ -0,0 +1,138 @@
+package Repository;
+
+import Firebase.BulkWriteResult;
+import Firebase.FirebaseService;
+import Firebase.PantryCounters;
+import Firebase.PantrySchemaMigration;
+import Pantry.PantryItem;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Firestore-backed pantry, stored under users/{userId}/pantryItems.
+ */
+public class FirestorePantryRepository implements PantryRepository {
+    public static final int FIRST_PAGE_SIZE = 40;
+
+    private final Firestore db;
+    private final FirebaseService service;
+
+    public FirestorePantryRepository(Firestore db) {
+        this.db = db;
+        this.service = new FirebaseService(db);
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) throws Exception {
+        return new ArrayList<>(FirebaseService.getPantryItems(userId));
+    }
+
+    @Override
+    public List<String> findNames(String userId) throws Exception {
+        return service.getPantryItemNames(userId);
+    }
+
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to, int limit) throws Exception {
+        return FirebaseService.findExpiringBetween(userId, from, to, limit);
+    }
+
+    @Override
+    public List<PantryItem> findExpired(String userId) throws Exception {
+        return FirebaseService.findExpired(userId);
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        return service.addPantryItem(item, userId);
+    }
+
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        for (PantryItem item : items) item.setUserId(userId);
+        BulkWriteResult result = service.addPantryItems(items);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Add failed for: " + result.getFailed().keySet());
+        }
+        List<String> ids = new ArrayList<>();
+        for (PantryItem item : items) ids.add(item.getId());
+        return ids;
+    }
+
+    @Override
+    public void update(String itemId, PantryItem item) throws Exception {
+        service.updatePantryItem(itemId, item);
+    }
+
+    @Override
+    public void delete(String itemId, String userId) throws Exception {
+        service.deletePantryItem(itemId, userId);
+    }
+
+    /**
+     * Attaches a snapshot listener and only forwards the DocumentChange deltas.
+     * The listener's first snapshot carries the whole collection, so a cursor-paginated
+     * first page is fetched alongside it and forwarded as soon as it lands.
+     */
+    @Override
+    public Subscription watch(String userId, ChangeListener listener) {
+        // Guarded by itself: once the full snapshot is delivered, a late first page must not resurrect deleted items
+        boolean[] initialSnapshotDelivered = {false};
+
+        Thread firstPage = new Thread(() -> {
+            try {
+                FirebaseService.PantryPage page = FirebaseService.getPantryItemsPage(userId, FIRST_PAGE_SIZE, null);
+                synchronized (initialSnapshotDelivered) {
+                    if (!initialSnapshotDelivered[0]) {
+                        listener.onChanges(page.getItems(), List.of());
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("⚠ First pantry page failed: " + e.getMessage());
+            }
+        }, "pantry-first-page");
+        firstPage.setDaemon(true);
+        firstPage.start();
+
+        // Legacy documents get rewritten in place; the listener below picks up the changes.
+        // Counters are recounted afterwards, once per session, to repair any drift.
+        PantrySchemaMigration.startInBackground(db, userId, () -> PantryCounters.reconcileInBackground(db, userId));
+
+        System.out.println("📡 Subscribing to pantry updates for user: " + userId);
+        ListenerRegistration registration = db.collection("users")
+                .document(userId)
+                .collection("pantryItems")
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        System.err.println("❌ Pantry listener failed: " + error.getMessage());
+                        return;
+                    }
+                    if (snapshot == null || snapshot.getDocumentChanges().isEmpty()) return;
+
+                    List<PantryItem> upserted = new ArrayList<>();
+                    List<String> removed = new ArrayList<>();
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        switch (change.getType()) {
+                            case ADDED, MODIFIED -> {
+                                PantryItem item = FirebaseService.toPantryItem(change.getDocument(), userId);
+                                if (item != null) upserted.add(item);
+                            }
+                            case REMOVED -> removed.add(change.getDocument().getId());
+                        }
+                    }
+
+                    System.out.println("🔄 Applying " + snapshot.getDocumentChanges().size() + " pantry change(s)");
+                    synchronized (initialSnapshotDelivered) {
+                        initialSnapshotDelivered[0] = true;
+                        listener.onChanges(upserted, removed);
+                    }
+                });
+
+        return registration::remove;
+    }
+}
@@ -0,0 +1,56 @@
+package Repository;
+
+import Firebase.FirebaseService;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Firestore-backed recipes, stored under users/{userId}/recipes.
+ */
+public class FirestoreRecipeRepository implements RecipeRepository {
+
+    private final Firestore db;
+    private final FirebaseService service;
+
+    public FirestoreRecipeRepository(Firestore db) {
+        this.db = db;
+        this.service = new FirebaseService(db);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> findAll(String userId) throws Exception {
+        Map<String, Map<String, Object>> recipes = new LinkedHashMap<>();
+        for (QueryDocumentSnapshot doc : recipes(userId).get().get().getDocuments()) {
+            recipes.put(doc.getId(), doc.getData());
+        }
+        return recipes;
+    }
+
+    @Override
+    public void save(String recipeId, Map<String, Object> data, String userId) throws Exception {
+        service.setRecipe(recipeId, data, userId);
+    }
+
+    @Override
+    public void merge(String recipeId, Map<String, Object> data, String userId) throws Exception {
+        service.mergeRecipe(recipeId, data, userId);
+    }
+
+    @Override
+    public void delete(String recipeId, String userId) throws Exception {
+        service.deleteRecipe(recipeId, userId);
+    }
+
+    @Override
+    public int countFavorites(String userId) throws Exception {
+        return service.countFavoriteRecipes(userId);
+    }
+
+    private CollectionReference recipes(String userId) {
+        return db.collection("users").document(userId).collection("recipes");
+    }
+}
@@ -0,0 +1,158 @@
+package Repository;
+
+import Firebase.BulkWriteResult;
+import Firebase.FirebaseService;
+import Firebase.PantryDocCodec;
+import Pantry.Quantity;
+import ShoppingList.PantryItem;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Firestore-backed shopping list, stored under users/{userId}/shoppingList.
+ * Recommendations read users/{userId}/pantryItems, decoded with {@link PantryDocCodec}.
+ */
+public class FirestoreShoppingListRepository implements ShoppingListRepository {
+
+    private final Firestore db;
+    private final FirebaseService service;
+
+    public FirestoreShoppingListRepository(Firestore db) {
+        this.db = db;
+        this.service = new FirebaseService(db);
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) throws Exception {
+        List<PantryItem> items = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : shoppingList(userId).get().get().getDocuments()) {
+            String name = doc.getString("item");
+            if (name == null) name = doc.getString("name"); // fallback
+
+            Long qtyLong = doc.getLong("quantity");
+            int qty = qtyLong == null ? 1 : qtyLong.intValue();
+
+            String unit = doc.getString("unit");
+            if (unit == null) unit = "count";
+
+            String location = doc.getString("location");
+            if (location == null) location = "Pantry";
+
+            // Expiration (optional)
+            LocalDate expiration = null;
+            Object expRaw = doc.get("expiration");
+            if (expRaw instanceof String) {
+                try { expiration = LocalDate.parse((String) expRaw); }
+                catch (Exception ignore) {}
+            }
+
+            boolean lowStock = Boolean.TRUE.equals(doc.getBoolean("lowStock"));
+
+            PantryItem item = new PantryItem(name, qty, unit, location, expiration, lowStock);
+            Quantity amount = PantryDocCodec.amount(doc.getData());
+            if (amount != null) item.setAmount(amount);  // keeps the decimals, e.g. "0.25 kg"
+            item.setShoppingDocId(doc.getId()); // Store doc ID for deletion
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        return service.addShoppingListItem(item, userId);
+    }
+
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        return service.addShoppingListItems(items, userId);
+    }
+
+    @Override
+    public void update(PantryItem item, String userId) throws Exception {
+        service.updateShoppingListItem(item, userId);
+    }
+
+    @Override
+    public List<String> findIds(PantryItem item, String userId) throws Exception {
+        Query q = shoppingList(userId).whereEqualTo("item", item.getName())
+                .whereEqualTo("quantity", item.getQty())
+                .whereEqualTo("unit", item.getUnit())
+                .whereEqualTo("location", item.getLocation());
+        List<String> ids = new ArrayList<>();
+        for (QueryDocumentSnapshot d : q.get().get().getDocuments()) ids.add(d.getId());
+        return ids;
+    }
+
+    @Override
+    public void delete(Collection<String> docIds, String userId) throws Exception {
+        BulkWriteResult result = service.deleteShoppingListItems(docIds, userId);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Delete failed for: " + result.getFailed().keySet());
+        }
+    }
+
+    @Override
+    public int count(String userId) throws Exception {
+        return service.countShoppingListItems(userId);
+    }
+
+    /** One range query on the canonical Timestamp expiryDate (see PantryDocCodec). */
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to) throws Exception {
+        Query q = pantryItems(userId)
+                .whereGreaterThanOrEqualTo("expiryDate", startOfDay(from))
+                .whereLessThanOrEqualTo("expiryDate", startOfDay(to))
+                .orderBy("expiryDate");
+        return runQueryToItems(q);
+    }
+
+    /**
+     * A range query on the canonical quantity field plus one for items flagged lowStock,
+     * merged by document ID (Firestore has no OR across different fields here).
+     */
+    @Override
+    public List<PantryItem> findLowStock(String userId, int threshold) throws Exception {
+        ApiFuture<QuerySnapshot> low = pantryItems(userId).whereLessThanOrEqualTo("quantity", threshold).get();
+        ApiFuture<QuerySnapshot> flagged = pantryItems(userId).whereEqualTo("lowStock", true).get();
+        Map<String, PantryItem> byId = new LinkedHashMap<>();
+        for (ApiFuture<QuerySnapshot> query : List.of(low, flagged)) {
+            for (QueryDocumentSnapshot d : query.get().getDocuments()) {
+                byId.putIfAbsent(d.getId(), PantryDocCodec.decodeRow(d.getData()));
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private CollectionReference shoppingList(String userId) {
+        return db.collection("users").document(userId).collection("shoppingList");
+    }
+
+    private CollectionReference pantryItems(String userId) {
+        return db.collection("users").document(userId).collection("pantryItems");
+    }
+
+    /** Run a query and map to PantryItem list. */
+    private List<PantryItem> runQueryToItems(Query q) throws Exception {
+        return q.get().get().getDocuments().stream()
+                .map(d -> PantryDocCodec.decodeRow(d.getData()))
+                .collect(Collectors.toList());
+    }
+
+    private static Timestamp startOfDay(LocalDate date) {
+        return Timestamp.of(java.util.Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+    }
+}
@@ -0,0 +1,238 @@
+package Repository;
+
+import Pantry.PantryItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pantry writes go to the {@link MutationJournal} first and return as soon as they are on disk;
+ * the journal replays them to the wrapped repository when it is reachable.
+ * Reads and watchers see pending changes on top of the remote state; while the remote is
+ * unreachable, reads fall back to the last items read from it.
+ */
+public class JournaledPantryRepository implements PantryRepository {
+    static final String TARGET = "pantry";
+
+    private final PantryRepository remote;
+    private final MutationJournal journal;
+    private final Map<String, List<ChangeListener>> watchers = new HashMap<>();
+    // Last successful remote findAll per user, served when the remote is unreachable
+    private final Map<String, List<PantryItem>> lastRemote = new ConcurrentHashMap<>();
+
+    public JournaledPantryRepository(PantryRepository remote, MutationJournal journal) {
+        this.remote = remote;
+        this.journal = journal;
+        journal.register(TARGET, this::replay);
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) throws Exception {
+        return withPending(userId, remoteItems(userId));
+    }
+
+    @Override
+    public List<String> findNames(String userId) throws Exception {
+        if (journal.pending(TARGET, userId).isEmpty()) {
+            try {
+                return remote.findNames(userId);
+            } catch (Exception e) {
+                return names(offline(userId, e));
+            }
+        }
+        return names(findAll(userId));
+    }
+
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to, int limit) throws Exception {
+        if (journal.pending(TARGET, userId).isEmpty()) {
+            try {
+                return remote.findExpiringBetween(userId, from, to, limit);
+            } catch (Exception e) {
+                return LocalPantryRepository.expiringBetween(offline(userId, e), from, to, limit);
+            }
+        }
+        return LocalPantryRepository.expiringBetween(findAll(userId), from, to, limit);
+    }
+
+    @Override
+    public List<PantryItem> findExpired(String userId) throws Exception {
+        if (journal.pending(TARGET, userId).isEmpty()) {
+            try {
+                return remote.findExpired(userId);
+            } catch (Exception e) {
+                return LocalPantryRepository.expired(offline(userId, e));
+            }
+        }
+        return LocalPantryRepository.expired(findAll(userId));
+    }
+
+    /** The remote items, remembered per user; the last ones read if the remote is unreachable. */
+    private List<PantryItem> remoteItems(String userId) throws Exception {
+        try {
+            List<PantryItem> items = remote.findAll(userId);
+            lastRemote.put(userId, List.copyOf(items));
+            return items;
+        } catch (Exception e) {
+            return lastKnown(userId, e);
+        }
+    }
+
+    /** Fallback for a failed narrow query: the last synced items with pending changes on top. */
+    private List<PantryItem> offline(String userId, Exception error) throws Exception {
+        return withPending(userId, lastKnown(userId, error));
+    }
+
+    /** Rethrows anything but a network failure; empty if nothing was read yet this session. */
+    private List<PantryItem> lastKnown(String userId, Exception error) throws Exception {
+        if (!MutationJournal.isTransient(error)) throw error;
+        System.err.println("📴 Pantry offline, showing last synced items: " + error.getMessage());
+        return lastRemote.getOrDefault(userId, List.of());
+    }
+
+    private List<PantryItem> withPending(String userId, List<PantryItem> items) {
+        List<MutationJournal.Entry> pending = journal.pending(TARGET, userId);
+        if (pending.isEmpty()) return items;
+
+        Map<String, PantryItem> byId = new LinkedHashMap<>();
+        for (PantryItem item : items) byId.put(item.getId(), item);
+        for (MutationJournal.Entry e : pending) {
+            if (e.op == MutationJournal.Op.DELETE) byId.remove(e.docId);
+            else byId.put(e.docId, LocalPantryRepository.toPantryItem(e.docId, e.data, userId));
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private static List<String> names(List<PantryItem> items) {
+        List<String> names = new ArrayList<>();
+        for (PantryItem item : items) {
+            if (item.getName() != null && !item.getName().isBlank()) {
+                names.add(item.getName().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        if (item.getId() == null || item.getId().isBlank()) item.setId(MutationJournal.newDocId());
+        item.setUserId(userId);
+        journal.append(TARGET, MutationJournal.Op.ADD, userId, item.getId(), LocalPantryRepository.toData(item));
+        notify(userId, List.of(item), List.of());
+        return item.getId();
+    }
+
+    /** All adds are journaled together, so they cost one fsync and replay as one bulk write. */
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        Map<String, Map<String, Object>> dataById = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (PantryItem item : items) {
+            if (item.getId() == null || item.getId().isBlank()) item.setId(MutationJournal.newDocId());
+            item.setUserId(userId);
+            dataById.put(item.getId(), LocalPantryRepository.toData(item));
+            ids.add(item.getId());
+        }
+        journal.appendAll(TARGET, MutationJournal.Op.ADD, userId, dataById);
+        notify(userId, new ArrayList<>(items), List.of());
+        return ids;
+    }
+
+    @Override
+    public void update(String itemId, PantryItem item) throws Exception {
+        if (item.getUserId() == null) {
+            throw new IllegalArgumentException("Item must have a userId to update");
+        }
+        journal.append(TARGET, MutationJournal.Op.UPDATE, item.getUserId(), itemId, LocalPantryRepository.toData(item));
+        notify(item.getUserId(), List.of(item), List.of());
+    }
+
+    @Override
+    public void delete(String itemId, String userId) throws Exception {
+        journal.append(TARGET, MutationJournal.Op.DELETE, userId, itemId, null);
+        notify(userId, List.of(), List.of(itemId));
+    }
+
+    /**
+     * Remote changes are passed through, except that documents with a pending delete stay hidden
+     * and pending adds/edits from an earlier session are replayed to the listener up front.
+     */
+    @Override
+    public Subscription watch(String userId, ChangeListener listener) {
+        synchronized (watchers) {
+            watchers.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(listener);
+        }
+
+        Subscription remoteSubscription = remote.watch(userId, (upserted, removedIds) -> {
+            Set<String> pendingDeletes = new HashSet<>();
+            for (MutationJournal.Entry e : journal.pending(TARGET, userId)) {
+                if (e.op == MutationJournal.Op.DELETE) pendingDeletes.add(e.docId);
+            }
+            if (pendingDeletes.isEmpty()) {
+                listener.onChanges(upserted, removedIds);
+                return;
+            }
+            List<PantryItem> visible = new ArrayList<>();
+            for (PantryItem item : upserted) {
+                if (!pendingDeletes.contains(item.getId())) visible.add(item);
+            }
+            listener.onChanges(visible, removedIds);
+        });
+
+        List<PantryItem> pendingItems = new ArrayList<>();
+        for (MutationJournal.Entry e : journal.pending(TARGET, userId)) {
+            if (e.op != MutationJournal.Op.DELETE) {
+                pendingItems.add(LocalPantryRepository.toPantryItem(e.docId, e.data, userId));
+            }
+        }
+        if (!pendingItems.isEmpty()) listener.onChanges(pendingItems, List.of());
+
+        return () -> {
+            remoteSubscription.cancel();
+            synchronized (watchers) {
+                List<ChangeListener> list = watchers.get(userId);
+                if (list != null) list.remove(listener);
+            }
+        };
+    }
+
+    private void replay(List<MutationJournal.Entry> entries) throws Exception {
+        MutationJournal.Entry first = entries.get(0);
+        if (first.op == MutationJournal.Op.ADD && entries.size() > 1) {
+            List<PantryItem> items = new ArrayList<>();
+            for (MutationJournal.Entry e : entries) {
+                items.add(LocalPantryRepository.toPantryItem(e.docId, e.data, e.userId));
+            }
+            remote.addAll(items, first.userId);
+            return;
+        }
+        for (MutationJournal.Entry e : entries) {
+            switch (e.op) {
+                case ADD -> {
+                    PantryItem item = LocalPantryRepository.toPantryItem(e.docId, e.data, e.userId);
+                    remote.add(item, e.userId);
+                }
+                case UPDATE -> remote.update(e.docId, LocalPantryRepository.toPantryItem(e.docId, e.data, e.userId));
+                case DELETE -> remote.delete(e.docId, e.userId);
+            }
+        }
+    }
+
+    private void notify(String userId, List<PantryItem> upserted, List<String> removedIds) {
+        List<ChangeListener> list;
+        synchronized (watchers) {
+            list = watchers.get(userId);
+        }
+        if (list == null) return;
+        for (ChangeListener l : list) l.onChanges(upserted, removedIds);
+    }
+}
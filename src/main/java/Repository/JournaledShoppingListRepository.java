@@ -0,0 +1,151 @@
+package Repository;
+
+import ShoppingList.PantryItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shopping list writes go to the {@link MutationJournal} first and return as soon as they are
+ * on disk; the journal replays them to the wrapped repository when it is reachable. While it is
+ * not, the list is served from the last entries read from it, with pending changes on top.
+ * Pantry lookups for recommendations are passed straight through.
+ */
+public class JournaledShoppingListRepository implements ShoppingListRepository {
+    static final String TARGET = "shoppingList";
+
+    private final ShoppingListRepository remote;
+    private final MutationJournal journal;
+    // Last successful remote findAll per user, served when the remote is unreachable
+    private final Map<String, List<PantryItem>> lastRemote = new ConcurrentHashMap<>();
+
+    public JournaledShoppingListRepository(ShoppingListRepository remote, MutationJournal journal) {
+        this.remote = remote;
+        this.journal = journal;
+        journal.register(TARGET, this::replay);
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) throws Exception {
+        List<MutationJournal.Entry> pending = journal.pending(TARGET, userId);
+        List<PantryItem> items = remoteItems(userId);
+        if (pending.isEmpty()) return items;
+
+        Map<String, PantryItem> byId = new LinkedHashMap<>();
+        for (PantryItem item : items) byId.put(item.getShoppingDocId(), item);
+        for (MutationJournal.Entry e : pending) {
+            if (e.op == MutationJournal.Op.DELETE) byId.remove(e.docId);
+            else byId.put(e.docId, LocalShoppingListRepository.toItem(e.docId, e.data));
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    /** The remote entries, remembered per user; the last ones read if the remote is unreachable. */
+    private List<PantryItem> remoteItems(String userId) throws Exception {
+        try {
+            List<PantryItem> items = remote.findAll(userId);
+            lastRemote.put(userId, List.copyOf(items));
+            return items;
+        } catch (Exception e) {
+            if (!MutationJournal.isTransient(e)) throw e;
+            System.err.println("📴 Shopping list offline, showing last synced entries: " + e.getMessage());
+            return lastRemote.getOrDefault(userId, List.of());
+        }
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        if (item.getShoppingDocId() == null || item.getShoppingDocId().isBlank()) {
+            item.setShoppingDocId(MutationJournal.newDocId());
+        }
+        journal.append(TARGET, MutationJournal.Op.ADD, userId, item.getShoppingDocId(),
+                LocalShoppingListRepository.toData(item));
+        return item.getShoppingDocId();
+    }
+
+    /** All adds are journaled together, so they cost one fsync and replay as one batch. */
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        Map<String, Map<String, Object>> byId = new LinkedHashMap<>();
+        for (PantryItem item : items) {
+            if (item.getShoppingDocId() == null || item.getShoppingDocId().isBlank()) {
+                item.setShoppingDocId(MutationJournal.newDocId());
+            }
+            byId.put(item.getShoppingDocId(), LocalShoppingListRepository.toData(item));
+        }
+        journal.appendAll(TARGET, MutationJournal.Op.ADD, userId, byId);
+        return new ArrayList<>(byId.keySet());
+    }
+
+    @Override
+    public void update(PantryItem item, String userId) throws Exception {
+        if (item.getShoppingDocId() == null || item.getShoppingDocId().isBlank()) {
+            throw new IllegalArgumentException("Item must have a shoppingDocId to update");
+        }
+        journal.append(TARGET, MutationJournal.Op.UPDATE, userId, item.getShoppingDocId(),
+                LocalShoppingListRepository.toData(item));
+    }
+
+    @Override
+    public List<String> findIds(PantryItem item, String userId) throws Exception {
+        return remote.findIds(item, userId);
+    }
+
+    /** All deletes are journaled together, so they cost one fsync and replay as one batch. */
+    @Override
+    public void delete(Collection<String> docIds, String userId) throws Exception {
+        Map<String, Map<String, Object>> byId = new LinkedHashMap<>();
+        for (String id : docIds) byId.put(id, null);
+        journal.appendAll(TARGET, MutationJournal.Op.DELETE, userId, byId);
+    }
+
+    @Override
+    public int count(String userId) throws Exception {
+        if (journal.pending(TARGET, userId).isEmpty()) {
+            try {
+                return remote.count(userId);
+            } catch (Exception e) {
+                if (!MutationJournal.isTransient(e)) throw e;
+            }
+        }
+        return findAll(userId).size();
+    }
+
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to) throws Exception {
+        return remote.findExpiringBetween(userId, from, to);
+    }
+
+    @Override
+    public List<PantryItem> findLowStock(String userId, int threshold) throws Exception {
+        return remote.findLowStock(userId, threshold);
+    }
+
+    private void replay(List<MutationJournal.Entry> entries) throws Exception {
+        MutationJournal.Entry first = entries.get(0);
+        if (first.op == MutationJournal.Op.DELETE) {
+            List<String> ids = new ArrayList<>();
+            for (MutationJournal.Entry e : entries) ids.add(e.docId);
+            remote.delete(ids, first.userId);
+            return;
+        }
+        if (first.op == MutationJournal.Op.ADD && entries.size() > 1) {
+            List<PantryItem> items = new ArrayList<>();
+            for (MutationJournal.Entry e : entries) items.add(LocalShoppingListRepository.toItem(e.docId, e.data));
+            remote.addAll(items, first.userId);
+            return;
+        }
+        for (MutationJournal.Entry e : entries) {
+            switch (e.op) {
+                case ADD -> remote.add(LocalShoppingListRepository.toItem(e.docId, e.data), e.userId);
+                case UPDATE -> remote.update(LocalShoppingListRepository.toItem(e.docId, e.data), e.userId);
+                case DELETE -> remote.delete(List.of(e.docId), e.userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package Repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Document store used by the in-memory and file-backed repositories.
+ *
+ * Mirrors the Firestore layout (user → collection → document ID → fields) so the local
+ * repositories store the same field names. Fields must be JSON-friendly values
+ * (strings, numbers, booleans, lists and maps).
+ *
+ * With a directory, each collection is kept in {dir}/{userId}/{collection}.json and
+ * rewritten atomically on every change; without one, nothing survives a restart.
+ */
+public class LocalDocumentStore {
+    private final Path dir;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Map<String, LinkedHashMap<String, Map<String, Object>>>> users = new HashMap<>();
+
+    /** In-memory store. */
+    public LocalDocumentStore() {
+        this(null);
+    }
+
+    /**
+     * @param dir Directory to persist collections in, or null to keep them in memory only
+     */
+    public LocalDocumentStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public synchronized List<Map.Entry<String, Map<String, Object>>> list(String userId, String collection) {
+        List<Map.Entry<String, Map<String, Object>>> docs = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(userId, collection).entrySet()) {
+            docs.add(Map.entry(e.getKey(), new HashMap<>(e.getValue())));
+        }
+        return docs;
+    }
+
+    public synchronized Map<String, Object> get(String userId, String collection, String id) {
+        Map<String, Object> doc = collection(userId, collection).get(id);
+        return doc == null ? null : new HashMap<>(doc);
+    }
+
+    /** @return The generated document ID */
+    public synchronized String add(String userId, String collection, Map<String, Object> data) throws IOException {
+        String id = UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        set(userId, collection, id, data);
+        return id;
+    }
+
+    /** Create or overwrite the document. */
+    public synchronized void set(String userId, String collection, String id, Map<String, Object> data) throws IOException {
+        collection(userId, collection).put(id, new HashMap<>(data));
+        save(userId, collection);
+    }
+
+    /** Merge fields into the document, creating it if missing. */
+    public synchronized void merge(String userId, String collection, String id, Map<String, Object> data) throws IOException {
+        collection(userId, collection).computeIfAbsent(id, k -> new HashMap<>()).putAll(data);
+        save(userId, collection);
+    }
+
+    /** @return True if the document existed */
+    public synchronized boolean delete(String userId, String collection, String id) throws IOException {
+        boolean removed = collection(userId, collection).remove(id) != null;
+        if (removed) save(userId, collection);
+        return removed;
+    }
+
+    /** Firestore sentinels and timestamps (e.g. FieldValue.serverTimestamp()) become ISO strings. */
+    public static Map<String, Object> plain(Map<String, Object> data) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : data.entrySet()) {
+            Object v = e.getValue();
+            if (v instanceof com.google.cloud.Timestamp ts) {
+                v = ts.toDate().toInstant().toString();
+            } else if (v instanceof com.google.cloud.firestore.FieldValue) {
+                v = java.time.Instant.now().toString();
+            }
+            copy.put(e.getKey(), v);
+        }
+        return copy;
+    }
+
+    private LinkedHashMap<String, Map<String, Object>> collection(String userId, String collection) {
+        return users.computeIfAbsent(userId, k -> new HashMap<>())
+                .computeIfAbsent(collection, k -> load(userId, collection));
+    }
+
+    private LinkedHashMap<String, Map<String, Object>> load(String userId, String collection) {
+        if (dir == null) return new LinkedHashMap<>();
+        Path file = file(userId, collection);
+        if (!Files.exists(file)) return new LinkedHashMap<>();
+        try {
+            return mapper.readValue(file.toFile(),
+                    new TypeReference<LinkedHashMap<String, Map<String, Object>>>() {});
+        } catch (IOException e) {
+            System.err.println("⚠ Could not read " + file + ": " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private void save(String userId, String collection) throws IOException {
+        if (dir == null) return;
+        Path file = file(userId, collection);
+        Files.createDirectories(file.getParent());
+
+        // Write to a temp file first so a crash mid-write never leaves a truncated collection
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), users.get(userId).get(collection));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path file(String userId, String collection) {
+        return dir.resolve(userId).resolve(collection + ".json");
+    }
+}
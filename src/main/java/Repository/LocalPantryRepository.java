@@ -0,0 +1,155 @@
+package Repository;
+
+import Firebase.PantryDocCodec;
+import Pantry.PantryItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Pantry kept in a {@link LocalDocumentStore}, using the same field names as Firestore.
+ * Watchers are notified synchronously after every write made through this repository.
+ */
+public class LocalPantryRepository implements PantryRepository {
+    static final String COLLECTION = "pantryItems";
+
+    private final LocalDocumentStore store;
+    private final Map<String, List<ChangeListener>> watchers = new HashMap<>();
+
+    public LocalPantryRepository(LocalDocumentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) {
+        List<PantryItem> items = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            items.add(toPantryItem(doc.getKey(), doc.getValue(), userId));
+        }
+        return items;
+    }
+
+    @Override
+    public List<String> findNames(String userId) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            Object name = doc.getValue().get("name");
+            if (name instanceof String s && !s.isBlank()) names.add(s.trim().toLowerCase(Locale.ROOT));
+        }
+        return names;
+    }
+
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to, int limit) {
+        return expiringBetween(findAll(userId), from, to, limit);
+    }
+
+    @Override
+    public List<PantryItem> findExpired(String userId) {
+        return expired(findAll(userId));
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        String id = store(item, userId);
+        notify(userId, List.of(toPantryItem(id, store.get(userId, COLLECTION, id), userId)), List.of());
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        List<String> ids = new ArrayList<>();
+        List<PantryItem> added = new ArrayList<>();
+        for (PantryItem item : items) {
+            String id = store(item, userId);
+            ids.add(id);
+            added.add(toPantryItem(id, store.get(userId, COLLECTION, id), userId));
+        }
+        notify(userId, added, List.of());
+        return ids;
+    }
+
+    private String store(PantryItem item, String userId) throws Exception {
+        Map<String, Object> data = LocalDocumentStore.plain(PantryDocCodec.encodeNew(item));
+        String id = item.getId();
+        if (id != null && !id.isBlank()) {
+            store.set(userId, COLLECTION, id, data);
+        } else {
+            id = store.add(userId, COLLECTION, data);
+            item.setId(id);
+        }
+        return id;
+    }
+
+    @Override
+    public void update(String itemId, PantryItem item) throws Exception {
+        if (item.getUserId() == null) {
+            throw new IllegalArgumentException("Item must have a userId to update");
+        }
+        store.merge(item.getUserId(), COLLECTION, itemId, toData(item));
+        Map<String, Object> updated = store.get(item.getUserId(), COLLECTION, itemId);
+        notify(item.getUserId(), List.of(toPantryItem(itemId, updated, item.getUserId())), List.of());
+    }
+
+    @Override
+    public void delete(String itemId, String userId) throws Exception {
+        if (store.delete(userId, COLLECTION, itemId)) {
+            notify(userId, List.of(), List.of(itemId));
+        }
+    }
+
+    @Override
+    public Subscription watch(String userId, ChangeListener listener) {
+        synchronized (watchers) {
+            watchers.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(listener);
+        }
+        listener.onChanges(findAll(userId), List.of());
+        return () -> {
+            synchronized (watchers) {
+                List<ChangeListener> list = watchers.get(userId);
+                if (list != null) list.remove(listener);
+            }
+        };
+    }
+
+    private void notify(String userId, List<PantryItem> upserted, List<String> removedIds) {
+        List<ChangeListener> list;
+        synchronized (watchers) {
+            list = watchers.get(userId);
+        }
+        if (list == null) return;
+        for (ChangeListener l : list) l.onChanges(upserted, removedIds);
+    }
+
+    static List<PantryItem> expiringBetween(List<PantryItem> items, LocalDate from, LocalDate to, int limit) {
+        return items.stream()
+                .filter(i -> i.getExpires() != null && !i.getExpires().isBefore(from) && !i.getExpires().isAfter(to))
+                .sorted(Comparator.comparing(PantryItem::getExpires))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    static List<PantryItem> expired(List<PantryItem> items) {
+        LocalDate today = LocalDate.now();
+        return items.stream()
+                .filter(i -> i.getExpires() != null && i.getExpires().isBefore(today))
+                .sorted(Comparator.comparing(PantryItem::getExpires))
+                .collect(Collectors.toList());
+    }
+
+    /** Same fields as Firestore (see PantryDocCodec), with timestamps as ISO strings. */
+    static Map<String, Object> toData(PantryItem item) {
+        return LocalDocumentStore.plain(PantryDocCodec.encode(item));
+    }
+
+    static PantryItem toPantryItem(String id, Map<String, Object> data, String userId) {
+        return PantryDocCodec.decode(id, data, userId);
+    }
+}
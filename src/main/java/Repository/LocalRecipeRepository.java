@@ -0,0 +1,50 @@
+package Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recipes kept in a {@link LocalDocumentStore}.
+ */
+public class LocalRecipeRepository implements RecipeRepository {
+    static final String COLLECTION = "recipes";
+
+    private final LocalDocumentStore store;
+
+    public LocalRecipeRepository(LocalDocumentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> findAll(String userId) {
+        Map<String, Map<String, Object>> recipes = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            recipes.put(doc.getKey(), doc.getValue());
+        }
+        return recipes;
+    }
+
+    @Override
+    public void save(String recipeId, Map<String, Object> data, String userId) throws Exception {
+        store.set(userId, COLLECTION, recipeId, LocalDocumentStore.plain(data));
+    }
+
+    @Override
+    public void merge(String recipeId, Map<String, Object> data, String userId) throws Exception {
+        store.merge(userId, COLLECTION, recipeId, LocalDocumentStore.plain(data));
+    }
+
+    @Override
+    public void delete(String recipeId, String userId) throws Exception {
+        store.delete(userId, COLLECTION, recipeId);
+    }
+
+    @Override
+    public int countFavorites(String userId) {
+        int count = 0;
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            if (Boolean.TRUE.equals(doc.getValue().get("favorite"))) count++;
+        }
+        return count;
+    }
+}
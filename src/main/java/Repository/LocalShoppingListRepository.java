@@ -0,0 +1,151 @@
+package Repository;
+
+import Firebase.PantryDocCodec;
+import Pantry.Quantity;
+import ShoppingList.PantryItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shopping list kept in a {@link LocalDocumentStore}, using the same field names as Firestore.
+ * Recommendations read the pantry collection of the same store.
+ */
+public class LocalShoppingListRepository implements ShoppingListRepository {
+    static final String COLLECTION = "shoppingList";
+
+    private final LocalDocumentStore store;
+
+    public LocalShoppingListRepository(LocalDocumentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<PantryItem> findAll(String userId) {
+        List<PantryItem> items = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            items.add(toItem(doc.getKey(), doc.getValue()));
+        }
+        return items;
+    }
+
+    /** Shopping list document → row. */
+    static PantryItem toItem(String id, Map<String, Object> d) {
+        String name = (String) d.getOrDefault("item", d.get("name"));
+        int qty = d.get("quantity") instanceof Number n ? n.intValue() : 1;
+        String unit = (String) d.getOrDefault("unit", "count");
+        String location = (String) d.getOrDefault("location", "Pantry");
+        LocalDate expiration = parseDate(d.get("expiration"));
+        boolean lowStock = Boolean.TRUE.equals(d.get("lowStock"));
+
+        PantryItem item = new PantryItem(name, qty, unit, location, expiration, lowStock);
+        Quantity amount = PantryDocCodec.amount(d);
+        if (amount != null) item.setAmount(amount);
+        item.setShoppingDocId(id);
+        return item;
+    }
+
+    @Override
+    public String add(PantryItem item, String userId) throws Exception {
+        Map<String, Object> data = toData(item);
+        data.put("createdAt", LocalDate.now().toString());
+        String id = item.getShoppingDocId();
+        if (id != null && !id.isBlank()) {
+            store.set(userId, COLLECTION, id, data);
+        } else {
+            id = store.add(userId, COLLECTION, data);
+            item.setShoppingDocId(id);
+        }
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<PantryItem> items, String userId) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (PantryItem item : items) ids.add(add(item, userId));
+        return ids;
+    }
+
+    @Override
+    public void update(PantryItem item, String userId) throws Exception {
+        if (item.getShoppingDocId() == null) {
+            throw new IllegalArgumentException("Item must have a shoppingDocId to update");
+        }
+        store.merge(userId, COLLECTION, item.getShoppingDocId(), toData(item));
+    }
+
+    @Override
+    public List<String> findIds(PantryItem item, String userId) {
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, COLLECTION)) {
+            Map<String, Object> d = doc.getValue();
+            if (Objects.equals(d.get("item"), item.getName())
+                    && d.get("quantity") instanceof Number n && n.intValue() == item.getQty()
+                    && Objects.equals(d.get("unit"), item.getUnit())
+                    && Objects.equals(d.get("location"), item.getLocation())) {
+                ids.add(doc.getKey());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void delete(Collection<String> docIds, String userId) throws Exception {
+        for (String id : docIds) {
+            store.delete(userId, COLLECTION, id);
+        }
+    }
+
+    @Override
+    public int count(String userId) {
+        return store.list(userId, COLLECTION).size();
+    }
+
+    @Override
+    public List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to) {
+        List<PantryItem> items = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, LocalPantryRepository.COLLECTION)) {
+            PantryItem row = toRow(doc.getValue());
+            LocalDate exp = row.getExpiration();
+            if (exp != null && !exp.isBefore(from) && !exp.isAfter(to)) items.add(row);
+        }
+        return items;
+    }
+
+    @Override
+    public List<PantryItem> findLowStock(String userId, int threshold) {
+        List<PantryItem> items = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> doc : store.list(userId, LocalPantryRepository.COLLECTION)) {
+            PantryItem row = toRow(doc.getValue());
+            if (row.isLowStock() || row.getQty() <= threshold) items.add(row);
+        }
+        return items;
+    }
+
+    static Map<String, Object> toData(PantryItem item) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("item", item.getName());
+        data.put("quantity", item.getQty());
+        data.put("unit", item.getUnit());
+        data.put("location", item.getLocation());
+        PantryDocCodec.putAmount(data, item.getExactAmount());
+        return data;
+    }
+
+    /** Pantry document → shopping list row. */
+    private static PantryItem toRow(Map<String, Object> d) {
+        return PantryDocCodec.decodeRow(d);
+    }
+
+    private static LocalDate parseDate(Object value) {
+        if (value instanceof String s) {
+            try { return LocalDate.parse(s); } catch (Exception ignore) { }
+        }
+        return null;
+    }
+}
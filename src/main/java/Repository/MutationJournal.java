@@ -0,0 +1,424 @@
+package Repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only write-ahead journal of pantry and shopping-list mutations (~/.smartpantry/journal.log).
+ *
+ * A mutation is durable once {@link #append} returns: a writer thread groups everything queued
+ * since the last flush into one write and one fsync. A replay thread then pushes pending
+ * entries to the remote store in order, coalescing repeated writes to the same document and
+ * handing consecutive entries with the same target, user and op to the replayer together,
+ * and appends an ack line for each one. Entries left unacked by a crash are replayed on the next
+ * start; every entry carries an idempotency key and adds use client-generated IDs, so a replay
+ * of something that already reached Firestore is harmless.
+ */
+public class MutationJournal {
+    public enum Op { ADD, UPDATE, DELETE }
+
+    private static final long MIN_RETRY_MS = 2_000;
+    private static final long MAX_RETRY_MS = 60_000;
+
+    /** One line of the journal: a mutation, or an ack of an earlier one. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+        public String key;          // idempotency key
+        public String target;       // e.g. "pantry", "shoppingList"
+        public Op op;
+        public String userId;
+        public String docId;
+        public Map<String, Object> data;
+        public String ack;          // set on ack lines only
+    }
+
+    /**
+     * Pushes a run of (possibly coalesced) entries to the remote store. The entries share
+     * target, user and op, so a replayer can write them in one batch.
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        void replay(List<Entry> entries) throws Exception;
+    }
+
+    private static MutationJournal instance;
+
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LinkedBlockingQueue<PendingWrite> writes = new LinkedBlockingQueue<>();
+    private final Map<String, Replayer> replayers = new HashMap<>();
+    // Unacked mutations in journal order; guarded by "this"
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private final Object replaySignal = new Object();
+    private FileChannel channel;
+
+    private record PendingWrite(byte[] line, CompletableFuture<Void> durable) {}
+
+    MutationJournal(Path file) {
+        this.file = file;
+    }
+
+    public static synchronized MutationJournal getInstance() {
+        if (instance == null) {
+            instance = new MutationJournal(Paths.get(System.getProperty("user.home"), ".smartpantry", "journal.log"));
+            instance.open();
+        }
+        return instance;
+    }
+
+    /**
+     * Load unacked entries left by a previous run and start the writer and replay threads.
+     */
+    synchronized void open() {
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) continue;
+                    try {
+                        Entry e = mapper.readValue(line, Entry.class);
+                        if (e.ack != null) pending.remove(e.ack);
+                        else pending.putIfAbsent(e.key, e);
+                    } catch (IOException ex) {
+                        // A torn last line from a crash mid-write; everything before it is intact
+                        System.err.println("⚠ Skipping unreadable journal line: " + ex.getMessage());
+                    }
+                }
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open journal " + file, e);
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("📒 " + pending.size() + " journaled change(s) waiting to sync");
+        }
+
+        startDaemon(this::writeLoop, "journal-writer");
+        startDaemon(this::replayLoop, "journal-replay");
+    }
+
+    /**
+     * Register how entries for a target are pushed to the remote store.
+     */
+    public void register(String target, Replayer replayer) {
+        synchronized (replayers) {
+            replayers.put(target, replayer);
+        }
+        wakeReplay();
+    }
+
+    /**
+     * Record a mutation and block until it is on disk.
+     *
+     * @return The entry as journaled
+     */
+    public Entry append(String target, Op op, String userId, String docId, Map<String, Object> data)
+            throws IOException, InterruptedException {
+        Map<String, Map<String, Object>> one = new LinkedHashMap<>();
+        one.put(docId, data);
+        return appendAll(target, op, userId, one).get(0);
+    }
+
+    /**
+     * Record one mutation per document and block until all of them are on disk.
+     * They are queued together, so the writer flushes them with a single fsync.
+     *
+     * @param dataByDocId Document IDs mapped to their data, in the order to journal them
+     * @return The entries as journaled
+     */
+    public List<Entry> appendAll(String target, Op op, String userId, Map<String, Map<String, Object>> dataByDocId)
+            throws IOException, InterruptedException {
+        List<Entry> entries = new ArrayList<>();
+        List<CompletableFuture<Void>> durable = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Map<String, Object>> doc : dataByDocId.entrySet()) {
+                Entry e = new Entry();
+                e.key = UUID.randomUUID().toString();
+                e.target = target;
+                e.op = op;
+                e.userId = userId;
+                e.docId = doc.getKey();
+                e.data = doc.getValue();
+                pending.put(e.key, e);
+                entries.add(e);
+                durable.add(enqueue(e));
+            }
+        }
+        try {
+            CompletableFuture.allOf(durable.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException ex) {
+            synchronized (this) {
+                for (Entry e : entries) pending.remove(e.key);
+            }
+            throw new IOException("Journal write failed", ex.getCause());
+        }
+        wakeReplay();
+        return entries;
+    }
+
+    /**
+     * @return Unacked entries for the target and user, in journal order
+     */
+    public synchronized List<Entry> pending(String target, String userId) {
+        List<Entry> out = new ArrayList<>();
+        for (Entry e : pending.values()) {
+            if (e.target.equals(target) && e.userId.equals(userId)) out.add(e);
+        }
+        return out;
+    }
+
+    public static String newDocId() {
+        // Same length and alphabet as Firestore auto IDs
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+
+    // ===== Writer =====
+
+    private CompletableFuture<Void> enqueue(Entry e) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        try {
+            byte[] line = (mapper.writeValueAsString(e) + "\n").getBytes(StandardCharsets.UTF_8);
+            writes.add(new PendingWrite(line, durable));
+        } catch (IOException ex) {
+            durable.completeExceptionally(ex);
+        }
+        return durable;
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(writes.take());
+                writes.drainTo(batch);
+
+                IOException failure = null;
+                try {
+                    for (PendingWrite w : batch) {
+                        ByteBuffer buf = ByteBuffer.wrap(w.line());
+                        while (buf.hasRemaining()) channel.write(buf);
+                    }
+                    channel.force(false);  // one fsync for the whole batch
+                } catch (IOException ex) {
+                    failure = ex;
+                    System.err.println("❌ Journal write failed: " + ex.getMessage());
+                }
+                for (PendingWrite w : batch) {
+                    if (failure == null) w.durable().complete(null);
+                    else w.durable().completeExceptionally(failure);
+                }
+                batch.clear();
+
+                compactIfDrained();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /** Once everything is acked the log carries no information, so start it over. */
+    private synchronized void compactIfDrained() {
+        if (!pending.isEmpty() || !writes.isEmpty()) return;
+        try {
+            if (channel.size() > 0) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ Journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    // ===== Replay =====
+
+    /** A coalesced mutation plus every journal key it stands for. */
+    static class Coalesced {
+        Entry entry;
+        final List<String> keys = new ArrayList<>();
+    }
+
+    /**
+     * Fold repeated writes to the same document into one: add+update → add with the newest
+     * fields, update+update → newest update, update+delete → delete, add+delete → nothing.
+     *
+     * @param dropped Receives keys whose mutations cancelled out
+     */
+    static List<Coalesced> coalesce(List<Entry> entries, List<String> dropped) {
+        LinkedHashMap<String, Coalesced> byDoc = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            String doc = e.target + "/" + e.userId + "/" + e.docId;
+            Coalesced c = byDoc.get(doc);
+            if (c == null) {
+                c = new Coalesced();
+                c.entry = e;
+                c.keys.add(e.key);
+                byDoc.put(doc, c);
+                continue;
+            }
+            c.keys.add(e.key);
+            if (c.entry.op == Op.ADD && e.op == Op.DELETE) {
+                byDoc.remove(doc);
+                dropped.addAll(c.keys);
+            } else if (c.entry.op == Op.ADD && e.op == Op.UPDATE) {
+                Entry merged = copy(c.entry);
+                merged.data = e.data;
+                c.entry = merged;
+            } else {
+                c.entry = e;
+            }
+        }
+        return new ArrayList<>(byDoc.values());
+    }
+
+    private static Entry copy(Entry e) {
+        Entry c = new Entry();
+        c.key = e.key;
+        c.target = e.target;
+        c.op = e.op;
+        c.userId = e.userId;
+        c.docId = e.docId;
+        c.data = e.data;
+        return c;
+    }
+
+    private void replayLoop() {
+        long delay = MIN_RETRY_MS;
+        while (true) {
+            try {
+                boolean ok = replayPending();
+                delay = ok ? MIN_RETRY_MS : Math.min(delay * 2, MAX_RETRY_MS);
+                synchronized (replaySignal) {
+                    if (ok && !hasPending()) replaySignal.wait();
+                    else replaySignal.wait(delay);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return False if the remote store looked unreachable and the rest should be retried later
+     */
+    private boolean replayPending() throws InterruptedException {
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(pending.values());
+        }
+        if (snapshot.isEmpty()) return true;
+
+        List<String> dropped = new ArrayList<>();
+        List<Coalesced> ops = coalesce(snapshot, dropped);
+        ack(dropped);
+
+        for (List<Coalesced> run : runs(ops)) {
+            Entry first = run.get(0).entry;
+            Replayer replayer;
+            synchronized (replayers) {
+                replayer = replayers.get(first.target);
+            }
+            if (replayer == null) continue;  // its repository has not started yet
+
+            List<Entry> entries = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            for (Coalesced c : run) {
+                entries.add(c.entry);
+                keys.addAll(c.keys);
+            }
+            try {
+                replayer.replay(entries);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (isTransient(e)) {
+                    System.err.println("📴 Sync paused, will retry: " + e.getMessage());
+                    return false;
+                }
+                // Retrying will not help (e.g. the document was deleted elsewhere); drop it so it cannot block the queue
+                System.err.println("❌ Dropping " + entries.size() + " journaled " + first.op + "(s) starting at "
+                        + first.docId + ": " + e.getMessage());
+            }
+            ack(keys);
+        }
+        if (!ops.isEmpty()) System.out.println("✓ Synced " + ops.size() + " journaled change(s)");
+        return true;
+    }
+
+    /** Split coalesced entries, in order, into runs with the same target, user and op. */
+    static List<List<Coalesced>> runs(List<Coalesced> ops) {
+        List<List<Coalesced>> runs = new ArrayList<>();
+        List<Coalesced> run = null;
+        for (Coalesced c : ops) {
+            Entry last = run == null ? null : run.get(run.size() - 1).entry;
+            if (last == null || last.op != c.entry.op
+                    || !last.target.equals(c.entry.target) || !last.userId.equals(c.entry.userId)) {
+                run = new ArrayList<>();
+                runs.add(run);
+            }
+            run.add(c);
+        }
+        return runs;
+    }
+
+    private void ack(List<String> keys) {
+        if (keys.isEmpty()) return;
+        synchronized (this) {
+            for (String key : keys) {
+                pending.remove(key);
+                Entry a = new Entry();
+                a.ack = key;
+                enqueue(a);  // durability of acks is best effort: losing one only causes a harmless replay
+            }
+        }
+    }
+
+    private synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    private void wakeReplay() {
+        synchronized (replaySignal) {
+            replaySignal.notifyAll();
+        }
+    }
+
+    /** Network trouble and server-side overload are worth retrying; anything else is not. */
+    static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof com.google.api.gax.rpc.ApiException api) return api.isRetryable();
+            if (t instanceof io.grpc.StatusRuntimeException sre) {
+                return switch (sre.getStatus().getCode()) {
+                    case UNAVAILABLE, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED, ABORTED, INTERNAL -> true;
+                    default -> false;
+                };
+            }
+            if (t instanceof IOException || t instanceof java.util.concurrent.TimeoutException) return true;
+        }
+        return false;
+    }
+
+    private static void startDaemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        t.start();
+    }
+}
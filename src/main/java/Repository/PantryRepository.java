@@ -0,0 +1,63 @@
+package Repository;
+
+import Pantry.PantryItem;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Storage for a user's pantry items (users/{userId}/pantryItems in Firestore).
+ * Calls may block on I/O, so run them off the JavaFX Application Thread.
+ */
+public interface PantryRepository {
+
+    /** Receives pantry changes pushed by {@link #watch}. */
+    interface ChangeListener {
+        /**
+         * @param upserted   Items that were added or modified
+         * @param removedIds IDs of items that were deleted
+         */
+        void onChanges(List<PantryItem> upserted, List<String> removedIds);
+    }
+
+    /** Handle returned by {@link #watch}; cancel it to stop receiving changes. */
+    interface Subscription {
+        void cancel();
+    }
+
+    List<PantryItem> findAll(String userId) throws Exception;
+
+    /** Item names only, trimmed and lower-cased (used for recipe matching). */
+    List<String> findNames(String userId) throws Exception;
+
+    /** Items expiring between the two dates (inclusive), soonest first, at most limit of them. */
+    List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to, int limit) throws Exception;
+
+    /** Items whose expiry date is before today, oldest first. */
+    List<PantryItem> findExpired(String userId) throws Exception;
+
+    /**
+     * If the item already carries an ID it is created under that ID, so a repeated add is harmless.
+     *
+     * @return The ID of the new item
+     */
+    String add(PantryItem item, String userId) throws Exception;
+
+    /**
+     * Add many items in one bulk write instead of one round trip each.
+     *
+     * @return The IDs of the new items, in the order given
+     */
+    List<String> addAll(List<PantryItem> items, String userId) throws Exception;
+
+    /** The item must carry its userId. */
+    void update(String itemId, PantryItem item) throws Exception;
+
+    void delete(String itemId, String userId) throws Exception;
+
+    /**
+     * Push the current items and every later change to the listener.
+     * Listener calls may arrive on any thread.
+     */
+    Subscription watch(String userId, ChangeListener listener);
+}
@@ -0,0 +1,25 @@
+package Repository;
+
+import java.util.Map;
+
+/**
+ * Storage for a user's saved recipes (users/{userId}/recipes in Firestore).
+ * Recipes are kept as plain field maps because the legacy and unified recipe
+ * views read different fields from the same documents.
+ * Calls may block on I/O, so run them off the JavaFX Application Thread.
+ */
+public interface RecipeRepository {
+
+    /** @return Recipe IDs mapped to their fields */
+    Map<String, Map<String, Object>> findAll(String userId) throws Exception;
+
+    /** Create or overwrite the recipe. */
+    void save(String recipeId, Map<String, Object> data, String userId) throws Exception;
+
+    /** Create the recipe or merge the given fields into it. */
+    void merge(String recipeId, Map<String, Object> data, String userId) throws Exception;
+
+    void delete(String recipeId, String userId) throws Exception;
+
+    int countFavorites(String userId) throws Exception;
+}
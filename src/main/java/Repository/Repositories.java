@@ -0,0 +1,96 @@
+package Repository;
+
+import Firebase.FirebaseConfiguration;
+import com.google.cloud.firestore.Firestore;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Picks the storage backend once at startup and hands out its repositories.
+ *
+ * Select it with -Dsmartpantry.store=firestore|memory|file (default firestore).
+ * "memory" keeps everything in RAM (handy for UI work without credentials),
+ * "file" persists JSON documents under ~/.smartpantry/store.
+ * With Firestore, pantry and shopping list writes go through the offline {@link MutationJournal}.
+ */
+public final class Repositories {
+    public enum Store { FIRESTORE, MEMORY, FILE }
+
+    private static Store store;
+    private static PantryRepository pantry;
+    private static ShoppingListRepository shoppingList;
+    private static RecipeRepository recipes;
+
+    private Repositories() {
+    }
+
+    /**
+     * Initialize from the smartpantry.store system property.
+     */
+    public static synchronized Store initialize() {
+        String value = System.getProperty("smartpantry.store", "firestore");
+        Store selected;
+        try {
+            selected = Store.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠ Unknown smartpantry.store '" + value + "', using Firestore");
+            selected = Store.FIRESTORE;
+        }
+        initialize(selected);
+        return selected;
+    }
+
+    public static synchronized void initialize(Store selected) {
+        switch (selected) {
+            case FIRESTORE -> {
+                Firestore db = FirebaseConfiguration.initialize();
+                pantry = new FirestorePantryRepository(db);
+                shoppingList = new FirestoreShoppingListRepository(db);
+                recipes = new FirestoreRecipeRepository(db);
+
+                // Pantry and shopping list writes commit locally first, then sync (-Dsmartpantry.journal=false to write straight through)
+                if (Boolean.parseBoolean(System.getProperty("smartpantry.journal", "true"))) {
+                    MutationJournal journal = MutationJournal.getInstance();
+                    pantry = new JournaledPantryRepository(pantry, journal);
+                    shoppingList = new JournaledShoppingListRepository(shoppingList, journal);
+                }
+            }
+            case MEMORY, FILE -> {
+                Path dir = selected == Store.FILE
+                        ? Paths.get(System.getProperty("user.home"), ".smartpantry", "store")
+                        : null;
+                LocalDocumentStore local = new LocalDocumentStore(dir);
+                pantry = new LocalPantryRepository(local);
+                shoppingList = new LocalShoppingListRepository(local);
+                recipes = new LocalRecipeRepository(local);
+            }
+        }
+        store = selected;
+        System.out.println("✓ Storage backend: " + selected);
+    }
+
+    public static synchronized Store store() {
+        if (store == null) initialize();
+        return store;
+    }
+
+    public static boolean isFirestore() {
+        return store() == Store.FIRESTORE;
+    }
+
+    public static synchronized PantryRepository pantry() {
+        if (store == null) initialize();
+        return pantry;
+    }
+
+    public static synchronized ShoppingListRepository shoppingList() {
+        if (store == null) initialize();
+        return shoppingList;
+    }
+
+    public static synchronized RecipeRepository recipes() {
+        if (store == null) initialize();
+        return recipes;
+    }
+}
@@ -0,0 +1,48 @@
+package Repository;
+
+import ShoppingList.PantryItem;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage for a user's shopping list (users/{userId}/shoppingList in Firestore) plus the
+ * pantry lookups that feed the shopping list's Recommended view.
+ * Calls may block on I/O, so run them off the JavaFX Application Thread.
+ */
+public interface ShoppingListRepository {
+
+    List<PantryItem> findAll(String userId) throws Exception;
+
+    /**
+     * If the item already carries a shoppingDocId it is created under that ID.
+     *
+     * @return The ID of the new entry
+     */
+    String add(PantryItem item, String userId) throws Exception;
+
+    /**
+     * Add many entries at once, like {@link #add} for each item but in one write where the
+     * backend allows it.
+     *
+     * @return The IDs of the new entries, in the order of the items
+     */
+    List<String> addAll(List<PantryItem> items, String userId) throws Exception;
+
+    /** The item must carry its shoppingDocId. */
+    void update(PantryItem item, String userId) throws Exception;
+
+    /** IDs of stored entries with the same name, quantity, unit and location as the item. */
+    List<String> findIds(PantryItem item, String userId) throws Exception;
+
+    void delete(Collection<String> docIds, String userId) throws Exception;
+
+    int count(String userId) throws Exception;
+
+    /** Pantry items expiring between the two dates (inclusive), as shopping list rows. */
+    List<PantryItem> findExpiringBetween(String userId, LocalDate from, LocalDate to) throws Exception;
+
+    /** Pantry items flagged low stock or with quantity at or below the threshold, as shopping list rows. */
+    List<PantryItem> findLowStock(String userId, int threshold) throws Exception;
+}
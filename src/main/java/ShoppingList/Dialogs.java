@@ -1,16 +1,14 @@
 package ShoppingList;
 
-import Firebase.FirebaseConfiguration;
+import Firebase.AsyncFirebaseService;
+import Repository.Repositories;
 import com.example.demo1.UserSession;
-import com.google.cloud.Timestamp;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.text.Font;
 
-import java.util.HashMap;
-import java.util.Map;
 
 public class Dialogs {
 
@@ -93,8 +91,8 @@ public class Dialogs {
                 item.setUnit(unit.getValue());
                 item.setLocation(location.getValue());
 
-                String id = saveToFirebase(item);
-                item.setShoppingDocId(id);
+                // Saved in the background; the doc id is filled in once Firestore answers
+                saveToFirebase(item);
 
                 return item;
             }
@@ -202,16 +200,8 @@ public class Dialogs {
                 return;
             }
 
-            var db = FirebaseConfiguration.getDatabase();
-
-            // 1. Build the exact path to the document to be deleted
-            var docRef = db.collection("users")
-                    .document(uid)
-                    .collection("shoppingList")
-                    .document(item.getShoppingDocId()); // Use the stored ID
-
-            // 2. Execute the delete operation and wait for it to complete
-            docRef.delete().get();
+            // Delete by the stored ID and wait for it to complete
+            Repositories.shoppingList().delete(java.util.List.of(item.getShoppingDocId()), uid);
 
             System.out.println("❌ Deleted from shoppingList: " + item.getName() + " (" + item.getShoppingDocId() + ")");
 
@@ -221,69 +211,44 @@ public class Dialogs {
         }
     }
 
-    /** Update the existing item in Firestore under users/{uid}/shoppingList */
+    /** Update the existing item in Firestore under users/{uid}/shoppingList (off the FX thread) */
     private static void updateFirebase(PantryItem item) {
         if (item.getShoppingDocId() == null || item.getShoppingDocId().isBlank()) {
             System.err.println("⚠ Cannot update item — missing document ID.");
             return;
         }
 
-        try {
-            String uid = UserSession.getCurrentUserId();
-            if (uid == null || uid.isBlank()) {
-                System.err.println("⚠ Cannot update item — no logged-in user found.");
-                return;
-            }
-
-            var db = FirebaseConfiguration.getDatabase();
-
-            // Target the specific document using its ID
-            var docRef = db.collection("users")
-                    .document(uid)
-                    .collection("shoppingList")
-                    .document(item.getShoppingDocId());
-
-            // Create the map of fields to update
-            Map<String, Object> data = new HashMap<>();
-            data.put("item", item.getName());
-            data.put("quantity", item.getQty());
-            data.put("unit", item.getUnit());
-            data.put("location", item.getLocation());
-            docRef.update(data).get();
-
-            System.out.println("✏️ Updated shoppingList: " + item.getName() + " (" + item.getShoppingDocId() + ")");
-        } catch (Exception e) {
-            e.printStackTrace();
+        String uid = UserSession.getCurrentUserId();
+        if (uid == null || uid.isBlank()) {
+            System.err.println("⚠ Cannot update item — no logged-in user found.");
+            return;
         }
-    }
 
-    private static String saveToFirebase(PantryItem item) {
-        try {
-            String uid = UserSession.getCurrentUserId();
-            if (uid == null || uid.isBlank()) {
-                System.err.println("⚠ Cannot save item — no logged-in user found.");
-                return null;
+        AsyncFirebaseService.supply(() -> {
+            Repositories.shoppingList().update(item, uid);
+            return null;
+        }).whenComplete((v, error) -> {
+            if (error != null) {
+                error.printStackTrace();
             }
+        });
+    }
 
-            var db = FirebaseConfiguration.getDatabase();
-            var shoppingListRef = db.collection("users")
-                    .document(uid)
-                    .collection("shoppingList");
-
-            Map<String, Object> data = new HashMap<>();
-            data.put("item", item.getName());
-            data.put("quantity", item.getQty());
-            data.put("unit", item.getUnit());
-            data.put("location", item.getLocation());
-            data.put("createdAt", Timestamp.now());
-
-            var docRef = shoppingListRef.add(data).get();  // wait; returns docRef
-            System.out.println("✅ Saved to shoppingList: " + item.getName() + " (" + docRef.getId() + ")");
-            return docRef.getId();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    /** Add the item to users/{uid}/shoppingList (off the FX thread) and store its new doc id. */
+    private static void saveToFirebase(PantryItem item) {
+        String uid = UserSession.getCurrentUserId();
+        if (uid == null || uid.isBlank()) {
+            System.err.println("⚠ Cannot save item — no logged-in user found.");
+            return;
         }
+
+        AsyncFirebaseService.supply(() -> Repositories.shoppingList().add(item, uid)).whenComplete((id, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            item.setShoppingDocId(id);
+        });
     }
 
 }
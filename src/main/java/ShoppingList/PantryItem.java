@@ -14,6 +14,7 @@ public class PantryItem {
     private LocalDate expiration;
     private boolean lowStock;
     private String shoppingDocId; // NEW: Store Firestore document ID
+    private Pantry.Quantity amount; // Exact weight/volume when set as one (e.g. 0.25 kg), else null
 
     // Constructor
     public PantryItem(String name, int qty, String unit, String location, LocalDate expiration, boolean lowStock) {
@@ -52,14 +53,40 @@ public class PantryItem {
 
     public void setQty(int qty) {
         this.qty = qty;
+        this.amount = null;
     }
 
     public String getUnit() {
         return unit;
     }
 
+    /**
+     * The exact amount if one was set, else qty in unit, as a {@link Pantry.Quantity}, so rows
+     * can be compared and summed across units.
+     */
+    public Pantry.Quantity getAmount() {
+        return amount != null ? amount : Pantry.Quantity.of(qty, unit);
+    }
+
+    /** @return The amount set with {@link #setAmount}, or null (what gets stored) */
+    public Pantry.Quantity getExactAmount() {
+        return amount;
+    }
+
+    /**
+     * Set the exact amount; qty and unit follow it (qty rounded to a whole number, at least 1
+     * for a non-zero amount). Null clears it and leaves them alone.
+     */
+    public void setAmount(Pantry.Quantity amount) {
+        this.amount = amount;
+        if (amount == null) return;
+        this.qty = amount.getWholeAmount();
+        this.unit = amount.getUnit().getSymbol();
+    }
+
     public void setUnit(String unit) {
         this.unit = unit;
+        this.amount = null;
     }
 
     public String getLocation() {
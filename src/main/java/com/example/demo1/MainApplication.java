@@ -1,6 +1,8 @@
 package com.example.demo1;
 
 import Firebase.FirebaseConfiguration;
+import Pantry.CameraManager;
+import Repository.Repositories;
 import com.google.cloud.firestore.Firestore;
 import com.google.firebase.auth.FirebaseAuth;
 import javafx.application.Application;
@@ -41,6 +43,9 @@ public class MainApplication extends Application {
         stage.setScene(scene);
         stage.setTitle("SmartPantry");
         stage.show();
+
+        // Find the cameras in the background now, so the first barcode scan does not wait for it
+        CameraManager.getInstance().discover();
     }
 
     /**
@@ -81,7 +86,10 @@ public class MainApplication extends Application {
     }
 
     public static void main(String[] args) {
-        fStore = FirebaseConfiguration.initialize(); // Firebase is initialized HERE
+        // Firebase is initialized HERE unless -Dsmartpantry.store selects a local backend
+        if (Repositories.initialize() == Repositories.Store.FIRESTORE) {
+            fStore = FirebaseConfiguration.getDatabase();
+        }
         launch();
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package Pantry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per classification of each bundled sample.
+ *
+ * Run with the test classpath, e.g. from the IDE, or:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=Pantry.CategoryClassifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryClassifierBenchmark {
+    // Short product names, UPCItemDB paths and Open Food Facts tag lists behave differently
+    @Param({"0", "9", "17", "25", "33", "41"})
+    public int sample;
+
+    private CategoryClassifier classifier;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        classifier = CategoryClassifier.getDefault();
+        List<String[]> samples = CategoryClassifier.loadSamples(null);
+        text = samples.get(sample % samples.size())[1];
+    }
+
+    @Benchmark
+    public String classify() {
+        return classifier.classify(text);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CategoryClassifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,32 @@
+package Pantry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every line of the bundled category-samples.tsv must classify as its expected category.
+ */
+class CategoryClassifierTest {
+
+    static List<String[]> samples() throws IOException {
+        return CategoryClassifier.loadSamples(null);
+    }
+
+    @ParameterizedTest(name = "{1} -> {0}")
+    @MethodSource("samples")
+    void classifiesSample(String expected, String text) {
+        assertEquals(expected, CategoryClassifier.getDefault().classify(text));
+    }
+
+    @Test
+    void blankTextIsOther() {
+        assertEquals(CategoryClassifier.OTHER, CategoryClassifier.getDefault().classify(null));
+        assertEquals(CategoryClassifier.OTHER, CategoryClassifier.getDefault().classify(""));
+    }
+}
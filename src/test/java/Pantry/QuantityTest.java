@@ -0,0 +1,66 @@
+package Pantry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Product sizes as the databases write them, parsed to base units (mg, µL, pieces).
+ */
+class QuantityTest {
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "500g          | 500000     | G",
+            "2 x 330 ml    | 660000     | ML",
+            "330 ml x 6    | 1980000    | ML",
+            "6 × 12 fl oz  | 2129292    | FL_OZ",
+            "1,5 kg        | 1500000    | KG",
+            "1,000 g       | 1000000    | G",
+            "1,000,000 g   | 1000000000 | G",
+            "12 fl. oz     | 354882     | FL_OZ",
+            "1.5 lb        | 680389     | LB",
+            "3 bottles     | 3          | PCS",
+            "12            | 12         | PCS",
+    })
+    void parsesProductSizes(String text, long base, Quantity.Unit unit) {
+        Quantity q = Quantity.parse(text);
+        assertEquals(base, q.getBase());
+        assertEquals(unit, q.getUnit());
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "no digits", "kg"})
+    void textWithoutANumberIsNull(String text) {
+        assertNull(Quantity.parse(text));
+    }
+
+    @Test
+    void amountTooLargeForALongIsNull() {
+        assertNull(Quantity.parse("999999 x 999999999999 kg"));
+    }
+
+    @Test
+    void displaysInItsOwnUnit() {
+        assertEquals("1.5 kg", Quantity.parse("1,5 kg").toString());
+        assertEquals("660 ml", Quantity.parse("2 x 330 ml").toString());
+    }
+
+    @Test
+    void wholeAmountIsNeverZeroForANonZeroAmount() {
+        assertEquals(1, Quantity.of(0.25, "kg").getWholeAmount());
+        assertEquals(2, Quantity.of(1.5, "lb").getWholeAmount());
+        assertEquals(0, Quantity.of(0, "g").getWholeAmount());
+    }
+
+    @Test
+    void equalAmountsAreEqualAcrossUnits() {
+        assertEquals(Quantity.parse("1 kg"), Quantity.parse("1000 g"));
+    }
+}